@@ -1,5 +1,6 @@
 package com.project.tradingev_batter.Controller;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -23,10 +24,12 @@ import org.springframework.web.multipart.MultipartFile;
 import com.project.tradingev_batter.Entity.Carts;
 import com.project.tradingev_batter.Entity.Contracts;
 import com.project.tradingev_batter.Entity.Dispute;
+import com.project.tradingev_batter.Entity.Favorite_post;
 import com.project.tradingev_batter.Entity.Feedback;
 import com.project.tradingev_batter.Entity.Order_detail;
 import com.project.tradingev_batter.Entity.Orders;
 import com.project.tradingev_batter.Entity.Refund;
+import com.project.tradingev_batter.Entity.SavedSearch;
 import com.project.tradingev_batter.Entity.User;
 import com.project.tradingev_batter.Entity.cart_items;
 import com.project.tradingev_batter.Service.CartService;
@@ -39,15 +42,19 @@ import com.project.tradingev_batter.Service.ImageUploadService;
 import com.project.tradingev_batter.Service.OrderService;
 import com.project.tradingev_batter.Service.ProductService;
 import com.project.tradingev_batter.Service.RefundService;
+import com.project.tradingev_batter.Service.SavedSearchService;
 import com.project.tradingev_batter.Service.TransactionService;
 import com.project.tradingev_batter.Service.UserService;
 import com.project.tradingev_batter.Service.VNPayService;
+import com.project.tradingev_batter.Service.WatchlistService;
 import com.project.tradingev_batter.dto.CheckoutRequest;
 import com.project.tradingev_batter.dto.DisputeRequest;
 import com.project.tradingev_batter.dto.FeedbackRequest;
+import com.project.tradingev_batter.dto.ProductCardDTO;
 import com.project.tradingev_batter.dto.PriceSuggestionRequest;
 import com.project.tradingev_batter.dto.PriceSuggestionResponse;
 import com.project.tradingev_batter.dto.RefundRequest;
+import com.project.tradingev_batter.dto.SavedSearchRequest;
 import com.project.tradingev_batter.enums.OrderStatus;
 import com.project.tradingev_batter.security.CustomUserDetails;
 
@@ -77,6 +84,8 @@ public class BuyerController {
     private final TransactionService transactionService;
     private final GeminiAIService geminiAIService;
     private final RefundService refundService;
+    private final SavedSearchService savedSearchService;
+    private final WatchlistService watchlistService;
 
     public BuyerController(CartService cartService,
             ContractService contractService,
@@ -90,7 +99,9 @@ public class BuyerController {
             ImageUploadService imageUploadService,
             TransactionService transactionService,
             GeminiAIService geminiAIService,
-            RefundService refundService) {
+            RefundService refundService,
+            SavedSearchService savedSearchService,
+            WatchlistService watchlistService) {
         this.cartService = cartService;
         this.contractService = contractService;
         this.orderService = orderService;
@@ -104,6 +115,8 @@ public class BuyerController {
         this.transactionService = transactionService;
         this.geminiAIService = geminiAIService;
         this.refundService = refundService;
+        this.savedSearchService = savedSearchService;
+        this.watchlistService = watchlistService;
     }
 
     //Thêm sản phẩm vào giỏ hàng
@@ -985,6 +998,157 @@ public class BuyerController {
         }
     }
 
+    //Lưu tìm kiếm: nhận notification khi có tin mới lên sàn khớp điều kiện
+    @Operation(
+            summary = "Lưu tìm kiếm",
+            description = "Buyer lưu từ khóa + bộ lọc (loại, hãng, giá, năm, dung lượng, odo...). Khi có xe/pin mới được đăng bán khớp điều kiện, buyer nhận thông báo."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Lưu tìm kiếm thành công"),
+        @ApiResponse(responseCode = "400", description = "Không có điều kiện hoặc vượt quá số tìm kiếm tối đa"),
+        @ApiResponse(responseCode = "401", description = "Chưa đăng nhập")
+    })
+    @PostMapping("/saved-searches")
+    public ResponseEntity<Map<String, Object>> createSavedSearch(@RequestBody SavedSearchRequest request) {
+        try {
+            User buyer = getCurrentUser();
+            SavedSearch savedSearch = savedSearchService.createSavedSearch(buyer.getUserid(), request);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "success");
+            response.put("message", "Đã lưu tìm kiếm");
+            response.put("savedSearch", savedSearch);
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(400).body(Map.of(
+                    "status", "error",
+                    "message", e.getMessage()
+            ));
+        }
+    }
+
+    @Operation(
+            summary = "Danh sách tìm kiếm đã lưu",
+            description = "Lấy các tìm kiếm đã lưu của buyer hiện tại kèm số tin đã khớp"
+    )
+    @GetMapping("/saved-searches")
+    public ResponseEntity<Map<String, Object>> getSavedSearches() {
+        User buyer = getCurrentUser();
+        List<SavedSearch> savedSearches = savedSearchService.getSavedSearches(buyer.getUserid());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("savedSearches", savedSearches);
+        response.put("total", savedSearches.size());
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(
+            summary = "Xóa tìm kiếm đã lưu",
+            description = "Xóa một tìm kiếm đã lưu, không nhận thông báo cho tìm kiếm này nữa"
+    )
+    @DeleteMapping("/saved-searches/{savedSearchId}")
+    public ResponseEntity<Map<String, Object>> deleteSavedSearch(
+            @Parameter(description = "ID của tìm kiếm đã lưu", required = true)
+            @PathVariable Long savedSearchId) {
+        try {
+            User buyer = getCurrentUser();
+            savedSearchService.deleteSavedSearch(buyer.getUserid(), savedSearchId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "success");
+            response.put("message", "Đã xóa tìm kiếm đã lưu");
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(400).body(Map.of(
+                    "status", "error",
+                    "message", e.getMessage()
+            ));
+        }
+    }
+
+    //Theo dõi sản phẩm (watchlist): nhận thông báo khi giảm giá hoặc đổi trạng thái
+    @Operation(
+            summary = "Theo dõi sản phẩm",
+            description = "Thêm sản phẩm vào watchlist. Buyer nhận thông báo khi seller giảm giá hoặc sản phẩm đổi trạng thái (đã bán, hết hạn...)."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Đã theo dõi sản phẩm"),
+        @ApiResponse(responseCode = "400", description = "Sản phẩm không tồn tại hoặc là sản phẩm của chính bạn"),
+        @ApiResponse(responseCode = "401", description = "Chưa đăng nhập")
+    })
+    @PostMapping("/watchlist/{productId}")
+    public ResponseEntity<Map<String, Object>> watchProduct(
+            @Parameter(description = "ID của sản phẩm", required = true)
+            @PathVariable Long productId) {
+        try {
+            User buyer = getCurrentUser();
+            Favorite_post favorite = watchlistService.watchProduct(buyer.getUserid(), productId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "success");
+            response.put("message", "Đã thêm vào danh sách theo dõi");
+            response.put("productId", productId);
+            response.put("watchedPrice", favorite.getWatchedPrice());
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(400).body(Map.of(
+                    "status", "error",
+                    "message", e.getMessage()
+            ));
+        }
+    }
+
+    @Operation(
+            summary = "Bỏ theo dõi sản phẩm",
+            description = "Xóa sản phẩm khỏi watchlist"
+    )
+    @DeleteMapping("/watchlist/{productId}")
+    public ResponseEntity<Map<String, Object>> unwatchProduct(
+            @Parameter(description = "ID của sản phẩm", required = true)
+            @PathVariable Long productId) {
+        try {
+            User buyer = getCurrentUser();
+            watchlistService.unwatchProduct(buyer.getUserid(), productId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "success");
+            response.put("message", "Đã bỏ theo dõi sản phẩm");
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(400).body(Map.of(
+                    "status", "error",
+                    "message", e.getMessage()
+            ));
+        }
+    }
+
+    @Operation(
+            summary = "Danh sách sản phẩm đang theo dõi",
+            description = "Lấy watchlist của buyer kèm giá lúc bắt đầu theo dõi và giá hiện tại"
+    )
+    @GetMapping("/watchlist")
+    public ResponseEntity<Map<String, Object>> getWatchlist() {
+        User buyer = getCurrentUser();
+        List<Favorite_post> watchlist = watchlistService.getWatchlist(buyer.getUserid());
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (Favorite_post favorite : watchlist) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("product", ProductCardDTO.from(favorite.getProducts()));
+            item.put("watchedPrice", favorite.getWatchedPrice());
+            item.put("currentPrice", favorite.getProducts().getCost());
+            item.put("watchedAt", favorite.getCreated_at());
+            items.add(item);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("watchlist", items);
+        response.put("total", items.size());
+        return ResponseEntity.ok(response);
+    }
+
     // =============== HELPER METHODS ==================================================================================
     private String uploadImageToCloudinary(MultipartFile file, String folderPath) throws Exception {
         // Sử dụng ImageUploadService có sẵn
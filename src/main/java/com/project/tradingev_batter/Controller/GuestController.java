@@ -3,11 +3,24 @@ package com.project.tradingev_batter.Controller;
 import com.project.tradingev_batter.Entity.Feedback;
 import com.project.tradingev_batter.Entity.PackageService;
 import com.project.tradingev_batter.Entity.Product;
+import com.project.tradingev_batter.Entity.SellerRating;
 import com.project.tradingev_batter.Entity.User;
 import com.project.tradingev_batter.Entity.product_img;
+import com.project.tradingev_batter.Service.CatalogFeedWriter;
+import com.project.tradingev_batter.Service.CatalogVersionIndex;
+import com.project.tradingev_batter.Service.FeedbackService;
 import com.project.tradingev_batter.Service.PackageServiceService;
+import com.project.tradingev_batter.Service.ProductCursor;
+import com.project.tradingev_batter.Service.ProductReadCache;
+import com.project.tradingev_batter.Service.ProductSimilarityIndex;
+import com.project.tradingev_batter.Service.ProductSpecifications;
 import com.project.tradingev_batter.Service.ProductService;
 import com.project.tradingev_batter.Service.UserService;
+import com.project.tradingev_batter.dto.CursorPage;
+import com.project.tradingev_batter.dto.ProductCardDTO;
+import com.project.tradingev_batter.dto.ProductFields;
+import com.project.tradingev_batter.dto.ProductFilter;
+import com.project.tradingev_batter.enums.ProductSort;
 import com.project.tradingev_batter.enums.ProductStatus;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -15,9 +28,20 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -40,11 +64,26 @@ public class GuestController {
     private final ProductService productService;
     private final UserService userService;
     private final PackageServiceService packageServiceService;
-
-    public GuestController(ProductService productService, UserService userService, PackageServiceService packageServiceService) {
+    private final ProductReadCache productReadCache;
+    private final FeedbackService feedbackService;
+    private final CatalogFeedWriter catalogFeedWriter;
+    private final CatalogVersionIndex catalogVersionIndex;
+    // Chỉ mở transaction khi cache miss (build chi tiết cần lazy-load ảnh, seller, feedback)
+    private final TransactionTemplate readOnlyTransaction;
+
+    public GuestController(ProductService productService, UserService userService, PackageServiceService packageServiceService,
+                           ProductReadCache productReadCache, FeedbackService feedbackService,
+                           CatalogFeedWriter catalogFeedWriter, CatalogVersionIndex catalogVersionIndex,
+                           PlatformTransactionManager transactionManager) {
         this.productService = productService;
         this.userService = userService;
         this.packageServiceService = packageServiceService;
+        this.productReadCache = productReadCache;
+        this.feedbackService = feedbackService;
+        this.catalogFeedWriter = catalogFeedWriter;
+        this.catalogVersionIndex = catalogVersionIndex;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
     //Xem danh sách tất cả sản phẩm (xe và pin đang bán)
@@ -58,53 +97,96 @@ public class GuestController {
             @ApiResponse(responseCode = "500", description = "Lỗi server")
     })
     @GetMapping("/products")
-    @Transactional
     public ResponseEntity<Map<String, Object>> getAllProducts(
             @Parameter(description = "Loại sản phẩm: 'Car EV' hoặc 'Battery'")
             @RequestParam(required = false) String type,
             @Parameter(description = "Số trang (0-based)", example = "0")
             @RequestParam(required = false, defaultValue = "0") Integer page,
             @Parameter(description = "Số sản phẩm mỗi trang", example = "10")
-            @RequestParam(required = false, defaultValue = "10") Integer size) {
-
-        List<Product> products = productService.getAllProducts();
-
-        // Lọc chỉ sản phẩm đang bán
-        products = products.stream()
-                .filter(p -> p.getStatus() == ProductStatus.DANG_BAN)
-                .collect(Collectors.toList());
+            @RequestParam(required = false, defaultValue = "10") Integer size,
+            @Parameter(description = "Cursor trang trước (nextCursor). Truyền rỗng để lấy trang đầu theo chế độ cursor")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Sắp xếp (chế độ cursor): NEWEST, PRICE_ASC, PRICE_DESC", example = "NEWEST")
+            @RequestParam(required = false) String sort,
+            @Parameter(description = "Chỉ trả các field được chọn, vd: productid,productname,cost,primaryImage. Bỏ trống = đủ thẻ")
+            @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
+
+        ProductFields productFields;
+        try {
+            productFields = ProductFields.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
 
-        // Lọc theo type nếu có
-        if (type != null && !type.isEmpty()) {
-            products = products.stream()
-                    .filter(p -> type.equals(p.getType()))
-                    .collect(Collectors.toList());
+        // Catalog chưa đổi kể từ lần client tải trước => 304, không đọc cache/DB
+        // Validator lấy trước khi build: nếu catalog đổi trong lúc build, ETag cũ chỉ làm lần sau tải lại (không bao giờ 304 sai)
+        CatalogVersionIndex.Validator validator = catalogVersionIndex.catalog();
+        if (webRequest.checkNotModified(validator.getEtag(), validator.getLastModified())) {
+            return notModified(validator);
         }
 
-        // Pagination: 10 sản phẩm/trang
-        int totalProducts = products.size();
-        int totalPages = (int) Math.ceil((double) totalProducts / size);
-        int start = page * size;
-        int end = Math.min(start + size, totalProducts);
+        // Chế độ keyset: không OFFSET/COUNT, mỗi trang tốn như nhau và không trùng/sót khi dữ liệu thay đổi
+        if (cursor != null) {
+            try {
+                String cacheKey = "cursor|" + type + "|" + sort + "|" + cursor + "|" + size + "|" + productFields.cacheKey();
+                return withValidator(validator, productReadCache.getListing(cacheKey, () ->
+                        buildCursorResponse(productService.getProductCardsForSale(type, sort, cursor, size, productFields), size)));
+            } catch (IllegalArgumentException e) {
+                return badRequest(e.getMessage());
+            }
+        }
 
-        List<Product> paginatedProducts = (start < totalProducts)
-            ? products.subList(start, end)
-            : List.of();
+        // Lọc status DANG_BAN + type và phân trang ngay trong DB (chỉ load 1 trang thẻ sản phẩm)
+        // Trang đã build được cache, bị xóa ngay khi có sản phẩm thay đổi
+        String cacheKey = "page|" + type + "|" + page + "|" + size + "|" + productFields.cacheKey();
+        return withValidator(validator, productReadCache.getListing(cacheKey, () -> {
+            Page<ProductCardDTO> productPage = productService.getProductCardsForSale(type, page, size, productFields);
 
-        // Convert to DTO to avoid lazy loading issues
-        List<Map<String, Object>> productDTOs = paginatedProducts.stream()
-                .map(this::convertProductToDTO)
-                .collect(Collectors.toList());
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "success");
+            response.put("products", productPage.getContent());
+            response.put("currentPage", page);
+            response.put("pageSize", size);
+            response.put("totalProducts", productPage.getTotalElements());
+            response.put("totalPages", productPage.getTotalPages());
+            return response;
+        }));
+    }
 
+    private Map<String, Object> buildCursorResponse(CursorPage<ProductCardDTO> cursorPage, int size) {
         Map<String, Object> response = new HashMap<>();
         response.put("status", "success");
-        response.put("products", productDTOs);
-        response.put("currentPage", page);
+        response.put("products", cursorPage.getItems());
         response.put("pageSize", size);
-        response.put("totalProducts", totalProducts);
-        response.put("totalPages", totalPages);
+        response.put("nextCursor", cursorPage.getNextCursor());
+        response.put("hasNext", cursorPage.isHasNext());
+        return response;
+    }
 
-        return ResponseEntity.ok(response);
+    private ResponseEntity<Map<String, Object>> badRequest(String message) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("status", "error");
+        errorResponse.put("message", message);
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+
+    // 304 Not Modified: chỉ header validator, không body
+    private ResponseEntity<Map<String, Object>> notModified(CatalogVersionIndex.Validator validator) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .cacheControl(CacheControl.noCache())
+                .eTag(validator.getEtag())
+                .lastModified(validator.getLastModified())
+                .build();
+    }
+
+    // 200 kèm ETag/Last-Modified; no-cache = trình duyệt được lưu nhưng phải hỏi lại server trước khi dùng
+    private ResponseEntity<Map<String, Object>> withValidator(CatalogVersionIndex.Validator validator, Map<String, Object> body) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(validator.getEtag())
+                .lastModified(validator.getLastModified())
+                .body(body);
     }
 
     // Helper method để convert Product thành DTO
@@ -162,7 +244,8 @@ public class GuestController {
     //Query params: brand, year, minPrice, maxPrice, condition, type
     @Operation(
             summary = "Tìm kiếm và lọc sản phẩm",
-            description = "Tìm kiếm sản phẩm theo nhiều tiêu chí như tên, thương hiệu, năm sản xuất, giá, tình trạng, loại sản phẩm."
+            description = "Tìm kiếm sản phẩm theo nhiều tiêu chí như tên, thương hiệu, năm sản xuất, giá, tình trạng, loại sản phẩm. " +
+                    "Không có cursor thì kết quả được xếp theo độ liên quan (khớp từ khóa, lượt xem, độ mới, rating seller, đã kiểm định) và phân trang theo page/size."
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Thành công - Trả về danh sách sản phẩm tìm được"),
@@ -178,92 +261,119 @@ public class GuestController {
             @RequestParam(required = false) Double minPrice,
             @RequestParam(required = false) Double maxPrice,
             @RequestParam(required = false) String condition,
-            @RequestParam(required = false) String type) {
-
-        List<Product> products = productService.getAllProducts();
-
-        // Lọc chỉ sản phẩm đang bán
-        products = products.stream()
-                .filter(p -> p.getStatus() == ProductStatus.DANG_BAN)
-                .collect(Collectors.toList());
-
-        // Lọc theo keyword (tìm trong tên sản phẩm hoặc description)
-        if (keyword != null && !keyword.isEmpty()) {
-            String lowerKeyword = keyword.toLowerCase();
-            products = products.stream()
-                    .filter(p -> p.getProductname().toLowerCase().contains(lowerKeyword) ||
-                               (p.getDescription() != null && p.getDescription().toLowerCase().contains(lowerKeyword)))
-                    .collect(Collectors.toList());
-        }
-
-        // Lọc theo type
-        if (type != null && !type.isEmpty()) {
-            products = products.stream()
-                    .filter(p -> type.equals(p.getType()))
-                    .collect(Collectors.toList());
-        }
+            @RequestParam(required = false) String type,
+            @Parameter(description = "Số km đã đi (chỉ xe)")
+            @RequestParam(required = false) Double minOdo,
+            @RequestParam(required = false) Double maxOdo,
+            @Parameter(description = "Dung lượng pin (kWh)")
+            @RequestParam(required = false) Double minCapacity,
+            @RequestParam(required = false) Double maxCapacity,
+            @Parameter(description = "Điện áp (chỉ pin)")
+            @RequestParam(required = false) Double minVoltage,
+            @RequestParam(required = false) Double maxVoltage,
+            @Parameter(description = "Dung lượng còn lại - sức khỏe pin (chỉ pin)")
+            @RequestParam(required = false) Double minRemaining,
+            @RequestParam(required = false) Double maxRemaining,
+            @Parameter(description = "Cursor trang trước (nextCursor). Có cursor thì kết quả được phân trang theo sort")
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String sort,
+            @Parameter(description = "Số trang (0-based) khi xếp theo độ liên quan (không có cursor)", example = "0")
+            @RequestParam(required = false, defaultValue = "0") Integer page,
+            @RequestParam(required = false, defaultValue = "10") Integer size,
+            @Parameter(description = "Chỉ trả các field được chọn, vd: productid,productname,cost,primaryImage. Bỏ trống = đủ thẻ")
+            @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
 
-        // Lọc theo brand
-        if (brand != null && !brand.isEmpty()) {
-            products = products.stream()
-                    .filter(p -> {
-                        if ("Car EV".equals(p.getType()) && p.getBrandcars() != null) {
-                            return brand.equalsIgnoreCase(p.getBrandcars().getBrand());
-                        } else if ("Battery".equals(p.getType()) && p.getBrandbattery() != null) {
-                            return brand.equalsIgnoreCase(p.getBrandbattery().getBrand());
-                        }
-                        return false;
-                    })
-                    .collect(Collectors.toList());
+        ProductFields productFields;
+        try {
+            productFields = ProductFields.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
         }
 
-        // Lọc theo năm
-        if (minYear != null || maxYear != null) {
-            products = products.stream()
-                    .filter(p -> {
-                        int year = 0;
-                        if (p.getBrandcars() != null) {
-                            year = p.getBrandcars().getYear();
-                        } else if (p.getBrandbattery() != null) {
-                            year = p.getBrandbattery().getYear();
-                        }
-
-                        if (minYear != null && year < minYear) return false;
-                        if (maxYear != null && year > maxYear) return false;
-                        return year > 0;
-                    })
-                    .collect(Collectors.toList());
+        // Kết quả tìm kiếm chỉ phụ thuộc tham số + catalog => cùng validator với /products
+        CatalogVersionIndex.Validator validator = catalogVersionIndex.catalog();
+        if (webRequest.checkNotModified(validator.getEtag(), validator.getLastModified())) {
+            return notModified(validator);
         }
 
-        // Lọc theo giá
-        if (minPrice != null) {
-            products = products.stream()
-                    .filter(p -> p.getCost() >= minPrice)
-                    .collect(Collectors.toList());
-        }
-        if (maxPrice != null) {
-            products = products.stream()
-                    .filter(p -> p.getCost() <= maxPrice)
+        ProductFilter filter = new ProductFilter();
+        filter.setStatus(ProductStatus.DANG_BAN);
+        filter.setType(type);
+        filter.setBrand(brand);
+        filter.setYearMin(minYear);
+        filter.setYearMax(maxYear);
+        filter.setPriceMin(minPrice);
+        filter.setPriceMax(maxPrice);
+        filter.setCondition(condition);
+        filter.setOdoMin(minOdo);
+        filter.setOdoMax(maxOdo);
+        filter.setCapacityMin(minCapacity);
+        filter.setCapacityMax(maxCapacity);
+        filter.setVoltageMin(minVoltage);
+        filter.setVoltageMax(maxVoltage);
+        filter.setRemainingMin(minRemaining);
+        filter.setRemainingMax(maxRemaining);
+
+        List<Product> products;
+        if (keyword != null && !keyword.isEmpty()) {
+            // Lọc theo keyword qua inverted index (tên, mô tả, model, hãng - không phân biệt dấu)
+            // Chỉ load các sản phẩm khớp (đã xếp hạng), rồi áp cùng bộ lọc trong bộ nhớ
+            products = productService.searchProductsByKeyword(keyword).stream()
+                    .filter(p -> ProductSpecifications.matches(filter, p))
                     .collect(Collectors.toList());
+        } else {
+            // Không có keyword: toàn bộ điều kiện được đẩy xuống DB (chỉ các điều kiện được truyền)
+            products = productService.filterProducts(filter);
         }
 
-        // Lọc theo condition (chỉ cho pin)
-        if (condition != null && !condition.isEmpty()) {
-            products = products.stream()
-                    .filter(p -> p.getBrandbattery() != null &&
-                               condition.equalsIgnoreCase(p.getBrandbattery().getCondition()))
-                    .collect(Collectors.toList());
+        int totalResults = products.size();
+        // Rating seller: 1 lookup batch theo khóa chính, dùng cho cả xếp hạng và thẻ sản phẩm
+        Map<Long, SellerRating> sellerRatings = feedbackService.getSellerRatings(products.stream()
+                .filter(p -> p.getUsers() != null)
+                .map(p -> p.getUsers().getUserid())
+                .collect(Collectors.toSet()));
+
+        String nextCursor = null;
+        boolean hasNext = false;
+        if (cursor != null) {
+            // Kết quả đã lọc nằm trong bộ nhớ => keyset trên danh sách, cùng định dạng cursor với /products
+            try {
+                CursorPage<Product> cursorPage = ProductCursor.slice(products, ProductSort.fromParam(sort), cursor, size);
+                products = cursorPage.getItems();
+                nextCursor = cursorPage.getNextCursor();
+                hasNext = cursorPage.isHasNext();
+            } catch (IllegalArgumentException e) {
+                return badRequest(e.getMessage());
+            }
+        } else {
+            // Xếp theo độ liên quan: chỉ chọn top (page + 1) * size bằng heap rồi cắt trang
+            int pageSize = Math.max(1, size);
+            int offset = Math.max(0, page) * pageSize;
+            List<Product> ranked = productService.rankProducts(products, keyword, sellerRatings, offset + pageSize);
+            products = offset < ranked.size() ? ranked.subList(offset, ranked.size()) : new ArrayList<>();
         }
 
-        // Convert to DTO
-        List<Map<String, Object>> productDTOs = products.stream()
-                .map(this::convertProductToDTO)
+        // Convert sang thẻ sản phẩm (cùng định dạng với /products)
+        List<ProductCardDTO> productCards = products.stream()
+                .map(ProductCardDTO::from)
                 .collect(Collectors.toList());
+        productCards.forEach(card -> {
+            card.applySellerRating(sellerRatings.get(card.getSellerId()));
+            productFields.strip(card);
+        });
 
         Map<String, Object> response = new HashMap<>();
         response.put("status", "success");
-        response.put("products", productDTOs);
-        response.put("totalResults", productDTOs.size());
+        response.put("products", productCards);
+        response.put("totalResults", totalResults);
+        if (cursor != null) {
+            response.put("nextCursor", nextCursor);
+            response.put("hasNext", hasNext);
+        } else {
+            response.put("currentPage", Math.max(0, page));
+            response.put("pageSize", Math.max(1, size));
+        }
 
         Map<String, Object> filters = new HashMap<>();
         filters.put("keyword", keyword != null ? keyword : "");
@@ -278,7 +388,39 @@ public class GuestController {
         }
 
         response.put("filters", filters);
+        response.put("facets", productService.getSearchFacets(keyword, type, brand, minYear, maxYear,
+                minPrice, maxPrice, condition).get("facets"));
+
+        return withValidator(validator, response);
+    }
 
+    //Đếm số sản phẩm theo từng giá trị facet (loại, hãng, năm, tình trạng pin, khoảng giá)
+    //Mỗi facet được đếm với tất cả filter còn lại => FE hiển thị số lượng bên cạnh mỗi lựa chọn
+    @Operation(
+            summary = "Đếm facet tìm kiếm",
+            description = "Trả về số lượng sản phẩm đang bán theo loại, hãng, năm, tình trạng pin và khoảng giá cho bộ lọc hiện tại."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Thành công - Trả về số lượng theo từng facet"),
+            @ApiResponse(responseCode = "500", description = "Lỗi server")
+    })
+    @GetMapping("/products/facets")
+    public ResponseEntity<Map<String, Object>> getProductFacets(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) Integer minYear,
+            @RequestParam(required = false) Integer maxYear,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String condition,
+            @RequestParam(required = false) String type) {
+
+        Map<String, Object> facets = productService.getSearchFacets(keyword, type, brand, minYear, maxYear,
+                minPrice, maxPrice, condition);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.putAll(facets);
         return ResponseEntity.ok(response);
     }
 
@@ -286,7 +428,7 @@ public class GuestController {
     //Tự động tăng viewCount khi xem chi tiết
     @Operation(
             summary = "Xem chi tiết sản phẩm",
-            description = "Lấy thông tin chi tiết của một sản phẩm bao gồm thông tin cơ bản, người bán, đánh giá."
+            description = "Lấy thông tin chi tiết của một sản phẩm bao gồm thông tin cơ bản, người bán, đánh giá và các tin tương tự."
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Thành công - Trả về thông tin chi tiết sản phẩm"),
@@ -294,62 +436,31 @@ public class GuestController {
             @ApiResponse(responseCode = "500", description = "Lỗi server")
     })
     @GetMapping("/products/{productId}")
-    @Transactional
-    public ResponseEntity<Map<String, Object>> getProductDetail(@PathVariable Long productId) {
+    public ResponseEntity<Map<String, Object>> getProductDetail(@PathVariable Long productId, WebRequest webRequest) {
+        // Sản phẩm chưa đổi => 304 trước khi build DTO/đọc entity; vẫn tính 1 lượt xem
+        CatalogVersionIndex.Validator validator = catalogVersionIndex.product(productId);
+        if (validator != null && webRequest.checkNotModified(validator.getEtag(), validator.getLastModified())) {
+            productService.incrementViewCount(productId);
+            return notModified(validator);
+        }
         try {
-            Product product = productService.getProductById(productId);
-
-            // Tăng view count
-            product.setViewCount(product.getViewCount() + 1);
-            productService.updateProduct(productId, product);
-
-            // Convert to DTO
-            Map<String, Object> productDTO = convertProductToDTO(product);
-
-            // Lấy thông tin seller
-            User seller = product.getUsers();
-            Map<String, Object> sellerInfo = new HashMap<>();
-            sellerInfo.put("sellerId", seller.getUserid());
-            sellerInfo.put("username", seller.getUsername());
-            sellerInfo.put("displayName", seller.getDisplayname() != null ? seller.getDisplayname() : seller.getUsername());
-            sellerInfo.put("email", seller.getEmail());
-            sellerInfo.put("phone", seller.getPhone() != null ? seller.getPhone() : "N/A");
-
-            // Lấy feedbacks/ratings
-            List<Map<String, Object>> feedbacks = product.getFeedbacks().stream()
-                    .map(f -> {
-                        Map<String, Object> fb = new HashMap<>();
-                        fb.put("rating", f.getRating());
-                        fb.put("comment", f.getComment() != null ? f.getComment() : "");
-                        fb.put("createdAt", f.getCreated_at());
-                        // Add buyer info
-                        if (f.getUsers() != null) {
-                            Map<String, Object> buyerInfo = new HashMap<>();
-                            buyerInfo.put("buyerId", f.getUsers().getUserid());
-                            buyerInfo.put("buyerName", f.getUsers().getDisplayname() != null ?
-                                    f.getUsers().getDisplayname() : f.getUsers().getUsername());
-                            fb.put("buyer", buyerInfo);
-                        }
-                        return fb;
-                    })
-                    .collect(Collectors.toList());
-
-            double avgRating = product.getFeedbacks().isEmpty() ? 0.0 :
-                    product.getFeedbacks().stream()
-                            .mapToInt(Feedback::getRating)
-                            .average()
-                            .orElse(0.0);
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("product", productDTO);
-            response.put("seller", sellerInfo);
-            response.put("feedbacks", feedbacks);
-            response.put("averageRating", Math.round(avgRating * 10.0) / 10.0);
-            response.put("totalReviews", product.getFeedbacks().size());
-            response.put("viewCount", product.getViewCount());
-
-            return ResponseEntity.ok(response);
+            // Phần chi tiết được cache, tự bị xóa khi sản phẩm/đánh giá thay đổi
+            Map<String, Object> detail = productReadCache.getDetail(productId,
+                    () -> readOnlyTransaction.execute(status -> buildProductDetail(productId)));
+
+            // Tăng view count (không publish ProductChangedEvent => không làm mất cache)
+            // Ghi đè cả product.viewCount trong bản cache (copy map, không sửa bản dùng chung)
+            int viewCount = productService.incrementViewCount(productId);
+            Map<String, Object> response = new HashMap<>(detail);
+            response.put("viewCount", viewCount);
+            @SuppressWarnings("unchecked")
+            Map<String, Object> product = new HashMap<>((Map<String, Object>) detail.get("product"));
+            product.put("viewCount", viewCount);
+            response.put("product", product);
+            // Tin tương tự (xe/pin cùng phân khúc) - đọc list tính sẵn, không cache cùng chi tiết để luôn mới
+            response.put("similarProducts", productService.getSimilarProducts(productId, ProductSimilarityIndex.NEIGHBOURS));
+
+            return validator != null ? withValidator(validator, response) : ResponseEntity.ok(response);
 
         } catch (Exception e) {
             Map<String, Object> errorResponse = new HashMap<>();
@@ -359,6 +470,56 @@ public class GuestController {
         }
     }
 
+    private Map<String, Object> buildProductDetail(Long productId) {
+        Product product = productService.getProductById(productId);
+
+        // Convert to DTO
+        Map<String, Object> productDTO = convertProductToDTO(product);
+
+        // Lấy thông tin seller
+        User seller = product.getUsers();
+        Map<String, Object> sellerInfo = new HashMap<>();
+        sellerInfo.put("sellerId", seller.getUserid());
+        sellerInfo.put("username", seller.getUsername());
+        sellerInfo.put("displayName", seller.getDisplayname() != null ? seller.getDisplayname() : seller.getUsername());
+        sellerInfo.put("email", seller.getEmail());
+        sellerInfo.put("phone", seller.getPhone() != null ? seller.getPhone() : "N/A");
+
+        // Lấy feedbacks/ratings
+        List<Map<String, Object>> feedbacks = product.getFeedbacks().stream()
+                .map(f -> {
+                    Map<String, Object> fb = new HashMap<>();
+                    fb.put("rating", f.getRating());
+                    fb.put("comment", f.getComment() != null ? f.getComment() : "");
+                    fb.put("createdAt", f.getCreated_at());
+                    // Add buyer info
+                    if (f.getUsers() != null) {
+                        Map<String, Object> buyerInfo = new HashMap<>();
+                        buyerInfo.put("buyerId", f.getUsers().getUserid());
+                        buyerInfo.put("buyerName", f.getUsers().getDisplayname() != null ?
+                                f.getUsers().getDisplayname() : f.getUsers().getUsername());
+                        fb.put("buyer", buyerInfo);
+                    }
+                    return fb;
+                })
+                .collect(Collectors.toList());
+
+        double avgRating = product.getFeedbacks().isEmpty() ? 0.0 :
+                product.getFeedbacks().stream()
+                        .mapToInt(Feedback::getRating)
+                        .average()
+                        .orElse(0.0);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("product", productDTO);
+        response.put("seller", sellerInfo);
+        response.put("feedbacks", feedbacks);
+        response.put("averageRating", Math.round(avgRating * 10.0) / 10.0);
+        response.put("totalReviews", product.getFeedbacks().size());
+        return response;
+    }
+
     //Xem thông tin người bán và các sản phẩm họ đang đăng
     @Operation(
             summary = "Xem thông tin người bán",
@@ -371,26 +532,33 @@ public class GuestController {
     })
     @GetMapping("/sellers/{sellerId}")
     @Transactional
-    public ResponseEntity<Map<String, Object>> getSellerInfo(@PathVariable Long sellerId) {
+    public ResponseEntity<Map<String, Object>> getSellerInfo(
+            @PathVariable Long sellerId,
+            @Parameter(description = "Chỉ trả các field thẻ sản phẩm được chọn, vd: productid,productname,cost,primaryImage. Bỏ trống = DTO đầy đủ")
+            @RequestParam(required = false) String fields) {
+        ProductFields productFields;
+        try {
+            productFields = ProductFields.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
         try {
             User seller = userService.getUserById(sellerId);
 
-            // Lấy tất cả sản phẩm đang bán của seller
-            List<Product> sellerProducts = productService.getProductsBySeller(sellerId);
-            sellerProducts = sellerProducts.stream()
-                    .filter(p -> p.getStatus() == ProductStatus.DANG_BAN)
-                    .collect(Collectors.toList());
-
-            // Tính rating trung bình của seller
-            double avgRating = sellerProducts.stream()
-                    .flatMap(p -> p.getFeedbacks().stream())
-                    .mapToInt(f -> f.getRating())
-                    .average()
-                    .orElse(0.0);
-
-            int totalReviews = (int) sellerProducts.stream()
-                    .flatMap(p -> p.getFeedbacks().stream())
-                    .count();
+            // Có fields: thẻ sản phẩm đang bán qua projection (chỉ select/join field được chọn)
+            // Không có fields: giữ DTO đầy đủ như cũ
+            List<?> productDTOs;
+            if (!productFields.isAll()) {
+                productDTOs = productService.getProductCardsBySeller(sellerId, ProductStatus.DANG_BAN, productFields);
+            } else {
+                productDTOs = productService.getProductsBySeller(sellerId).stream()
+                        .filter(p -> p.getStatus() == ProductStatus.DANG_BAN)
+                        .map(this::convertProductToDTO)
+                        .collect(Collectors.toList());
+            }
+
+            // Rating của seller đọc từ bảng tổng hợp (không load feedback của từng sản phẩm)
+            Map<String, Object> ratingSummary = feedbackService.getSellerRatingSummary(sellerId);
 
             Map<String, Object> sellerInfo = new HashMap<>();
             sellerInfo.put("sellerId", seller.getUserid());
@@ -399,14 +567,10 @@ public class GuestController {
             sellerInfo.put("email", seller.getEmail());
             sellerInfo.put("phone", seller.getPhone() != null ? seller.getPhone() : "N/A");
             sellerInfo.put("memberSince", seller.getCreated_at());
-            sellerInfo.put("averageRating", Math.round(avgRating * 10.0) / 10.0);
-            sellerInfo.put("totalReviews", totalReviews);
-            sellerInfo.put("totalProducts", sellerProducts.size());
-
-            // Convert products to DTO
-            List<Map<String, Object>> productDTOs = sellerProducts.stream()
-                    .map(this::convertProductToDTO)
-                    .collect(Collectors.toList());
+            sellerInfo.put("averageRating", ratingSummary.get("averageRating"));
+            sellerInfo.put("totalReviews", ratingSummary.get("totalReviews"));
+            sellerInfo.put("ratingHistogram", ratingSummary.get("histogram"));
+            sellerInfo.put("totalProducts", productDTOs.size());
 
             Map<String, Object> response = new HashMap<>();
             response.put("status", "success");
@@ -449,6 +613,93 @@ public class GuestController {
         return ResponseEntity.ok(response);
     }
 
+    //Danh sách hãng cho dropdown filter kèm số tin đang bán của mỗi hãng
+    @Operation(
+            summary = "Danh sách hãng",
+            description = "Lấy danh sách hãng đang có tin bán theo loại sản phẩm ('Car EV' hoặc 'Battery'), kèm số lượng tin."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Thành công - Trả về danh sách hãng"),
+            @ApiResponse(responseCode = "500", description = "Lỗi server")
+    })
+    @GetMapping("/brands")
+    public ResponseEntity<Map<String, Object>> getBrands(
+            @Parameter(description = "Loại sản phẩm: 'Car EV' hoặc 'Battery'")
+            @RequestParam(required = false) String type) {
+        Map<String, Integer> brandCounts = productService.getBrandCountsByType(type);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("brands", new ArrayList<>(brandCounts.keySet()));
+        response.put("counts", brandCounts);
+        return ResponseEntity.ok(response);
+    }
+
+    //Feed NDJSON toàn bộ tin đang bán cho đối tác/crawler: stream theo từng trang keyset, bộ nhớ không đổi
+    @Operation(
+            summary = "Feed catalog (NDJSON)",
+            description = "Stream toàn bộ sản phẩm đang bán, mỗi dòng là 1 JSON thẻ sản phẩm (application/x-ndjson). " +
+                    "gzip=true để nén response."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Thành công - Stream NDJSON")
+    })
+    @GetMapping("/products/feed")
+    public ResponseEntity<StreamingResponseBody> streamCatalogFeed(
+            @Parameter(description = "Loại sản phẩm: Car EV, Battery (bỏ trống = tất cả)")
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false, defaultValue = "false") boolean gzip,
+            WebRequest webRequest) {
+        // Feed lớn chạy lâu => nới timeout async cho riêng request này
+        WebAsyncUtils.getAsyncManager(webRequest).getAsyncWebRequest().setTimeout(catalogFeedWriter.getTimeoutMs());
+        StreamingResponseBody body = output -> catalogFeedWriter.write(output, type, gzip);
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson;charset=UTF-8"))
+                .header(HttpHeaders.CACHE_CONTROL, "no-store");
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(body);
+    }
+
+    //Gợi ý khi đang gõ ô tìm kiếm: hãng, model, tên sản phẩm đang bán khớp prefix
+    @Operation(
+            summary = "Gợi ý tìm kiếm (typeahead)",
+            description = "Trả về tối đa 10 gợi ý hãng/model/tên sản phẩm đang bán bắt đầu bằng chuỗi đang gõ (không phân biệt dấu), " +
+                    "sắp theo số tin đang bán và lượt xem."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Thành công - Trả về danh sách gợi ý")
+    })
+    @GetMapping("/products/suggest")
+    public ResponseEntity<Map<String, Object>> suggestProducts(
+            @Parameter(description = "Chuỗi người dùng đang gõ", example = "vinf")
+            @RequestParam(required = false, defaultValue = "") String q,
+            @RequestParam(required = false, defaultValue = "10") Integer limit) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("suggestions", productService.suggestProducts(q, limit));
+        return ResponseEntity.ok(response);
+    }
+
+    //Thống kê công khai của sàn: số xe/pin đang bán, giá thấp nhất/trung bình/cao nhất
+    @Operation(
+            summary = "Thống kê công khai",
+            description = "Lấy số lượng xe/pin đang hoạt động trên sàn và khoảng giá, giá trung bình."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Thành công - Trả về thống kê"),
+            @ApiResponse(responseCode = "500", description = "Lỗi server")
+    })
+    @GetMapping("/statistics")
+    public ResponseEntity<Map<String, Object>> getPublicStatistics() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("statistics", productService.getPublicStatistics());
+        return ResponseEntity.ok(response);
+    }
+
     //Xem danh sách gói dịch vụ theo loại (dành cho guest và seller)
     @Operation(
             summary = "Xem danh sách gói dịch vụ",
@@ -460,7 +711,14 @@ public class GuestController {
     })
     @GetMapping("/package-services")
     public ResponseEntity<Map<String, Object>> getAllPackageServices(
-            @RequestParam(required = false) String packageType) {
+            @RequestParam(required = false) String packageType,
+            WebRequest webRequest) {
+
+        // Gói dịch vụ hiếm khi đổi => hầu hết request của SPA được trả 304 không query DB
+        CatalogVersionIndex.Validator validator = catalogVersionIndex.packages();
+        if (webRequest.checkNotModified(validator.getEtag(), validator.getLastModified())) {
+            return notModified(validator);
+        }
 
         List<PackageService> packages;
 
@@ -480,6 +738,6 @@ public class GuestController {
             response.put("packageType", packageType);
         }
 
-        return ResponseEntity.ok(response);
+        return withValidator(validator, response);
     }
 }
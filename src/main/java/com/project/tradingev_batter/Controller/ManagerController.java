@@ -1,9 +1,20 @@
 package com.project.tradingev_batter.Controller;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -15,8 +26,11 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.project.tradingev_batter.Entity.Dispute;
 import com.project.tradingev_batter.Entity.Orders;
 import com.project.tradingev_batter.Entity.PackageService;
@@ -24,17 +38,29 @@ import com.project.tradingev_batter.Entity.Refund;
 import com.project.tradingev_batter.Entity.Role;
 import com.project.tradingev_batter.Entity.User;
 import com.project.tradingev_batter.Repository.PackageServiceRepository;
+import com.project.tradingev_batter.Service.DashboardMetricsStore;
 import com.project.tradingev_batter.Service.DisputeService;
 import com.project.tradingev_batter.Service.ManagerService;
 import com.project.tradingev_batter.Service.RefundService;
+import com.project.tradingev_batter.Service.ReportExportWriter;
+import com.project.tradingev_batter.Service.ReportJobService;
+import com.project.tradingev_batter.Service.RevenueRollupService;
 import com.project.tradingev_batter.Service.UserService;
 import com.project.tradingev_batter.dto.DisputeResolutionRequest;
 import com.project.tradingev_batter.dto.LockRequest;
 import com.project.tradingev_batter.dto.RefundProcessRequest;
+import com.project.tradingev_batter.dto.ReportJobRequest;
+import com.project.tradingev_batter.dto.ReportJobResult;
+import com.project.tradingev_batter.enums.ExportFormat;
+import com.project.tradingev_batter.enums.OrderStatus;
+import com.project.tradingev_batter.enums.RollupGranularity;
+import com.project.tradingev_batter.enums.TransactionStatus;
+import com.project.tradingev_batter.enums.TransactionType;
 import com.project.tradingev_batter.security.CustomUserDetails;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("/api/manager")
@@ -46,17 +72,32 @@ public class ManagerController {
     private final UserService userService;
     private final DisputeService disputeService;
     private final RefundService refundService;
+    private final DashboardMetricsStore dashboardMetricsStore;
+    private final RevenueRollupService revenueRollupService;
+    private final ReportExportWriter reportExportWriter;
+    private final ReportJobService reportJobService;
+    private final ObjectMapper objectMapper;
 
     public ManagerController(ManagerService managerService,
             PackageServiceRepository packageServiceRepository,
             UserService userService,
             DisputeService disputeService,
-            RefundService refundService) {
+            RefundService refundService,
+            DashboardMetricsStore dashboardMetricsStore,
+            RevenueRollupService revenueRollupService,
+            ReportExportWriter reportExportWriter,
+            ReportJobService reportJobService,
+            ObjectMapper objectMapper) {
         this.managerService = managerService;
         this.packageServiceRepository = packageServiceRepository;
         this.userService = userService;
         this.disputeService = disputeService;
         this.refundService = refundService;
+        this.dashboardMetricsStore = dashboardMetricsStore;
+        this.revenueRollupService = revenueRollupService;
+        this.reportExportWriter = reportExportWriter;
+        this.reportJobService = reportJobService;
+        this.objectMapper = objectMapper;
     }
 
     // USER MANAGEMENT
@@ -147,7 +188,7 @@ public class ManagerController {
     @Operation(summary = "Xóa gói dịch vụ")
     @DeleteMapping("/packages/{id}")
     public ResponseEntity<String> deletePackage(@PathVariable Long id) {
-        packageServiceRepository.deleteById(id);
+        managerService.deletePackage(id);
         return ResponseEntity.ok("Deleted");
     }
 
@@ -159,6 +200,180 @@ public class ManagerController {
         return ResponseEntity.ok(managerService.getRevenueReport());
     }
 
+    @Operation(summary = "Biểu đồ doanh thu theo ngày/tháng",
+            description = "Doanh thu xe, pin, gói dịch vụ và hoa hồng theo từng kỳ trong [from, to] (yyyy-MM-dd), "
+                    + "đọc từ bảng tổng hợp sẵn. DAY tối đa 366 ngày, MONTH tối đa 120 tháng")
+    @GetMapping("/reports/revenue/series")
+    public ResponseEntity<Map<String, Object>> getRevenueSeries(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAY") RollupGranularity granularity) {
+        try {
+            return ResponseEntity.ok(revenueRollupService.getRevenueSeries(from, to, granularity));
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @Operation(summary = "Dựng lại bảng tổng hợp doanh thu",
+            description = "Tính lại toàn bộ rollup doanh thu theo ngày/tháng từ đơn hàng và giao dịch hoa hồng")
+    @PostMapping("/reports/revenue/rollups/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildRevenueRollups() {
+        int rows = revenueRollupService.rebuildRollups();
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("rows", rows);
+        return ResponseEntity.ok(response);
+    }
+
+    // EXPORTS
+    //Ghi thẳng ra response trên thread của request (không qua async) => không bị timeout async cắt
+    //với file nhiều triệu dòng. Tham số sai trả JSON lỗi (400) trước khi bắt đầu ghi
+    @Operation(summary = "Xuất danh sách đơn hàng (CSV/XLSX)",
+            description = "Lọc theo status và ngày tạo [from, to] (yyyy-MM-dd). Đọc theo trang keyset và ghi stream, "
+                    + "không giới hạn số dòng")
+    @GetMapping("/exports/orders")
+    public void exportOrders(
+            @RequestParam(required = false, defaultValue = "csv") String format,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.fromParam(format);
+            checkRange(from, to);
+        } catch (IllegalArgumentException e) {
+            writeExportError(response, e);
+            return;
+        }
+        startDownload(response, exportFormat, "orders");
+        reportExportWriter.writeOrders(response.getOutputStream(), exportFormat, status, startOf(from), startOfNextDay(to));
+    }
+
+    @Operation(summary = "Xuất danh sách giao dịch (CSV/XLSX)",
+            description = "Lọc theo loại, status và ngày tạo [from, to] (yyyy-MM-dd). Đọc theo trang keyset và ghi stream")
+    @GetMapping("/exports/transactions")
+    public void exportTransactions(
+            @RequestParam(required = false, defaultValue = "csv") String format,
+            @RequestParam(required = false) TransactionType type,
+            @RequestParam(required = false) TransactionStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.fromParam(format);
+            checkRange(from, to);
+        } catch (IllegalArgumentException e) {
+            writeExportError(response, e);
+            return;
+        }
+        startDownload(response, exportFormat, "transactions");
+        reportExportWriter.writeTransactions(response.getOutputStream(), exportFormat, type, status,
+                startOf(from), startOfNextDay(to));
+    }
+
+    @Operation(summary = "Xuất doanh thu theo kỳ (CSV/XLSX)",
+            description = "Doanh thu từng danh mục theo ngày/tháng trong [from, to], đọc từ bảng tổng hợp")
+    @GetMapping("/exports/revenue")
+    public void exportRevenue(
+            @RequestParam(required = false, defaultValue = "csv") String format,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAY") RollupGranularity granularity,
+            HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.fromParam(format);
+            checkRange(from, to);
+        } catch (IllegalArgumentException e) {
+            writeExportError(response, e);
+            return;
+        }
+        startDownload(response, exportFormat, "revenue");
+        reportExportWriter.writeRevenue(response.getOutputStream(), exportFormat, from, to, granularity);
+    }
+
+    // REPORT JOBS
+    @Operation(summary = "Gửi job báo cáo chạy nền",
+            description = "type: REVENUE_REPORT, SYSTEM_REPORT, REVENUE_SERIES, ORDERS_EXPORT, TRANSACTIONS_EXPORT. "
+                    + "Trả về jobId ngay (202); yêu cầu trùng với job đang chạy hoặc kết quả còn hạn dùng lại job đó")
+    @PostMapping("/report-jobs")
+    public ResponseEntity<Map<String, Object>> submitReportJob(@RequestBody ReportJobRequest request) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            Map<String, Object> job = reportJobService.submit(request, getCurrentUser().getUserid());
+            response.put("status", "success");
+            response.put("job", job);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (IllegalStateException e) {
+            // Hàng đợi job đầy
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        }
+    }
+
+    @Operation(summary = "Xem trạng thái job báo cáo")
+    @GetMapping("/report-jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getReportJob(@PathVariable String jobId) {
+        Map<String, Object> job = reportJobService.getStatus(jobId);
+        if (job == null) {
+            return reportJobNotFound();
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("job", job);
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Theo dõi trạng thái job báo cáo (Server-Sent Events)",
+            description = "Gửi trạng thái hiện tại và mỗi lần đổi trạng thái (event 'status'), đóng khi job kết thúc")
+    @GetMapping(value = "/report-jobs/{jobId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamReportJob(@PathVariable String jobId) {
+        SseEmitter emitter = reportJobService.subscribe(jobId);
+        return emitter != null ? ResponseEntity.ok(emitter) : ResponseEntity.notFound().build();
+    }
+
+    @Operation(summary = "Tải kết quả job báo cáo",
+            description = "Báo cáo trả JSON; job xuất trả file CSV/XLSX. 409 nếu job chưa xong hoặc thất bại")
+    @GetMapping("/report-jobs/{jobId}/result")
+    public ResponseEntity<?> getReportJobResult(@PathVariable String jobId) {
+        Map<String, Object> job = reportJobService.getStatus(jobId);
+        if (job == null) {
+            return reportJobNotFound();
+        }
+        ReportJobResult result = reportJobService.getResult(jobId);
+        if (result == null) {
+            Map<String, Object> body = new HashMap<>();
+            body.put("status", "error");
+            body.put("message", "Job chưa hoàn tất");
+            body.put("job", job);
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+        }
+        if (result.getFile() == null) {
+            return ResponseEntity.ok(result.getData());
+        }
+        Resource file = new FileSystemResource(result.getFile());
+        if (!file.exists()) {
+            return reportJobNotFound();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(result.getFormat().getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(result.getFileName()).build().toString())
+                .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                .body(file);
+    }
+
     @Operation(summary = "Lấy báo cáo hệ thống",
             description = "Báo cáo số lượng sản phẩm, đơn hàng, giao dịch, xu hướng thị trường")
     @GetMapping("/reports/system")
@@ -391,45 +606,10 @@ public class ManagerController {
     @GetMapping("/dashboard/overview")
     public ResponseEntity<Map<String, Object>> getDashboardOverview() {
         try {
-            Map<String, Object> systemReport = managerService.getSystemReport();
-            Map<String, Object> revenueReport = managerService.getRevenueReport();
-
-            Map<String, Object> dashboard = new HashMap<>();
+            // Đọc snapshot từ bộ đếm in-memory (cập nhật theo event, đối chiếu DB định kỳ) - không query DB
+            Map<String, Object> dashboard = new HashMap<>(dashboardMetricsStore.getOverview());
             dashboard.put("status", "success");
 
-            // Pending Tasks Summary
-            Map<String, Object> pendingTasks = new HashMap<>();
-            pendingTasks.put("pendingApprovalProducts", systemReport.get("pendingApprovalProducts"));
-            pendingTasks.put("pendingInspectionProducts", systemReport.get("pendingInspectionProducts"));
-            pendingTasks.put("pendingOrders", systemReport.get("pendingOrders"));
-            pendingTasks.put("openDisputes", systemReport.get("openDisputes"));
-            pendingTasks.put("pendingSellerUpgrades", managerService.getPendingSellerUpgradeRequests().size());
-            dashboard.put("pendingTasks", pendingTasks);
-
-            // Revenue Summary
-            Map<String, Object> revenueSummary = new HashMap<>();
-            revenueSummary.put("totalRevenue", revenueReport.get("totalRevenue"));
-            revenueSummary.put("platformRevenue", revenueReport.get("platformRevenue"));
-            revenueSummary.put("totalCommission", revenueReport.get("totalCommission"));
-            revenueSummary.put("packageRevenue", revenueReport.get("packageRevenue"));
-            dashboard.put("revenueSummary", revenueSummary);
-
-            // Market Trends
-            Map<String, Object> marketTrends = new HashMap<>();
-            marketTrends.put("trendingCategory", systemReport.get("trendingCategory"));
-            marketTrends.put("mostViewedProduct", systemReport.get("mostViewedProduct"));
-            marketTrends.put("totalCarViews", systemReport.get("totalCarViews"));
-            marketTrends.put("totalBatteryViews", systemReport.get("totalBatteryViews"));
-            dashboard.put("marketTrends", marketTrends);
-
-            // Quick Stats
-            Map<String, Object> quickStats = new HashMap<>();
-            quickStats.put("totalUsers", systemReport.get("totalUsers"));
-            quickStats.put("totalProducts", systemReport.get("totalProducts"));
-            quickStats.put("totalOrders", systemReport.get("totalOrders"));
-            quickStats.put("completedOrders", systemReport.get("completedOrders"));
-            dashboard.put("quickStats", quickStats);
-
             return ResponseEntity.ok(dashboard);
 
         } catch (Exception e) {
@@ -440,6 +620,13 @@ public class ManagerController {
         }
     }
 
+    @Operation(summary = "Nhận cập nhật dashboard trực tiếp (Server-Sent Events)",
+            description = "Gửi snapshot dashboard ngay khi kết nối và mỗi khi số liệu thay đổi (event 'dashboard')")
+    @GetMapping(value = "/dashboard/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamDashboard() {
+        return dashboardMetricsStore.subscribe();
+    }
+
     // ============= HELPER METHODS ====================================================================================
     private User getCurrentUser() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -449,4 +636,43 @@ public class ManagerController {
         CustomUserDetails userDetails = (CustomUserDetails) auth.getPrincipal();
         return userDetails.getUser();
     }
+
+    private static ResponseEntity<Map<String, Object>> reportJobNotFound() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "error");
+        response.put("message", "Không tìm thấy job báo cáo (sai id hoặc kết quả đã hết hạn)");
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Khoảng thời gian không hợp lệ: from phải trước hoặc bằng to");
+        }
+    }
+
+    private void writeExportError(HttpServletResponse response, IllegalArgumentException e) throws IOException {
+        Map<String, Object> body = new HashMap<>();
+        body.put("status", "error");
+        body.put("message", e.getMessage());
+        response.setStatus(HttpStatus.BAD_REQUEST.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    private static void startDownload(HttpServletResponse response, ExportFormat format, String name) {
+        response.setContentType(format.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + name + "-" + LocalDate.now() + "." + format.getExtension() + "\"");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+    }
+
+    private static Date startOf(LocalDate date) {
+        return date != null ? Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant()) : null;
+    }
+
+    // to là ngày cuối (bao gồm) => so sánh < đầu ngày hôm sau
+    private static Date startOfNextDay(LocalDate date) {
+        return date != null ? startOf(date.plusDays(1)) : null;
+    }
 }
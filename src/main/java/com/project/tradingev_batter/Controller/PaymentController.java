@@ -7,6 +7,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -34,6 +35,7 @@ import com.project.tradingev_batter.enums.OrderStatus;
 import com.project.tradingev_batter.enums.ProductStatus;
 import com.project.tradingev_batter.enums.TransactionStatus;
 import com.project.tradingev_batter.enums.TransactionType;
+import com.project.tradingev_batter.event.ProductChangedEvent;
 import com.project.tradingev_batter.security.CustomUserDetails;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -57,6 +59,7 @@ public class PaymentController {
     private final SellerService sellerService;
     private final DocuSealService docuSealService;
     private final NotificationService notificationService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public PaymentController(VNPayService vnPayService,
             TransactionRepository transactionRepository,
@@ -64,7 +67,8 @@ public class PaymentController {
             ProductRepository productRepository,
             SellerService sellerService,
             DocuSealService docuSealService,
-            NotificationService notificationService) {
+            NotificationService notificationService,
+            ApplicationEventPublisher eventPublisher) {
         this.vnPayService = vnPayService;
         this.transactionRepository = transactionRepository;
         this.orderRepository = orderRepository;
@@ -72,6 +76,7 @@ public class PaymentController {
         this.sellerService = sellerService;
         this.docuSealService = docuSealService;
         this.notificationService = notificationService;
+        this.eventPublisher = eventPublisher;
     }
 
     //TẠO PAYMENT URL - User click "Thanh toán" → API này tạo VNPay URL
@@ -550,6 +555,7 @@ public class PaymentController {
                     product.setUpdatedat(new Date());
 
                     Product savedProduct = productRepository.saveAndFlush(product); // Use saveAndFlush
+                    eventPublisher.publishEvent(new ProductChangedEvent(savedProduct.getProductid()));
 
                     log.info("✅ Amount reduced: {} → {} (Remaining in stock)", currentAmount, newAmount);
                     log.info("   Product #{} saved successfully with new amount: {}",
@@ -566,6 +572,7 @@ public class PaymentController {
                     }
 
                     Product savedProduct = productRepository.saveAndFlush(product); // Use saveAndFlush
+                    eventPublisher.publishEvent(new ProductChangedEvent(savedProduct.getProductid()));
 
                     log.info("✅ Product marked as SOLD OUT");
                     log.info("   Status changed: {} → DA_BAN", product.getStatus());
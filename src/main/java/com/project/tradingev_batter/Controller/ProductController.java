@@ -9,9 +9,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -24,6 +24,7 @@ import com.project.tradingev_batter.Service.ImageUploadService;
 import com.project.tradingev_batter.Service.ProductService;
 import com.project.tradingev_batter.Service.UserService;
 import com.project.tradingev_batter.dto.ProductDetailResponse;
+import com.project.tradingev_batter.dto.ProductFilter;
 import com.project.tradingev_batter.dto.SellerInfoResponse;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -73,20 +74,15 @@ public class ProductController {
 
     @Operation(
             summary = "Tìm kiếm và lọc sản phẩm",
-            description = "Public API - Tìm kiếm theo loại, hãng, năm, dung lượng, giá"
+            description = "Public API - Tìm kiếm theo loại, hãng, năm, dung lượng, giá, odo (xe), điện áp và dung lượng còn lại (pin). " +
+                    "brand so khớp chính xác (không phân biệt hoa thường) với hãng xe/pin, không còn tìm chuỗi con trong model; " +
+                    "tìm theo tên/model dùng /api/public/products/search?keyword="
     )
     @GetMapping("/search")
-    public ResponseEntity<List<Product>> searchAndFilter(
-            @RequestParam(required = false) String type,
-            @RequestParam(required = false) String brand,
-            @RequestParam(required = false) Integer yearMin,
-            @RequestParam(required = false) Integer yearMax,
-            @RequestParam(required = false) Double capacityMin,
-            @RequestParam(required = false) Double capacityMax,
-            @RequestParam(required = false) String status,
-            @RequestParam(required = false) Double priceMin,
-            @RequestParam(required = false) Double priceMax) {
-        return ResponseEntity.ok(productService.searchAndFilterProducts(type, brand, yearMin, yearMax, capacityMin, capacityMax, status, priceMin, priceMax));
+    public ResponseEntity<List<Product>> searchAndFilter(@ModelAttribute ProductFilter filter) {
+        // Query params: type, brand, status, yearMin/yearMax, priceMin/priceMax, capacityMin/capacityMax,
+        // odoMin/odoMax (xe), condition, voltageMin/voltageMax, remainingMin/remainingMax (pin)
+        return ResponseEntity.ok(productService.filterProducts(filter));
     }
 
     @Operation(
@@ -2,12 +2,14 @@ package com.project.tradingev_batter.Controller;
 
 import com.project.tradingev_batter.Entity.*;
 import com.project.tradingev_batter.Service.*;
+import com.project.tradingev_batter.dto.CursorPage;
 import com.project.tradingev_batter.dto.PackagePurchaseRequest;
 import com.project.tradingev_batter.dto.PriceSuggestionRequest;
 import com.project.tradingev_batter.dto.PriceSuggestionResponse;
 import com.project.tradingev_batter.enums.ProductStatus;
 import com.project.tradingev_batter.security.CustomUserDetails;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -568,8 +570,33 @@ public class SellerController {
             @ApiResponse(responseCode = "401", description = "Chưa đăng nhập")
     })
     @GetMapping("/products")
-    public ResponseEntity<Map<String, Object>> getAllSellerProducts() {
+    public ResponseEntity<Map<String, Object>> getAllSellerProducts(
+            @Parameter(description = "Cursor trang trước (nextCursor). Truyền rỗng để lấy trang đầu; bỏ trống để lấy tất cả")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Sắp xếp: NEWEST, PRICE_ASC, PRICE_DESC", example = "NEWEST")
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false, defaultValue = "20") Integer size) {
         User seller = getCurrentUser();
+
+        // Keyset pagination: mỗi trang chỉ load size + 1 dòng
+        if (cursor != null) {
+            try {
+                CursorPage<Product> page = productService.getProductsBySeller(seller.getUserid(), sort, cursor, size);
+                Map<String, Object> response = new HashMap<>();
+                response.put("status", "success");
+                response.put("products", page.getItems());
+                response.put("pageSize", size);
+                response.put("nextCursor", page.getNextCursor());
+                response.put("hasNext", page.isHasNext());
+                return ResponseEntity.ok(response);
+            } catch (IllegalArgumentException e) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("status", "error");
+                errorResponse.put("message", e.getMessage());
+                return ResponseEntity.badRequest().body(errorResponse);
+            }
+        }
+
         List<Product> products = productService.getProductsBySeller(seller.getUserid());
         
         Map<String, Object> response = new HashMap<>();
@@ -7,7 +7,11 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "brandbatteries")
+@Table(name = "brandbatteries", indexes = {
+        // Lọc sản phẩm theo thông số (ProductSpecifications)
+        @Index(name = "idx_brandbatteries_brand_year", columnList = "brand, year"),
+        @Index(name = "idx_brandbatteries_capacity_remaining", columnList = "capacity, remaining_capacity")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -7,7 +7,11 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "brandcars")
+@Table(name = "brandcars", indexes = {
+        // Lọc sản phẩm theo thông số (ProductSpecifications)
+        @Index(name = "idx_brandcars_brand_year", columnList = "brand, year"),
+        @Index(name = "idx_brandcars_odo", columnList = "odo")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -1,14 +1,19 @@
 package com.project.tradingev_batter.Entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.project.tradingev_batter.enums.DisputeStatus;
+import com.project.tradingev_batter.event.EntityStateListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.util.Date;
 
 @Entity
+@EntityListeners(EntityStateListener.class)
 @Table(name = "disputes")
 @Data
 @AllArgsConstructor
@@ -42,4 +47,11 @@ public class Dispute {
     @ManyToOne
     @JoinColumn(name = "resolved_by")
     private User manager;
+
+    // Trạng thái lúc load/lưu gần nhất - EntityStateListener so sánh để phát event chuyển trạng thái (không lưu DB)
+    @Transient
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private DisputeStatus loadedStatus;
 }
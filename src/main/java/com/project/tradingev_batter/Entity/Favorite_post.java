@@ -4,13 +4,19 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
 @Entity
-@Table(name = "favorite_posts")
+@Table(name = "favorite_posts", indexes = {
+        // Watchlist: product -> người theo dõi; unique để 2 request theo dõi đồng thời không tạo 2 dòng
+        // (có postid vì dòng yêu thích bài đăng để productid NULL, SQL Server coi các NULL là trùng nhau)
+        @Index(name = "ux_favorite_posts_product_user_post", columnList = "productid, userid, postid", unique = true)
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -30,4 +36,13 @@ public class Favorite_post {
     @ManyToOne
     @JoinColumn(name = "postid")
     private Post posts;
+
+    // Watchlist sản phẩm: buyer theo dõi 1 sản phẩm để nhận thông báo giảm giá / đổi trạng thái
+    @ManyToOne
+    @JoinColumn(name = "productid")
+    @OnDelete(action = OnDeleteAction.CASCADE) // Xóa sản phẩm thì xóa luôn lượt theo dõi
+    private Product products;
+
+    @Column(name = "watched_price")
+    private Double watchedPrice; // Giá lúc bắt đầu theo dõi
 }
@@ -2,17 +2,24 @@ package com.project.tradingev_batter.Entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.project.tradingev_batter.enums.OrderStatus;
+import com.project.tradingev_batter.event.EntityStateListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@EntityListeners(EntityStateListener.class)
+@Table(name = "orders", indexes = {
+        // Báo cáo doanh thu/hệ thống: aggregate theo status chỉ cần đọc index
+        @Index(name = "idx_orders_status_package_amount", columnList = "status, package_id, total_amount")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -93,4 +100,17 @@ public class Orders {
     @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "addressid")
     private Address address;
+
+    // Trạng thái lúc load/lưu gần nhất - EntityStateListener so sánh để phát event chuyển trạng thái (không lưu DB)
+    @Transient
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private OrderStatus loadedStatus;
+
+    @Transient
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Double loadedAmount;
 }
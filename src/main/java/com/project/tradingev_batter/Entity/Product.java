@@ -17,6 +17,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
@@ -27,7 +28,15 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_status_type", columnList = "status, type"),
+        // Keyset pagination: (status, khóa sắp xếp, productid)
+        @Index(name = "idx_products_status_createdat", columnList = "status, createdat, productid"),
+        @Index(name = "idx_products_status_cost", columnList = "status, cost, productid"),
+        @Index(name = "idx_products_seller_createdat", columnList = "userid, createdat, productid"),
+        // Báo cáo hệ thống: sản phẩm xem nhiều nhất
+        @Index(name = "idx_products_view_count", columnList = "view_count")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -0,0 +1,50 @@
+package com.project.tradingev_batter.Entity;
+
+import com.project.tradingev_batter.enums.RevenueCategory;
+import com.project.tradingev_batter.enums.RollupGranularity;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+//Doanh thu tổng hợp sẵn theo (ngày|tháng, danh mục): xe, pin, gói dịch vụ, hoa hồng
+//Cộng dồn khi đơn chuyển sang DA_HOAN_TAT và khi ghi giao dịch COMMISSION => biểu đồ doanh thu chỉ đọc vài dòng
+//periodStart: ngày (DAY) hoặc ngày đầu tháng (MONTH)
+@Entity
+@Table(name = "revenue_rollups", indexes = {
+        @Index(name = "ux_revenue_rollups_period_category", columnList = "granularity, period_start, category", unique = true)
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RevenueRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "rollup_id")
+    private Long rollupId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", length = 10, nullable = false)
+    private RollupGranularity granularity;
+
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "category", length = 20, nullable = false)
+    private RevenueCategory category;
+
+    @Column(name = "amount")
+    private double amount;
+
+    @Column(name = "order_count")
+    private long orderCount;
+
+    public RevenueRollup(RollupGranularity granularity, LocalDate periodStart, RevenueCategory category) {
+        this.granularity = granularity;
+        this.periodStart = periodStart;
+        this.category = category;
+    }
+}
@@ -0,0 +1,132 @@
+package com.project.tradingev_batter.Entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.project.tradingev_batter.dto.ProductFilter;
+import com.project.tradingev_batter.enums.ProductStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+//Tìm kiếm đã lưu của buyer: khi có tin mới lên sàn (DANG_BAN) khớp điều kiện thì buyer nhận notification
+//Điều kiện giống bộ lọc /products/search (ProductFilter) + keyword
+@Entity
+@Table(name = "saved_searches", indexes = {
+        @Index(name = "idx_saved_searches_user", columnList = "userid")
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SavedSearch {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "saved_search_id")
+    private long savedSearchId;
+
+    @Column(name = "name", columnDefinition = "NVARCHAR(255)")
+    private String name;
+
+    @Column(name = "keyword", columnDefinition = "NVARCHAR(255)")
+    private String keyword;
+
+    @Column(name = "type")
+    private String type;
+
+    @Column(name = "brand", columnDefinition = "NVARCHAR(100)")
+    private String brand;
+
+    @Column(name = "price_min")
+    private Double priceMin;
+
+    @Column(name = "price_max")
+    private Double priceMax;
+
+    @Column(name = "year_min")
+    private Integer yearMin;
+
+    @Column(name = "year_max")
+    private Integer yearMax;
+
+    @Column(name = "capacity_min")
+    private Double capacityMin;
+
+    @Column(name = "capacity_max")
+    private Double capacityMax;
+
+    @Column(name = "odo_min")
+    private Double odoMin;
+
+    @Column(name = "odo_max")
+    private Double odoMax;
+
+    @Column(name = "battery_condition", columnDefinition = "NVARCHAR(50)")
+    private String condition;
+
+    @Column(name = "voltage_min")
+    private Double voltageMin;
+
+    @Column(name = "voltage_max")
+    private Double voltageMax;
+
+    @Column(name = "remaining_min")
+    private Double remainingMin;
+
+    @Column(name = "remaining_max")
+    private Double remainingMax;
+
+    @Column(name = "match_count")
+    private int matchCount; // Số tin đã khớp và được thông báo
+
+    @Column(name = "last_matched_at")
+    private Date lastMatchedAt;
+
+    @Column(name = "created_at")
+    private Date createdAt;
+
+    @JsonIgnore
+    @ManyToOne
+    @JoinColumn(name = "userid")
+    private User users;
+
+    // Điều kiện lọc tương ứng (chỉ tin đang bán)
+    public ProductFilter toFilter() {
+        ProductFilter filter = new ProductFilter();
+        filter.setStatus(ProductStatus.DANG_BAN);
+        filter.setType(type);
+        filter.setBrand(brand);
+        filter.setPriceMin(priceMin);
+        filter.setPriceMax(priceMax);
+        filter.setYearMin(yearMin);
+        filter.setYearMax(yearMax);
+        filter.setCapacityMin(capacityMin);
+        filter.setCapacityMax(capacityMax);
+        filter.setOdoMin(odoMin);
+        filter.setOdoMax(odoMax);
+        filter.setCondition(condition);
+        filter.setVoltageMin(voltageMin);
+        filter.setVoltageMax(voltageMax);
+        filter.setRemainingMin(remainingMin);
+        filter.setRemainingMax(remainingMax);
+        return filter;
+    }
+
+    public void applyFilter(ProductFilter filter) {
+        this.type = filter.getType();
+        this.brand = filter.getBrand();
+        this.priceMin = filter.getPriceMin();
+        this.priceMax = filter.getPriceMax();
+        this.yearMin = filter.getYearMin();
+        this.yearMax = filter.getYearMax();
+        this.capacityMin = filter.getCapacityMin();
+        this.capacityMax = filter.getCapacityMax();
+        this.odoMin = filter.getOdoMin();
+        this.odoMax = filter.getOdoMax();
+        this.condition = filter.getCondition();
+        this.voltageMin = filter.getVoltageMin();
+        this.voltageMax = filter.getVoltageMax();
+        this.remainingMin = filter.getRemainingMin();
+        this.remainingMax = filter.getRemainingMax();
+    }
+}
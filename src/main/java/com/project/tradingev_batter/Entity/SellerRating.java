@@ -0,0 +1,68 @@
+package com.project.tradingev_batter.Entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+//Tổng hợp đánh giá của seller (precomputed): số lượt, tổng sao và phân bố 1-5 sao
+//Cập nhật trong cùng transaction với việc tạo feedback => đọc rating seller chỉ cần 1 lookup theo khóa chính
+@Entity
+@Table(name = "seller_ratings")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SellerRating {
+    @Id
+    @Column(name = "seller_id")
+    private Long sellerId;
+
+    @Column(name = "review_count")
+    private long reviewCount;
+
+    @Column(name = "rating_sum")
+    private long ratingSum;
+
+    @Column(name = "star1")
+    private long star1;
+
+    @Column(name = "star2")
+    private long star2;
+
+    @Column(name = "star3")
+    private long star3;
+
+    @Column(name = "star4")
+    private long star4;
+
+    @Column(name = "star5")
+    private long star5;
+
+    @Column(name = "updated_at")
+    private Date updatedAt;
+
+    public SellerRating(Long sellerId) {
+        this.sellerId = sellerId;
+    }
+
+    @Transient
+    public double getAverageRating() {
+        return reviewCount > 0 ? (double) ratingSum / reviewCount : 0.0;
+    }
+
+    // Cộng count đánh giá cùng số sao rating
+    public void addRatings(int rating, long count) {
+        reviewCount += count;
+        ratingSum += rating * count;
+        switch (rating) {
+            case 1 -> star1 += count;
+            case 2 -> star2 += count;
+            case 3 -> star3 += count;
+            case 4 -> star4 += count;
+            case 5 -> star5 += count;
+            default -> { }
+        }
+    }
+}
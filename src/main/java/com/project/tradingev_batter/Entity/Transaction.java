@@ -1,15 +1,20 @@
 package com.project.tradingev_batter.Entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.project.tradingev_batter.enums.TransactionStatus;
 import com.project.tradingev_batter.enums.TransactionType;
+import com.project.tradingev_batter.event.EntityStateListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.util.Date;
 
 @Entity
+@EntityListeners(EntityStateListener.class)
 @Table(name = "transactions")
 @Data
 @NoArgsConstructor
@@ -75,4 +80,23 @@ public class Transaction {
     @ManyToOne
     @JoinColumn(name = "created_by")
     private User createdBy;
+
+    // Trạng thái lúc load/lưu gần nhất - EntityStateListener so sánh để phát event chuyển trạng thái (không lưu DB)
+    @Transient
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private TransactionType loadedType;
+
+    @Transient
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private TransactionStatus loadedStatus;
+
+    @Transient
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Double loadedAmount;
 }
@@ -3,6 +3,7 @@ package com.project.tradingev_batter.Repository;
 import com.project.tradingev_batter.Entity.Dispute;
 import com.project.tradingev_batter.Entity.Orders;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,4 +11,8 @@ import java.util.List;
 @Repository
 public interface DisputeRepository extends JpaRepository<Dispute, Long> {
     List<Dispute> findByOrder_Users_Userid(Long userId);
+
+    // Số tranh chấp theo status
+    @Query("SELECT d.status, COUNT(d) FROM Dispute d GROUP BY d.status")
+    List<Object[]> countByStatus();
 }
@@ -1,9 +1,31 @@
 package com.project.tradingev_batter.Repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import com.project.tradingev_batter.Entity.Favorite_post;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface FavoritePostRepository extends JpaRepository<Favorite_post,Long> {
+
+    // Watchlist sản phẩm
+    Optional<Favorite_post> findFirstByUsers_UseridAndProducts_Productid(Long userId, Long productId);
+
+    // Xóa mọi dòng theo dõi (kể cả dòng trùng tạo trước khi có index unique); trả về số dòng đã xóa
+    @Modifying
+    @Query("DELETE FROM Favorite_post f WHERE f.users.userid = :userId AND f.products.productid = :productId")
+    int deleteWatch(@Param("userId") Long userId, @Param("productId") Long productId);
+
+    @Query("SELECT f FROM Favorite_post f WHERE f.users.userid = :userId AND f.products IS NOT NULL ORDER BY f.created_at DESC")
+    List<Favorite_post> findWatchlistByUser(@Param("userId") Long userId);
+
+    // Nạp index product -> người theo dõi lúc khởi động: [productId, userId, cost, status]
+    @Query("SELECT f.products.productid, f.users.userid, f.products.cost, f.products.status " +
+            "FROM Favorite_post f WHERE f.products IS NOT NULL")
+    List<Object[]> findAllWatchRows();
 }
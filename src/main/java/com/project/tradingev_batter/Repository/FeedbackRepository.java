@@ -4,6 +4,7 @@ import com.project.tradingev_batter.Entity.Orders;
 import com.project.tradingev_batter.Entity.Product;
 import com.project.tradingev_batter.Entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import com.project.tradingev_batter.Entity.Feedback;
 import java.util.List;
@@ -13,6 +14,11 @@ import java.util.Optional;
 public interface FeedbackRepository extends JpaRepository<Feedback,Long> {
     List<Feedback> findByProducts_Productid(Long productId);
 
+    // Phân bố số sao theo seller: (sellerId, rating, count) - dùng để dựng lại bảng seller_ratings
+    @Query("SELECT f.products.users.userid, f.rating, COUNT(f) FROM Feedback f " +
+            "WHERE f.products.users IS NOT NULL GROUP BY f.products.users.userid, f.rating")
+    List<Object[]> countRatingsGroupedBySeller();
+
     // Tìm feedback theo product và user (Seeds) - trả về List vì có thể có nhiều feedback
     List<Feedback> findByProductsAndUsers(Product product, User user);
 
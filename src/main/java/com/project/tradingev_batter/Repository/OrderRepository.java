@@ -4,6 +4,7 @@ import com.project.tradingev_batter.Entity.User;
 import com.project.tradingev_batter.enums.OrderStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import com.project.tradingev_batter.Entity.Orders;
 
@@ -13,9 +14,54 @@ import java.util.List;
 public interface OrderRepository extends JpaRepository<Orders,Long> {
     @Query("SELECT SUM(o.totalfinal) FROM Orders o WHERE o.status = 'DA_HOAN_TAT'")
     double getTotalSales();
-    @Query("SELECT FUNCTION('MONTH', o.createdat), COUNT(o) FROM Orders o GROUP BY FUNCTION('MONTH', o.createdat)")
+    // [năm, tháng, số đơn] - group theo cả năm để tháng của các năm khác nhau không bị gộp
+    @Query("SELECT YEAR(o.createdat), MONTH(o.createdat), COUNT(o) FROM Orders o " +
+           "GROUP BY YEAR(o.createdat), MONTH(o.createdat) ORDER BY YEAR(o.createdat), MONTH(o.createdat)")
     List<Object[]> getOrdersByMonth();
 
+    // Loại sản phẩm trong 1 đơn (phân danh mục doanh thu xe/pin)
+    @Query("SELECT DISTINCT d.products.type FROM Order_detail d WHERE d.orders.orderid = :orderId")
+    List<String> findProductTypesByOrderId(@Param("orderId") Long orderId);
+
+    // Dựng lại revenue rollup: [năm, tháng, ngày, số đơn, tổng tiền] theo ngày hoàn tất (updatedat, fallback createdat)
+    @Query("SELECT YEAR(COALESCE(o.updatedat, o.createdat)), MONTH(COALESCE(o.updatedat, o.createdat)), " +
+           "DAY(COALESCE(o.updatedat, o.createdat)), COUNT(o), COALESCE(SUM(o.totalamount), 0) " +
+           "FROM Orders o WHERE o.status = :status AND o.packageId IS NOT NULL " +
+           "GROUP BY YEAR(COALESCE(o.updatedat, o.createdat)), MONTH(COALESCE(o.updatedat, o.createdat)), " +
+           "DAY(COALESCE(o.updatedat, o.createdat))")
+    List<Object[]> sumPackageRevenueByDay(@Param("status") OrderStatus status);
+
+    @Query("SELECT YEAR(COALESCE(o.updatedat, o.createdat)), MONTH(COALESCE(o.updatedat, o.createdat)), " +
+           "DAY(COALESCE(o.updatedat, o.createdat)), COUNT(o), COALESCE(SUM(o.totalamount), 0) " +
+           "FROM Orders o WHERE o.status = :status " +
+           "AND EXISTS (SELECT d.detailid FROM Order_detail d WHERE d.orders = o AND d.products.type = :type) " +
+           "GROUP BY YEAR(COALESCE(o.updatedat, o.createdat)), MONTH(COALESCE(o.updatedat, o.createdat)), " +
+           "DAY(COALESCE(o.updatedat, o.createdat))")
+    List<Object[]> sumRevenueByDayAndProductType(@Param("status") OrderStatus status, @Param("type") String type);
+
+    // Báo cáo hệ thống: số đơn theo status (1 câu GROUP BY thay vì load toàn bộ đơn)
+    @Query("SELECT o.status, COUNT(o) FROM Orders o GROUP BY o.status")
+    List<Object[]> countByStatus();
+
+    // Đối chiếu dashboard: [status, số đơn, tổng tiền, số đơn mua gói, tiền mua gói] theo từng status
+    @Query("SELECT o.status, COUNT(o), COALESCE(SUM(o.totalamount), 0), " +
+           "COALESCE(SUM(CASE WHEN o.packageId IS NOT NULL THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN o.packageId IS NOT NULL THEN o.totalamount ELSE 0 END), 0) " +
+           "FROM Orders o GROUP BY o.status")
+    List<Object[]> sumByStatus();
+
+    // Doanh thu theo status: [số đơn, tổng tiền, số đơn mua gói, tiền mua gói]
+    @Query("SELECT COUNT(o), COALESCE(SUM(o.totalamount), 0), " +
+           "COALESCE(SUM(CASE WHEN o.packageId IS NOT NULL THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN o.packageId IS NOT NULL THEN o.totalamount ELSE 0 END), 0) " +
+           "FROM Orders o WHERE o.status = :status")
+    List<Object[]> sumRevenueByStatus(@Param("status") OrderStatus status);
+
+    // Tổng tiền các đơn có ít nhất 1 sản phẩm thuộc loại (mỗi đơn tính 1 lần dù có nhiều sản phẩm cùng loại)
+    @Query("SELECT COALESCE(SUM(o.totalamount), 0) FROM Orders o WHERE o.status = :status " +
+           "AND EXISTS (SELECT d.detailid FROM Order_detail d WHERE d.orders = o AND d.products.type = :type)")
+    double sumRevenueByStatusAndProductType(@Param("status") OrderStatus status, @Param("type") String type);
+
     // Query với LEFT JOIN FETCH để tránh LazyInitializationException
     @Query("SELECT DISTINCT o FROM Orders o " +
            "LEFT JOIN FETCH o.details " +
@@ -1,7 +1,9 @@
 package com.project.tradingev_batter.Repository;
 
 import com.project.tradingev_batter.enums.ProductStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import com.project.tradingev_batter.Entity.User;
 import com.project.tradingev_batter.Entity.Product;
 import org.springframework.data.jpa.repository.Query;
@@ -10,24 +12,30 @@ import org.springframework.data.repository.query.Param;
 import java.util.List;
 import java.util.Optional;
 
-public interface ProductRepository extends JpaRepository<Product,Long> {
+public interface ProductRepository extends JpaRepository<Product,Long>, JpaSpecificationExecutor<Product> {
     List<Product> findByTypeAndInWarehouse(String type, boolean inWarehouse);
     List<Product> findByTypeAndStatusAndInWarehouse(String type, ProductStatus status, boolean inWarehouse);
     List<Product> findByUsers(User user);
     List<Product> findByUsers_Userid(Long userId);
 
+    // Projection nhẹ (productid, type, cost) để đối chiếu thống kê công khai - không load entity
+    @Query("SELECT p.productid, p.type, p.cost FROM Product p WHERE p.status IN :statuses")
+    List<Object[]> findStatRowsByStatusIn(@Param("statuses") List<ProductStatus> statuses);
+
+    // Chỉ đọc view_count (không load entity) - seed cho bộ đếm lượt xem write-behind
+    @Query("SELECT COALESCE(p.viewCount, 0) FROM Product p WHERE p.productid = :productId")
+    Optional<Integer> findViewCountById(@Param("productId") Long productId);
+
+    // Báo cáo hệ thống: số sản phẩm + tổng lượt xem theo (type, status, inWarehouse) - 1 câu GROUP BY
+    @Query("SELECT p.type, p.status, p.inWarehouse, COUNT(p), COALESCE(SUM(p.viewCount), 0) FROM Product p " +
+           "GROUP BY p.type, p.status, p.inWarehouse")
+    List<Object[]> countByTypeStatusWarehouse();
+
+    // Sản phẩm xem nhiều nhất (productid, productname, viewCount, type) - dùng Pageable 1 dòng
+    @Query("SELECT p.productid, p.productname, p.viewCount, p.type FROM Product p " +
+           "WHERE p.viewCount IS NOT NULL ORDER BY p.viewCount DESC, p.productid")
+    List<Object[]> findMostViewed(Pageable pageable);
+
     // Tìm product theo tên và seller (seeds)
     Optional<Product> findByProductnameAndUsers(String productname, User user);
-
-    @Query("SELECT p FROM Product p LEFT JOIN p.brandcars bc LEFT JOIN p.brandbattery bb WHERE (:type IS NULL OR p.type = :type) " +
-            "AND (:brand IS NULL OR p.model LIKE %:brand%) AND (:yearMin IS NULL OR (bc.year >= :yearMin OR bb.year >= :yearMin)) " +
-            "AND (:yearMax IS NULL OR (bc.year <= :yearMax OR bb.year <= :yearMax)) " +
-            "AND (:capacityMin IS NULL OR (bc.capacity >= :capacityMin OR bb.capacity >= :capacityMin)) " +
-            "AND (:capacityMax IS NULL OR (bc.capacity <= :capacityMax OR bb.capacity <= :capacityMax))" +
-            "AND (:status IS NULL OR p.status = :status) AND (:priceMin IS NULL OR p.cost >= :priceMin) " +
-            "AND (:priceMax IS NULL OR p.cost <= :priceMax)")
-    List<Product> findByFilters(@Param("type") String type, @Param("brand") String brand, @Param("yearMin") Integer yearMin,
-                                @Param("yearMax") Integer yearMax, @Param("capacityMin") Double capacityMin,
-                                @Param("capacityMax") Double capacityMax, @Param("status") String status, @Param("priceMin") Double priceMin,
-                                @Param("priceMax") Double priceMax);
 }
@@ -0,0 +1,32 @@
+package com.project.tradingev_batter.Repository;
+
+import com.project.tradingev_batter.Entity.RevenueRollup;
+import com.project.tradingev_batter.enums.RollupGranularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface RevenueRollupRepository extends JpaRepository<RevenueRollup, Long> {
+
+    // Cộng dồn hoặc tạo dòng mới trong 1 câu MERGE; HOLDLOCK khóa khoảng khóa để 2 request cùng kỳ không cùng INSERT
+    // Enum truyền dạng chuỗi (cột lưu EnumType.STRING)
+    @Modifying
+    @Query(value = "MERGE revenue_rollups WITH (HOLDLOCK) AS r " +
+            "USING (SELECT :granularity AS granularity, :periodStart AS period_start, :category AS category) AS s " +
+            "ON r.granularity = s.granularity AND r.period_start = s.period_start AND r.category = s.category " +
+            "WHEN MATCHED THEN UPDATE SET r.amount = r.amount + :amount, r.order_count = r.order_count + :count " +
+            "WHEN NOT MATCHED THEN INSERT (granularity, period_start, category, amount, order_count) " +
+            "VALUES (s.granularity, s.period_start, s.category, :amount, :count);", nativeQuery = true)
+    int upsert(@Param("granularity") String granularity, @Param("periodStart") LocalDate periodStart,
+               @Param("category") String category, @Param("amount") double amount, @Param("count") long count);
+
+    // Đọc các dòng của 1 khoảng (dùng index unique granularity, period_start)
+    List<RevenueRollup> findByGranularityAndPeriodStartBetweenOrderByPeriodStart(
+            RollupGranularity granularity, LocalDate from, LocalDate to);
+}
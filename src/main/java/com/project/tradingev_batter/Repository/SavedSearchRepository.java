@@ -0,0 +1,26 @@
+package com.project.tradingev_batter.Repository;
+
+import com.project.tradingev_batter.Entity.SavedSearch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface SavedSearchRepository extends JpaRepository<SavedSearch, Long> {
+
+    List<SavedSearch> findByUsers_UseridOrderByCreatedAtDesc(Long userId);
+
+    long countByUsers_Userid(Long userId);
+
+    // Ghi nhận 1 tin khớp cho nhiều tìm kiếm cùng lúc
+    @Modifying
+    @Query("UPDATE SavedSearch s SET s.matchCount = s.matchCount + 1, s.lastMatchedAt = :matchedAt " +
+            "WHERE s.savedSearchId IN :ids")
+    int recordMatch(@Param("ids") Collection<Long> ids, @Param("matchedAt") Date matchedAt);
+}
@@ -0,0 +1,37 @@
+package com.project.tradingev_batter.Repository;
+
+import com.project.tradingev_batter.Entity.SellerRating;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SellerRatingRepository extends JpaRepository<SellerRating, Long> {
+
+    // Cộng 1 đánh giá bằng 1 câu UPDATE atomic (không đọc-sửa-ghi => không mất cập nhật khi đồng thời)
+    // Trả về 0 nếu seller chưa có dòng tổng hợp
+    @Modifying
+    @Query("UPDATE SellerRating r SET r.reviewCount = r.reviewCount + 1, r.ratingSum = r.ratingSum + :rating, " +
+            "r.star1 = r.star1 + CASE WHEN :rating = 1 THEN 1 ELSE 0 END, " +
+            "r.star2 = r.star2 + CASE WHEN :rating = 2 THEN 1 ELSE 0 END, " +
+            "r.star3 = r.star3 + CASE WHEN :rating = 3 THEN 1 ELSE 0 END, " +
+            "r.star4 = r.star4 + CASE WHEN :rating = 4 THEN 1 ELSE 0 END, " +
+            "r.star5 = r.star5 + CASE WHEN :rating = 5 THEN 1 ELSE 0 END, " +
+            "r.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE r.sellerId = :sellerId")
+    int incrementRating(@Param("sellerId") Long sellerId, @Param("rating") int rating);
+
+    // Tạo dòng rỗng cho seller chưa có tổng hợp; seller đã có dòng (do request đồng thời tạo trước) => lỗi trùng khóa
+    // Native INSERT thay vì save(): save() với id gán sẵn là merge, sẽ ghi đè dòng vừa được request khác tạo
+    @Modifying
+    @Query(value = "INSERT INTO seller_ratings (seller_id, review_count, rating_sum, star1, star2, star3, star4, star5, updated_at) " +
+            "VALUES (:sellerId, 0, 0, 0, 0, 0, 0, 0, CURRENT_TIMESTAMP)", nativeQuery = true)
+    int insertEmpty(@Param("sellerId") Long sellerId);
+
+    @Query("SELECT r.sellerId FROM SellerRating r")
+    List<Long> findAllSellerIds();
+}
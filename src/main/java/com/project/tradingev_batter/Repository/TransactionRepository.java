@@ -2,6 +2,7 @@ package com.project.tradingev_batter.Repository;
 
 import com.project.tradingev_batter.Entity.Transaction;
 import com.project.tradingev_batter.enums.TransactionStatus;
+import com.project.tradingev_batter.enums.TransactionType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -36,6 +37,17 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
            "WHERE t.isEscrowed = true AND t.status = 'SUCCESS' AND t.escrowReleaseDate <= :currentDate")
     List<Transaction> findEscrowedTransactionsReadyToRelease(@Param("currentDate") Date currentDate);
     
+    // Dựng lại revenue rollup: [năm, tháng, ngày, số giao dịch, tổng tiền] theo ngày tạo giao dịch
+    @Query("SELECT YEAR(t.createdat), MONTH(t.createdat), DAY(t.createdat), COUNT(t), COALESCE(SUM(t.amount), 0) " +
+           "FROM Transaction t WHERE t.transactionType = :type AND t.status = :status " +
+           "GROUP BY YEAR(t.createdat), MONTH(t.createdat), DAY(t.createdat)")
+    List<Object[]> sumByDay(@Param("type") TransactionType type, @Param("status") TransactionStatus status);
+
+    // Đối chiếu dashboard: [loại, status, số giao dịch, tổng tiền]
+    @Query("SELECT t.transactionType, t.status, COUNT(t), COALESCE(SUM(t.amount), 0) FROM Transaction t " +
+           "GROUP BY t.transactionType, t.status")
+    List<Object[]> sumByTypeAndStatus();
+
     // Tìm transaction theo status
     List<Transaction> findByStatus(TransactionStatus status);
     
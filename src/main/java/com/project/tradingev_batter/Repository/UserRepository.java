@@ -19,11 +19,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     // Seller Upgrade Request
     List<User> findBySellerUpgradeStatus(String status);
+    long countBySellerUpgradeStatus(String status);
 
     // Tìm user theo role
     @Query("SELECT u FROM User u JOIN u.roles r WHERE r.rolename = :roleName")
     List<User> findByRole(String roleName);
 
+    // Số user theo role (không load user/roles)
+    @Query("SELECT r.rolename, COUNT(u) FROM User u JOIN u.roles r GROUP BY r.rolename")
+    List<Object[]> countByRole();
+
     // Get all users with roles eagerly loaded
     @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.roles")
     List<User> findAllWithRoles();
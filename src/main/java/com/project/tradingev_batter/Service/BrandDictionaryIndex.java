@@ -0,0 +1,121 @@
+package com.project.tradingev_batter.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.stereotype.Service;
+
+import com.project.tradingev_batter.Entity.Product;
+import com.project.tradingev_batter.enums.ProductStatus;
+
+//Từ điển hãng theo loại sản phẩm cho dropdown filter: hãng -> số tin đang bán (DANG_BAN)
+//Cập nhật theo ProductChangedEvent, hãng tự biến mất khi không còn tin nào
+//Hãng được gom theo key không dấu/chữ thường ("Vinfast", "VinFast" là một), hiển thị cách viết gặp đầu tiên
+@Service
+public class BrandDictionaryIndex implements ProductIndex {
+
+    // productId -> (type, brand key) đang được đếm
+    private final Map<Long, BrandRef> refs = new HashMap<>();
+    // type -> (brand key -> số tin), TreeMap để danh sách luôn theo thứ tự chữ cái
+    private final Map<String, TreeMap<String, BrandCount>> brandsByType = new HashMap<>();
+
+    @Override
+    public synchronized void upsert(Product product) {
+        removeInternal(product.getProductid());
+        if (!ProductStatus.DANG_BAN.equals(product.getStatus()) || product.getType() == null) {
+            return;
+        }
+
+        String brand = null;
+        if (product.getBrandcars() != null) {
+            brand = product.getBrandcars().getBrand();
+        } else if (product.getBrandbattery() != null) {
+            brand = product.getBrandbattery().getBrand();
+        }
+        if (brand == null || brand.isBlank()) {
+            return;
+        }
+
+        String label = brand.trim();
+        String key = SearchTextUtils.fold(label);
+        brandsByType.computeIfAbsent(product.getType(), t -> new TreeMap<>())
+                .computeIfAbsent(key, k -> new BrandCount(label))
+                .count++;
+        refs.put(product.getProductid(), new BrandRef(product.getType(), key));
+    }
+
+    @Override
+    public synchronized void remove(long productId) {
+        removeInternal(productId);
+    }
+
+    @Override
+    public synchronized void clear() {
+        refs.clear();
+        brandsByType.clear();
+    }
+
+    // Danh sách hãng (theo thứ tự chữ cái) -> số tin đang bán; type null = tất cả loại
+    public synchronized Map<String, Integer> getBrandCounts(String type) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        if (type != null) {
+            TreeMap<String, BrandCount> brands = brandsByType.get(type);
+            if (brands != null) {
+                brands.values().forEach(b -> result.put(b.label, b.count));
+            }
+            return result;
+        }
+
+        TreeMap<String, BrandCount> merged = new TreeMap<>();
+        for (TreeMap<String, BrandCount> brands : brandsByType.values()) {
+            brands.forEach((key, b) -> merged.computeIfAbsent(key, k -> new BrandCount(b.label)).count += b.count);
+        }
+        merged.values().forEach(b -> result.put(b.label, b.count));
+        return result;
+    }
+
+    public List<String> getBrands(String type) {
+        return new ArrayList<>(getBrandCounts(type).keySet());
+    }
+
+    private void removeInternal(long productId) {
+        BrandRef ref = refs.remove(productId);
+        if (ref == null) {
+            return;
+        }
+        TreeMap<String, BrandCount> brands = brandsByType.get(ref.type);
+        if (brands == null) {
+            return;
+        }
+        BrandCount brand = brands.get(ref.key);
+        if (brand != null && --brand.count <= 0) {
+            brands.remove(ref.key);
+        }
+        if (brands.isEmpty()) {
+            brandsByType.remove(ref.type);
+        }
+    }
+
+    private static final class BrandRef {
+        private final String type;
+        private final String key;
+
+        private BrandRef(String type, String key) {
+            this.type = type;
+            this.key = key;
+        }
+    }
+
+    private static final class BrandCount {
+        private final String label;
+        private int count;
+
+        private BrandCount(String label) {
+            this.label = label;
+        }
+    }
+}
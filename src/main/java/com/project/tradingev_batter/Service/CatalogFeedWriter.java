@@ -0,0 +1,83 @@
+package com.project.tradingev_batter.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.project.tradingev_batter.dto.CursorPage;
+import com.project.tradingev_batter.dto.ProductCardDTO;
+import com.project.tradingev_batter.dto.ProductFields;
+import com.project.tradingev_batter.enums.ProductSort;
+
+import lombok.extern.slf4j.Slf4j;
+
+//Xuất toàn bộ catalog đang bán dạng NDJSON (mỗi dòng 1 thẻ sản phẩm) cho đối tác/crawler
+//- Đọc theo từng trang keyset (getProductCardsForSale với cursor), mỗi trang 1 transaction ngắn => không giữ entity trong bộ nhớ
+//- Ghi thẳng ra response bằng JsonGenerator của Jackson (cùng định dạng ngày tháng với API), flush sau mỗi trang
+//=> bộ nhớ không đổi theo kích thước catalog
+@Service
+@Slf4j
+public class CatalogFeedWriter {
+
+    private final ProductService productService;
+    private final ObjectMapper objectMapper;
+    // Không flush sau mỗi dòng, chỉ flush sau mỗi trang
+    private final ObjectWriter lineWriter;
+    private final int pageSize;
+    // Timeout riêng cho stream feed (ms), không đụng timeout async mặc định của các endpoint khác
+    private final long timeoutMs;
+
+    public CatalogFeedWriter(ProductService productService, ObjectMapper objectMapper,
+                             @Value("${product.feed.page-size:500}") int pageSize,
+                             @Value("${product.feed.timeout-ms:600000}") long timeoutMs) {
+        this.productService = productService;
+        this.objectMapper = objectMapper;
+        this.lineWriter = objectMapper.writerFor(ProductCardDTO.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.pageSize = pageSize;
+        this.timeoutMs = timeoutMs;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    //Ghi feed ra output, trả về số sản phẩm đã ghi
+    public long write(OutputStream output, String type, boolean gzip) throws IOException {
+        GZIPOutputStream gzipOutput = gzip ? new GZIPOutputStream(output, 8192) : null;
+        OutputStream target = gzipOutput != null ? gzipOutput : output;
+
+        long written = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(target)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Mặc định Jackson chèn 1 dấu cách giữa các root value => bỏ, các dòng chỉ cách nhau bằng '\n'
+            generator.setRootValueSeparator(null);
+
+            String cursor = null;
+            CursorPage<ProductCardDTO> page;
+            do {
+                page = productService.getProductCardsForSale(type, ProductSort.NEWEST.name(), cursor, pageSize, ProductFields.ALL);
+                for (ProductCardDTO card : page.getItems()) {
+                    lineWriter.writeValue(generator, card);
+                    generator.writeRaw('\n');
+                    written++;
+                }
+                generator.flush();
+                cursor = page.getNextCursor();
+            } while (page.isHasNext());
+        }
+
+        if (gzipOutput != null) {
+            gzipOutput.finish();
+        }
+        output.flush();
+        log.info("Catalog feed streamed {} products (type={}, gzip={})", written, type, gzip);
+        return written;
+    }
+}
@@ -0,0 +1,116 @@
+package com.project.tradingev_batter.Service;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.project.tradingev_batter.Entity.Product;
+import com.project.tradingev_batter.event.PackageCatalogChangedEvent;
+
+//Validator (ETag/Last-Modified) cho conditional GET trên API công khai, giữ hoàn toàn trong bộ nhớ
+//- Mỗi sản phẩm: version tăng mỗi lần ProductChangedEvent (sửa tin, đổi status, có đánh giá mới...) + thời điểm đổi
+//- Catalog: version tăng khi bất kỳ sản phẩm nào đổi => dùng cho trang danh sách/tìm kiếm
+//- Gói dịch vụ: version riêng, tăng theo PackageCatalogChangedEvent
+//=> Request có If-None-Match/If-Modified-Since được trả 304 mà không đọc DB, không build DTO
+//ETag kèm epoch của lần khởi động: version đếm lại từ đầu sau restart (hoặc khác giữa các instance) không bao giờ khớp nhầm
+//Last-Modified nạp lại lúc rebuild không nhỏ hơn thời điểm bắt đầu rebuild: duyệt tin, đánh giá mới, xóa lúc server tắt...
+//không đổi updatedat => nếu không chặn dưới, If-Modified-Since của client từ trước restart có thể nhận 304 sai
+@Service
+public class CatalogVersionIndex implements ProductIndex {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private volatile long catalogModifiedAt = System.currentTimeMillis();
+
+    private final AtomicLong packageVersion = new AtomicLong();
+    private volatile long packageModifiedAt = System.currentTimeMillis();
+
+    private final Map<Long, Validator> products = new ConcurrentHashMap<>();
+    // false trong lúc rebuild: Last-Modified lấy từ updatedat/createdat (chặn dưới bởi rebuildStartedAt) thay vì thời điểm nạp
+    private volatile boolean ready;
+    private volatile long rebuildStartedAt = System.currentTimeMillis();
+
+    @Override
+    public void upsert(Product product) {
+        long version = catalogVersion.incrementAndGet();
+        long modifiedAt = ready ? System.currentTimeMillis() : Math.max(lastModifiedOf(product), rebuildStartedAt);
+        products.put(product.getProductid(), new Validator("W/\"p" + product.getProductid() + "-" + epoch + "-" + version + "\"", modifiedAt));
+        touchCatalog(modifiedAt);
+    }
+
+    @Override
+    public void remove(long productId) {
+        catalogVersion.incrementAndGet();
+        products.remove(productId);
+        touchCatalog(System.currentTimeMillis());
+    }
+
+    @Override
+    public void clear() {
+        ready = false;
+        rebuildStartedAt = System.currentTimeMillis();
+        products.clear();
+        catalogModifiedAt = 0;
+    }
+
+    @Override
+    public void rebuilt() {
+        touchCatalog(rebuildStartedAt);
+        ready = true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPackageCatalogChanged(PackageCatalogChangedEvent event) {
+        packageVersion.incrementAndGet();
+        packageModifiedAt = System.currentTimeMillis();
+    }
+
+    //Validator chi tiết sản phẩm; null = chưa biết sản phẩm (không trả 304, để controller xử lý như thường)
+    public Validator product(Long productId) {
+        return productId != null ? products.get(productId) : null;
+    }
+
+    //Validator trang danh sách/tìm kiếm sản phẩm (mọi tham số lọc dùng chung 1 version catalog)
+    public Validator catalog() {
+        return new Validator("W/\"c-" + epoch + "-" + catalogVersion.get() + "\"", catalogModifiedAt);
+    }
+
+    public Validator packages() {
+        return new Validator("W/\"g-" + epoch + "-" + packageVersion.get() + "\"", packageModifiedAt);
+    }
+
+    // =============== HELPER METHODS ==================================================================================
+
+    private synchronized void touchCatalog(long modifiedAt) {
+        catalogModifiedAt = Math.max(catalogModifiedAt, modifiedAt);
+    }
+
+    private long lastModifiedOf(Product product) {
+        Date date = product.getUpdatedat() != null ? product.getUpdatedat() : product.getCreatedat();
+        return date != null ? date.getTime() : System.currentTimeMillis();
+    }
+
+    //Weak ETag: viewCount và "tin tương tự" không thuộc validator (thay đổi liên tục, không làm nội dung khác về ý nghĩa)
+    public static final class Validator {
+        private final String etag;
+        private final long lastModified;
+
+        private Validator(String etag, long lastModified) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+}
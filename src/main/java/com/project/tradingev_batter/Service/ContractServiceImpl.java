@@ -3,7 +3,9 @@ package com.project.tradingev_batter.Service;
 import com.project.tradingev_batter.Entity.*;
 import com.project.tradingev_batter.Repository.*;
 import com.project.tradingev_batter.enums.ProductStatus;
+import com.project.tradingev_batter.event.ProductChangedEvent;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,17 +21,20 @@ public class ContractServiceImpl implements ContractService {
     private final UserRepository userRepository;
     private final DocuSealService docuSealService;
     private final NotificationService notificationService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public ContractServiceImpl(ContractRepository contractRepository,
             ProductRepository productRepository,
             UserRepository userRepository,
             DocuSealService docuSealService,
-            NotificationService notificationService) {
+            NotificationService notificationService,
+            ApplicationEventPublisher eventPublisher) {
         this.contractRepository = contractRepository;
         this.productRepository = productRepository;
         this.userRepository = userRepository;
         this.docuSealService = docuSealService;
         this.notificationService = notificationService;
+        this.eventPublisher = eventPublisher;
     }
 
     // TẠO CONTRACT SAU KHI KIỂM ĐỊNH PASS
@@ -131,6 +136,7 @@ public class ContractServiceImpl implements ContractService {
                 product.setInWarehouse(true);
                 product.setUpdatedat(new Date());
                 productRepository.save(product);
+                eventPublisher.publishEvent(new ProductChangedEvent(product.getProductid()));
 
                 log.info("Product {} has been added to warehouse and status changed to DANG_BAN", product.getProductid());
             }
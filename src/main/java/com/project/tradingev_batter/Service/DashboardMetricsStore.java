@@ -0,0 +1,443 @@
+package com.project.tradingev_batter.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.project.tradingev_batter.Entity.Product;
+import com.project.tradingev_batter.Repository.DisputeRepository;
+import com.project.tradingev_batter.Repository.OrderRepository;
+import com.project.tradingev_batter.Repository.ProductRepository;
+import com.project.tradingev_batter.Repository.TransactionRepository;
+import com.project.tradingev_batter.Repository.UserRepository;
+import com.project.tradingev_batter.enums.DisputeStatus;
+import com.project.tradingev_batter.enums.OrderStatus;
+import com.project.tradingev_batter.enums.ProductStatus;
+import com.project.tradingev_batter.enums.TransactionStatus;
+import com.project.tradingev_batter.enums.TransactionType;
+import com.project.tradingev_batter.event.DisputeStateChangedEvent;
+import com.project.tradingev_batter.event.OrderStateChangedEvent;
+import com.project.tradingev_batter.event.TransactionStateChangedEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+//Bộ đếm in-memory cho dashboard Manager: số lượng/tổng tiền theo status, loại, danh mục
+//- Sản phẩm: ProductIndex (ProductChangedEvent); đơn hàng, tranh chấp, giao dịch: event từ EntityStateListener
+//  => mỗi thay đổi sau commit chỉ cộng/trừ delta (cũ -> mới), dashboard đọc snapshot O(1)
+//- Đối chiếu định kỳ với DB bằng các câu GROUP BY (và nạp lúc khởi động); lượt xem, user, yêu cầu nâng cấp seller
+//  không có event nên chỉ cập nhật khi đối chiếu
+//- Delta là tương đối (+1/-1, ±tiền) nên không áp lại được lên kết quả GROUP BY: nhóm nào có event trong lúc query
+//  thì giữ bộ đếm đang chạy (đã đủ mọi event), để lần đối chiếu sau sửa lệch
+//- Client SSE (/api/manager/dashboard/stream) nhận snapshot mới, gom tối đa 1 lần mỗi chu kỳ push
+@Service
+@Slf4j
+public class DashboardMetricsStore implements ProductIndex {
+
+    private static final double COMMISSION_RATE = 0.05;
+
+    private final ProductRepository productRepository;
+    private final OrderRepository orderRepository;
+    private final DisputeRepository disputeRepository;
+    private final TransactionRepository transactionRepository;
+    private final UserRepository userRepository;
+
+    // Sản phẩm: productId -> (type, status, inWarehouse) đang được đếm, để tính delta khi sản phẩm đổi
+    private final Map<Long, ProductMember> products = new HashMap<>();
+    private final Map<String, Long> productCounts = new HashMap<>(); // "type|status" -> số sản phẩm
+    private long productsInWarehouse;
+
+    private final Map<OrderStatus, Totals> orders = new EnumMap<>(OrderStatus.class);
+    private final Map<DisputeStatus, Long> disputes = new EnumMap<>(DisputeStatus.class);
+    private final Map<TransactionType, Map<TransactionStatus, Totals>> transactions = new EnumMap<>(TransactionType.class);
+
+    // Chỉ cập nhật khi đối chiếu
+    private long totalUsers;
+    private long pendingSellerUpgrades;
+    private long totalCarViews;
+    private long totalBatteryViews;
+    private Map<String, Object> mostViewedProduct;
+    private Date lastReconciledAt;
+
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+    private volatile boolean dirty;
+
+    // Số event đã áp theo từng nhóm: đối chiếu chỉ ghi đè nhóm không đổi trong lúc chạy GROUP BY
+    private long productChanges;
+    private long orderChanges;
+    private long disputeChanges;
+    private long transactionChanges;
+
+    public DashboardMetricsStore(ProductRepository productRepository, OrderRepository orderRepository,
+                                 DisputeRepository disputeRepository, TransactionRepository transactionRepository,
+                                 UserRepository userRepository) {
+        this.productRepository = productRepository;
+        this.orderRepository = orderRepository;
+        this.disputeRepository = disputeRepository;
+        this.transactionRepository = transactionRepository;
+        this.userRepository = userRepository;
+    }
+
+    // =============== SẢN PHẨM (ProductIndex) =========================================================================
+
+    @Override
+    public synchronized void upsert(Product product) {
+        ProductMember member = new ProductMember(product.getType(), product.getStatus(), Boolean.TRUE.equals(product.getInWarehouse()));
+        ProductMember old = products.put(product.getProductid(), member);
+        countProduct(old, -1);
+        countProduct(member, 1);
+        productChanges++;
+        dirty = true;
+    }
+
+    @Override
+    public synchronized void remove(long productId) {
+        ProductMember old = products.remove(productId);
+        if (old != null) {
+            countProduct(old, -1);
+            productChanges++;
+            dirty = true;
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        products.clear();
+        productCounts.clear();
+        productsInWarehouse = 0;
+    }
+
+    //Sản phẩm đã nạp xong lúc khởi động => nạp phần còn lại (đơn, tranh chấp, giao dịch...) từ DB
+    @Override
+    public void rebuilt() {
+        reconcile();
+    }
+
+    // =============== ĐƠN HÀNG / TRANH CHẤP / GIAO DỊCH ================================================================
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onOrderStateChanged(OrderStateChangedEvent event) {
+        if (event.getOldStatus() != null) {
+            orders.computeIfAbsent(event.getOldStatus(), s -> new Totals()).add(-1, -event.getOldAmount(), event.isPackageOrder());
+        }
+        if (event.getNewStatus() != null) {
+            orders.computeIfAbsent(event.getNewStatus(), s -> new Totals()).add(1, event.getNewAmount(), event.isPackageOrder());
+        }
+        orderChanges++;
+        dirty = true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onDisputeStateChanged(DisputeStateChangedEvent event) {
+        if (event.getOldStatus() != null) {
+            disputes.merge(event.getOldStatus(), -1L, Long::sum);
+        }
+        if (event.getNewStatus() != null) {
+            disputes.merge(event.getNewStatus(), 1L, Long::sum);
+        }
+        disputeChanges++;
+        dirty = true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onTransactionStateChanged(TransactionStateChangedEvent event) {
+        if (event.getOldStatus() != null && event.getOldType() != null) {
+            transactionTotals(event.getOldType(), event.getOldStatus()).add(-1, -event.getOldAmount(), false);
+        }
+        if (event.getNewStatus() != null && event.getNewType() != null) {
+            transactionTotals(event.getNewType(), event.getNewStatus()).add(1, event.getNewAmount(), false);
+        }
+        transactionChanges++;
+        dirty = true;
+    }
+
+    // =============== ĐỌC ===============================================================================================
+
+    //Snapshot cho /api/manager/dashboard/overview (cùng cấu trúc với bản tính từ DB trước đây)
+    public synchronized Map<String, Object> getOverview() {
+        Totals completed = orders.getOrDefault(OrderStatus.DA_HOAN_TAT, Totals.EMPTY);
+        double totalRevenue = completed.amount;
+        double totalCommission = totalRevenue * COMMISSION_RATE;
+        double packageRevenue = completed.packageAmount;
+
+        Map<String, Object> pendingTasks = new HashMap<>();
+        pendingTasks.put("pendingApprovalProducts", countProducts(null, ProductStatus.CHO_DUYET));
+        pendingTasks.put("pendingInspectionProducts", countProducts(null, ProductStatus.CHO_KIEM_DUYET));
+        pendingTasks.put("pendingOrders", orders.getOrDefault(OrderStatus.CHO_DUYET, Totals.EMPTY).count);
+        pendingTasks.put("openDisputes", disputes.getOrDefault(DisputeStatus.OPEN, 0L)
+                + disputes.getOrDefault(DisputeStatus.IN_PROGRESS, 0L));
+        pendingTasks.put("pendingSellerUpgrades", pendingSellerUpgrades);
+
+        Map<String, Object> revenueSummary = new HashMap<>();
+        revenueSummary.put("totalRevenue", totalRevenue);
+        revenueSummary.put("platformRevenue", totalCommission + packageRevenue);
+        revenueSummary.put("totalCommission", totalCommission);
+        revenueSummary.put("packageRevenue", packageRevenue);
+        // Hoa hồng đã thực thu (giao dịch COMMISSION thành công)
+        revenueSummary.put("commissionCollected", transactionTotals(TransactionType.COMMISSION, TransactionStatus.SUCCESS).amount);
+
+        Map<String, Object> marketTrends = new HashMap<>();
+        marketTrends.put("trendingCategory", totalCarViews > totalBatteryViews ? "Car EV" : "Battery");
+        marketTrends.put("mostViewedProduct", mostViewedProduct);
+        marketTrends.put("totalCarViews", totalCarViews);
+        marketTrends.put("totalBatteryViews", totalBatteryViews);
+
+        Map<String, Object> quickStats = new HashMap<>();
+        quickStats.put("totalUsers", totalUsers);
+        quickStats.put("totalProducts", (long) products.size());
+        quickStats.put("totalOrders", orders.values().stream().mapToLong(t -> t.count).sum());
+        quickStats.put("completedOrders", completed.count);
+        quickStats.put("carsOnSale", countProducts("Car EV", ProductStatus.DANG_BAN));
+        quickStats.put("batteriesOnSale", countProducts("Battery", ProductStatus.DANG_BAN));
+        quickStats.put("productsInWarehouse", productsInWarehouse);
+
+        Map<String, Object> overview = new HashMap<>();
+        overview.put("pendingTasks", pendingTasks);
+        overview.put("revenueSummary", revenueSummary);
+        overview.put("marketTrends", marketTrends);
+        overview.put("quickStats", quickStats);
+        overview.put("lastReconciledAt", lastReconciledAt);
+        return overview;
+    }
+
+    //Đăng ký nhận snapshot mỗi khi số liệu đổi (SSE)
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(30 * 60 * 1000L);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(e -> subscribers.remove(emitter));
+        subscribers.add(emitter);
+        try {
+            emitter.send(SseEmitter.event().name("dashboard").data(getOverview()));
+        } catch (IOException e) {
+            subscribers.remove(emitter);
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    // Gom mọi thay đổi trong 1 chu kỳ thành 1 lần push
+    @Scheduled(fixedDelayString = "${dashboard.metrics.push-interval-ms:2000}")
+    public void pushUpdates() {
+        if (!dirty || subscribers.isEmpty()) {
+            return;
+        }
+        dirty = false;
+        Map<String, Object> overview = getOverview();
+        for (SseEmitter emitter : subscribers) {
+            try {
+                emitter.send(SseEmitter.event().name("dashboard").data(overview));
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(emitter);
+            }
+        }
+    }
+
+    // =============== ĐỐI CHIẾU ========================================================================================
+
+    //Nạp lại bộ đếm từ các câu GROUP BY, log nếu phát hiện lệch (event bị lỡ, UPDATE bulk...)
+    //Nhóm có event trong lúc query không bị ghi đè: không biết kết quả GROUP BY đã gồm thay đổi đó hay chưa
+    @Scheduled(cron = "${dashboard.metrics.reconcile-cron:0 */15 * * * ?}")
+    public void reconcile() {
+        long productVersion;
+        long orderVersion;
+        long disputeVersion;
+        long transactionVersion;
+        synchronized (this) {
+            productVersion = productChanges;
+            orderVersion = orderChanges;
+            disputeVersion = disputeChanges;
+            transactionVersion = transactionChanges;
+        }
+
+        List<Object[]> productRows = productRepository.countByTypeStatusWarehouse();
+        List<Object[]> mostViewed = productRepository.findMostViewed(PageRequest.of(0, 1));
+        List<Object[]> orderRows = orderRepository.sumByStatus();
+        List<Object[]> disputeRows = disputeRepository.countByStatus();
+        List<Object[]> transactionRows = transactionRepository.sumByTypeAndStatus();
+        long users = userRepository.count();
+        long sellerUpgrades = userRepository.countBySellerUpgradeStatus("PENDING");
+
+        synchronized (this) {
+            List<String> kept = new ArrayList<>();
+            long ordersBefore = orders.values().stream().mapToLong(t -> t.count).sum();
+
+            // Lượt xem không có event => luôn lấy từ DB
+            totalCarViews = 0;
+            totalBatteryViews = 0;
+            for (Object[] row : productRows) {
+                if ("Car EV".equals(row[0])) {
+                    totalCarViews += toLong(row[4]);
+                } else if ("Battery".equals(row[0])) {
+                    totalBatteryViews += toLong(row[4]);
+                }
+            }
+            if (mostViewed.isEmpty()) {
+                mostViewedProduct = null;
+            } else {
+                Object[] row = mostViewed.get(0);
+                Map<String, Object> product = new HashMap<>();
+                product.put("productId", row[0]);
+                product.put("productName", row[1]);
+                product.put("views", row[2]);
+                product.put("type", row[3]);
+                mostViewedProduct = product;
+            }
+
+            // Sản phẩm: chỉ sửa bộ đếm; products (trạng thái từng sản phẩm) vẫn do ProductIndex giữ
+            if (productChanges == productVersion) {
+                productCounts.clear();
+                productsInWarehouse = 0;
+                for (Object[] row : productRows) {
+                    long count = toLong(row[3]);
+                    productCounts.merge(row[0] + "|" + row[1], count, Long::sum);
+                    if (Boolean.TRUE.equals(row[2])) {
+                        productsInWarehouse += count;
+                    }
+                }
+            } else {
+                kept.add("products");
+            }
+
+            if (orderChanges == orderVersion) {
+                orders.clear();
+                for (Object[] row : orderRows) {
+                    if (row[0] == null) {
+                        continue;
+                    }
+                    Totals totals = new Totals();
+                    totals.count = toLong(row[1]);
+                    totals.amount = toDouble(row[2]);
+                    totals.packageCount = toLong(row[3]);
+                    totals.packageAmount = toDouble(row[4]);
+                    orders.put((OrderStatus) row[0], totals);
+                }
+            } else {
+                kept.add("orders");
+            }
+
+            if (disputeChanges == disputeVersion) {
+                disputes.clear();
+                for (Object[] row : disputeRows) {
+                    if (row[0] != null) {
+                        disputes.put((DisputeStatus) row[0], toLong(row[1]));
+                    }
+                }
+            } else {
+                kept.add("disputes");
+            }
+
+            if (transactionChanges == transactionVersion) {
+                transactions.clear();
+                for (Object[] row : transactionRows) {
+                    if (row[0] == null || row[1] == null) {
+                        continue;
+                    }
+                    Totals totals = transactionTotals((TransactionType) row[0], (TransactionStatus) row[1]);
+                    totals.count = toLong(row[2]);
+                    totals.amount = toDouble(row[3]);
+                }
+            } else {
+                kept.add("transactions");
+            }
+
+            totalUsers = users;
+            pendingSellerUpgrades = sellerUpgrades;
+            lastReconciledAt = new Date();
+            dirty = true;
+
+            if (!kept.isEmpty()) {
+                log.info("Dashboard reconcile kept live counters for {} (changed while querying)", kept);
+            }
+            long ordersAfter = orders.values().stream().mapToLong(t -> t.count).sum();
+            if (ordersBefore != 0 && ordersBefore != ordersAfter) {
+                log.warn("Dashboard metrics drift corrected: {} -> {} orders", ordersBefore, ordersAfter);
+            }
+        }
+    }
+
+    // =============== HELPER METHODS ==================================================================================
+
+    // sign = 1: thêm sản phẩm vào bộ đếm, -1: bớt ra
+    private void countProduct(ProductMember member, int sign) {
+        if (member == null) {
+            return;
+        }
+        productCounts.compute(member.key(), (k, v) -> {
+            long count = (v != null ? v : 0L) + sign;
+            return count != 0 ? count : null;
+        });
+        if (member.inWarehouse) {
+            productsInWarehouse += sign;
+        }
+    }
+
+    // type = null => mọi loại
+    private long countProducts(String type, ProductStatus status) {
+        long count = 0;
+        for (Map.Entry<String, Long> entry : productCounts.entrySet()) {
+            String key = entry.getKey();
+            if (key.endsWith("|" + status) && (type == null || key.equals(type + "|" + status))) {
+                count += entry.getValue();
+            }
+        }
+        return count;
+    }
+
+    private Totals transactionTotals(TransactionType type, TransactionStatus status) {
+        return transactions.computeIfAbsent(type, t -> new EnumMap<>(TransactionStatus.class))
+                .computeIfAbsent(status, s -> new Totals());
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    private static double toDouble(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
+    }
+
+    private static final class ProductMember {
+        private final String type;
+        private final ProductStatus status;
+        private final boolean inWarehouse;
+
+        private ProductMember(String type, ProductStatus status, boolean inWarehouse) {
+            this.type = type;
+            this.status = status;
+            this.inWarehouse = inWarehouse;
+        }
+
+        private String key() {
+            return type + "|" + status;
+        }
+    }
+
+    private static final class Totals {
+        private static final Totals EMPTY = new Totals();
+
+        private long count;
+        private double amount;
+        private long packageCount;
+        private double packageAmount;
+
+        private void add(long countDelta, double amountDelta, boolean packageOrder) {
+            count += countDelta;
+            amount += amountDelta;
+            if (packageOrder) {
+                packageCount += countDelta;
+                packageAmount += amountDelta;
+            }
+        }
+    }
+}
@@ -10,8 +10,10 @@ import com.project.tradingev_batter.dto.docuseal.DocuSealSubmissionResponse;
 import com.project.tradingev_batter.dto.docuseal.DocuSealWebhookPayload;
 import com.project.tradingev_batter.enums.OrderStatus;
 import com.project.tradingev_batter.enums.ProductStatus;
+import com.project.tradingev_batter.event.ProductChangedEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -30,18 +32,21 @@ public class DocuSealServiceImpl implements DocuSealService {
     private final ContractsRepository contractsRepository;
     private final NotificationRepository notificationRepository;
     private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public DocuSealServiceImpl(
             DocuSealConfig docuSealConfig,
             @Qualifier("docuSealRestTemplate") RestTemplate docuSealRestTemplate,
             ContractsRepository contractsRepository,
             NotificationRepository notificationRepository,
-            ProductRepository productRepository) {
+            ProductRepository productRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.docuSealConfig = docuSealConfig;
         this.docuSealRestTemplate = docuSealRestTemplate;
         this.contractsRepository = contractsRepository;
         this.notificationRepository = notificationRepository;
         this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     //Tạo hợp đồng đăng bán sản phẩm
@@ -344,6 +349,7 @@ public class DocuSealServiceImpl implements DocuSealService {
             product.setInWarehouse(true);
             product.setUpdatedat(new Date());
             productRepository.save(product);
+            eventPublisher.publishEvent(new ProductChangedEvent(product.getProductid()));
 
             log.info("Product {} has been added to warehouse and status changed to DANG_BAN", product.getProductid());
         }
@@ -1,8 +1,11 @@
 package com.project.tradingev_batter.Service;
 
 import com.project.tradingev_batter.Entity.Feedback;
+import com.project.tradingev_batter.Entity.SellerRating;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface FeedbackService {
     List<Feedback> getFeedbacksByProduct(Long productId);
@@ -10,6 +13,8 @@ public interface FeedbackService {
     // Hỗ trợ Guest xem rating của seller
     double getAverageRatingBySeller(Long sellerId);
     int getTotalReviewsBySeller(Long sellerId);
+    Map<String, Object> getSellerRatingSummary(Long sellerId); // averageRating, totalReviews, histogram 1-5 sao
+    Map<Long, SellerRating> getSellerRatings(Collection<Long> sellerIds); // Batch lookup cho danh sách thẻ sản phẩm
     
     // Buyer tạo feedback
     Feedback createFeedback(Feedback feedback);
@@ -5,21 +5,37 @@ import com.project.tradingev_batter.Entity.Notification;
 import com.project.tradingev_batter.Entity.Order_detail;
 import com.project.tradingev_batter.Entity.Orders;
 import com.project.tradingev_batter.Entity.Product;
+import com.project.tradingev_batter.Entity.SellerRating;
 import com.project.tradingev_batter.Entity.User;
 import com.project.tradingev_batter.Repository.FeedbackRepository;
 import com.project.tradingev_batter.Repository.NotificationRepository;
 import com.project.tradingev_batter.Repository.OrderDetailRepository;
 import com.project.tradingev_batter.Repository.OrderRepository;
 import com.project.tradingev_batter.Repository.ProductRepository;
+import com.project.tradingev_batter.Repository.SellerRatingRepository;
 import com.project.tradingev_batter.Repository.UserRepository;
+import com.project.tradingev_batter.event.ProductChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 @Service
+@Slf4j
 public class FeedbackServiceImpl implements FeedbackService {
     private final FeedbackRepository feedbackRepository;
     private final ProductRepository productRepository;
@@ -27,19 +43,29 @@ public class FeedbackServiceImpl implements FeedbackService {
     private final OrderRepository orderRepository;
     private final OrderDetailRepository orderDetailRepository;
     private final NotificationRepository notificationRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SellerRatingRepository sellerRatingRepository;
+    private final TransactionTemplate requiresNewTransaction;
 
     public FeedbackServiceImpl(FeedbackRepository feedbackRepository, 
                               ProductRepository productRepository,
                               UserRepository userRepository,
                               OrderRepository orderRepository,
                               OrderDetailRepository orderDetailRepository,
-                              NotificationRepository notificationRepository) {
+                              NotificationRepository notificationRepository,
+                              ApplicationEventPublisher eventPublisher,
+                              SellerRatingRepository sellerRatingRepository,
+                              PlatformTransactionManager transactionManager) {
         this.feedbackRepository = feedbackRepository;
         this.productRepository = productRepository;
         this.userRepository = userRepository;
         this.orderRepository = orderRepository;
         this.orderDetailRepository = orderDetailRepository;
         this.notificationRepository = notificationRepository;
+        this.eventPublisher = eventPublisher;
+        this.sellerRatingRepository = sellerRatingRepository;
+        this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+        this.requiresNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
     }
 
     @Override
@@ -47,39 +73,76 @@ public class FeedbackServiceImpl implements FeedbackService {
         return feedbackRepository.findByProducts_Productid(productId);
     }
 
-    //Tính rating trung bình của seller dựa trên tất cả feedback của sản phẩm của seller đó
+    //Rating trung bình của seller - đọc từ bảng tổng hợp seller_ratings (1 lookup theo khóa chính)
     @Override
     public double getAverageRatingBySeller(Long sellerId) {
-        List<Product> sellerProducts = productRepository.findByUsers_Userid(sellerId);
-        if (sellerProducts.isEmpty()) {
-            return 0.0;
-        }
-        
-        double totalRating = 0.0;
-        int totalFeedbacks = 0;
-        
-        for (Product product : sellerProducts) {
-            List<Feedback> feedbacks = feedbackRepository.findByProducts_Productid(product.getProductid());
-            for (Feedback feedback : feedbacks) {
-                totalRating += feedback.getRating();
-                totalFeedbacks++;
-            }
-        }
-        
-        return totalFeedbacks > 0 ? totalRating / totalFeedbacks : 0.0;
+        return sellerRatingRepository.findById(sellerId)
+                .map(SellerRating::getAverageRating)
+                .orElse(0.0);
     }
 
     //Đếm tổng số đánh giá của seller
     @Override
     public int getTotalReviewsBySeller(Long sellerId) {
-        List<Product> sellerProducts = productRepository.findByUsers_Userid(sellerId);
-        int total = 0;
-        
-        for (Product product : sellerProducts) {
-            total += feedbackRepository.findByProducts_Productid(product.getProductid()).size();
+        return sellerRatingRepository.findById(sellerId)
+                .map(r -> (int) r.getReviewCount())
+                .orElse(0);
+    }
+
+    //Tóm tắt rating seller: trung bình, tổng số, phân bố 1-5 sao
+    @Override
+    public Map<String, Object> getSellerRatingSummary(Long sellerId) {
+        SellerRating rating = sellerRatingRepository.findById(sellerId).orElse(new SellerRating(sellerId));
+
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        histogram.put("5", rating.getStar5());
+        histogram.put("4", rating.getStar4());
+        histogram.put("3", rating.getStar3());
+        histogram.put("2", rating.getStar2());
+        histogram.put("1", rating.getStar1());
+
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("averageRating", Math.round(rating.getAverageRating() * 10.0) / 10.0);
+        summary.put("totalReviews", rating.getReviewCount());
+        summary.put("histogram", histogram);
+        return summary;
+    }
+
+    @Override
+    public Map<Long, SellerRating> getSellerRatings(Collection<Long> sellerIds) {
+        Map<Long, SellerRating> ratings = new HashMap<>();
+        if (sellerIds.isEmpty()) {
+            return ratings;
         }
-        
-        return total;
+        for (SellerRating rating : sellerRatingRepository.findAllById(sellerIds)) {
+            ratings.put(rating.getSellerId(), rating);
+        }
+        return ratings;
+    }
+
+    //Dựng lại toàn bộ bảng seller_ratings từ feedbacks (1 câu GROUP BY) khi khởi động
+    //Đảm bảo dữ liệu cũ (trước khi có bảng tổng hợp) cũng có rating; seller không còn feedback nào thì xóa dòng (về 0)
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildSellerRatings() {
+        Map<Long, SellerRating> ratings = new HashMap<>();
+        for (Object[] row : feedbackRepository.countRatingsGroupedBySeller()) {
+            Long sellerId = ((Number) row[0]).longValue();
+            int stars = ((Number) row[1]).intValue();
+            long count = ((Number) row[2]).longValue();
+            ratings.computeIfAbsent(sellerId, SellerRating::new).addRatings(stars, count);
+        }
+        Date now = new Date();
+        ratings.values().forEach(r -> r.setUpdatedAt(now));
+        sellerRatingRepository.saveAll(ratings.values());
+
+        List<Long> stale = sellerRatingRepository.findAllSellerIds().stream()
+                .filter(sellerId -> !ratings.containsKey(sellerId))
+                .toList();
+        if (!stale.isEmpty()) {
+            sellerRatingRepository.deleteAllByIdInBatch(stale);
+        }
+        log.info("Seller rating aggregates rebuilt for {} sellers ({} stale rows removed)", ratings.size(), stale.size());
     }
 
     //Tạo feedback mới (Buyer đánh giá sau khi hoàn tất giao dịch)
@@ -87,7 +150,13 @@ public class FeedbackServiceImpl implements FeedbackService {
     @Transactional
     public Feedback createFeedback(Feedback feedback) {
         feedback.setCreated_at(new Date());
-        return feedbackRepository.save(feedback);
+        Feedback saved = feedbackRepository.save(feedback);
+        if (saved.getProducts() != null) {
+            recordSellerRating(saved.getProducts().getProductid(), saved.getRating());
+            // Chi tiết sản phẩm hiển thị đánh giá => báo sản phẩm thay đổi để làm mới cache
+            eventPublisher.publishEvent(new ProductChangedEvent(saved.getProducts().getProductid()));
+        }
+        return saved;
     }
 
     //Buyer tạo feedback sau khi hoàn tất đơn hàng
@@ -142,6 +211,8 @@ public class FeedbackServiceImpl implements FeedbackService {
         feedback.setComment(comment);
         feedback.setCreated_at(new Date());
         feedback = feedbackRepository.save(feedback);
+        recordSellerRating(product.getProductid(), rating);
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getProductid()));
         
         // Tạo notification cho seller
         User seller = product.getUsers();
@@ -160,6 +231,25 @@ public class FeedbackServiceImpl implements FeedbackService {
                 .toList();
     }
 
+    //Cộng đánh giá vào bảng tổng hợp của seller trong cùng transaction với feedback
+    private void recordSellerRating(Long productId, int rating) {
+        User seller = productRepository.findById(productId).map(Product::getUsers).orElse(null);
+        if (seller == null) {
+            return;
+        }
+        if (sellerRatingRepository.incrementRating(seller.getUserid(), rating) > 0) {
+            return;
+        }
+        // Seller chưa có dòng tổng hợp (feedback cũ đã được dựng lúc khởi động): tạo dòng rỗng trong transaction riêng
+        // rồi cộng lại. 2 feedback đầu tiên đồng thời: 1 bên tạo được, bên kia gặp trùng khóa => chỉ cần cộng lại
+        try {
+            requiresNewTransaction.executeWithoutResult(status -> sellerRatingRepository.insertEmpty(seller.getUserid()));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Seller rating row for {} created concurrently", seller.getUserid());
+        }
+        sellerRatingRepository.incrementRating(seller.getUserid(), rating);
+    }
+
     private void createNotification(User user, String title, String description) {
         Notification notification = new Notification();
         notification.setTitle(title);
@@ -46,6 +46,8 @@ public interface ManagerService {
 
     PackageService updatePackage(Long id, PackageService pkg); //Cập nhật gói dịch vụ
 
+    void deletePackage(Long id); //Xóa gói dịch vụ
+
     Map<String, Object> getRevenueReport(); //Báo cáo doanh thu
 
     Map<String, Object> getSystemReport(); //Báo cáo hệ thống
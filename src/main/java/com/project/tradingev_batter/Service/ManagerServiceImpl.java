@@ -1,11 +1,12 @@
 package com.project.tradingev_batter.Service;
 
-import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -34,6 +35,8 @@ import com.project.tradingev_batter.enums.DisputeStatus;
 import com.project.tradingev_batter.enums.OrderStatus;
 import com.project.tradingev_batter.enums.ProductStatus;
 import com.project.tradingev_batter.enums.RefundStatus;
+import com.project.tradingev_batter.event.PackageCatalogChangedEvent;
+import com.project.tradingev_batter.event.ProductChangedEvent;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -52,6 +55,7 @@ public class ManagerServiceImpl implements ManagerService {
     private final DocuSealService docuSealService;
     private final NotificationService notificationService;
     private final UserPackageRepository userPackageRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public ManagerServiceImpl(NotificationRepository notificationRepository,
             UserRepository userRepository,
@@ -63,7 +67,8 @@ public class ManagerServiceImpl implements ManagerService {
             RefundRepository refundRepository,
             DocuSealService docuSealService,
             NotificationService notificationService,
-            UserPackageRepository userPackageRepository) {
+            UserPackageRepository userPackageRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.refundRepository = refundRepository;
         this.packageServiceRepository = packageServiceRepository;
         this.docuSealService = docuSealService;
@@ -75,6 +80,7 @@ public class ManagerServiceImpl implements ManagerService {
         this.disputeRepository = disputeRepository;
         this.notificationService = notificationService;
         this.userPackageRepository = userPackageRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     //Sử dụng Notification entity. Khi seller đăng product (xe), tự động tạo notification cho managers.
@@ -135,6 +141,7 @@ public class ManagerServiceImpl implements ManagerService {
             );
         }
         productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getProductid()));
     }
 
     //Nhập kết quả kiểm định từ bên thứ 3
@@ -193,6 +200,7 @@ public class ManagerServiceImpl implements ManagerService {
         }
 
         productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getProductid()));
     }
 
     @Override
@@ -214,6 +222,7 @@ public class ManagerServiceImpl implements ManagerService {
         product.setInWarehouse(true);
         product.setStatus(ProductStatus.DANG_BAN); // Set status to display on platform
         productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getProductid()));
     }
 
     // Lấy tất cả orders
@@ -347,6 +356,7 @@ public class ManagerServiceImpl implements ManagerService {
         product.setInWarehouse(false);
         product.setStatus(ProductStatus.REMOVED_FROM_WAREHOUSE);  // Update status
         productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getProductid()));
 
         // Noti seller
         User seller = product.getUsers();
@@ -372,6 +382,7 @@ public class ManagerServiceImpl implements ManagerService {
             ProductStatus status = ProductStatus.valueOf(newStatus);
             product.setStatus(status);
             productRepository.save(product);
+            eventPublisher.publishEvent(new ProductChangedEvent(product.getProductid()));
 
             // Noti nếu cần
             if (status == ProductStatus.DANG_BAN) {
@@ -469,7 +480,9 @@ public class ManagerServiceImpl implements ManagerService {
     @Transactional
     public PackageService createPackage(PackageService pkg) {
         pkg.setCreatedAt(new Date());
-        return packageServiceRepository.save(pkg);
+        PackageService saved = packageServiceRepository.save(pkg);
+        eventPublisher.publishEvent(new PackageCatalogChangedEvent(saved.getPackageid()));
+        return saved;
     }
 
     //Cập nhật gói dịch vụ
@@ -485,50 +498,39 @@ public class ManagerServiceImpl implements ManagerService {
         existingPkg.setMaxCars(pkg.getMaxCars());
         existingPkg.setMaxBatteries(pkg.getMaxBatteries());
         existingPkg.setDescription(pkg.getDescription());
-        return packageServiceRepository.save(existingPkg);
+        PackageService saved = packageServiceRepository.save(existingPkg);
+        eventPublisher.publishEvent(new PackageCatalogChangedEvent(id));
+        return saved;
+    }
+
+    //Xóa gói dịch vụ
+    @Override
+    @Transactional
+    public void deletePackage(Long id) {
+        packageServiceRepository.deleteById(id);
+        eventPublisher.publishEvent(new PackageCatalogChangedEvent(id));
     }
 
     //Báo cáo doanh thu
     //tính tổng doanh thu từ tất cả đơn hàng đã duyệt
+    //Toàn bộ là SUM/COUNT trong DB (3 câu) - không load đơn hàng/chi tiết đơn vào bộ nhớ
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public Map<String, Object> getRevenueReport() {
-        // Lay tat ca don hang va filter theo status
-        List<Orders> completedOrders = orderRepository.findAll().stream()
-                .filter(o -> OrderStatus.DA_HOAN_TAT.equals(o.getStatus()))
-                .toList();
+        // [số đơn, tổng tiền, số đơn mua gói, tiền mua gói] của các đơn đã hoàn tất
+        Object[] completed = firstRow(orderRepository.sumRevenueByStatus(OrderStatus.DA_HOAN_TAT));
+        long totalCompletedOrders = toLong(completed[0]);
+        double totalRevenue = toDouble(completed[1]);
+        long totalPackagesSold = toLong(completed[2]);
+        double packageRevenue = toDouble(completed[3]);
 
-        // Tong doanh thu
-        double totalRevenue = completedOrders.stream()
-                .mapToDouble(Orders::getTotalamount)
-                .sum();
-
-        // Doanh thu tu xe
-        double carRevenue = completedOrders.stream()
-                .filter(o -> o.getDetails().stream()
-                .anyMatch(d -> "Car EV".equals(d.getProducts().getType())))
-                .mapToDouble(Orders::getTotalamount)
-                .sum();
-
-        // Doanh thu tu pin
-        double batteryRevenue = completedOrders.stream()
-                .filter(o -> o.getDetails().stream()
-                .anyMatch(d -> "Battery".equals(d.getProducts().getType())))
-                .mapToDouble(Orders::getTotalamount)
-                .sum();
+        // Doanh thu tu xe / pin: đơn có ít nhất 1 sản phẩm thuộc loại
+        double carRevenue = orderRepository.sumRevenueByStatusAndProductType(OrderStatus.DA_HOAN_TAT, "Car EV");
+        double batteryRevenue = orderRepository.sumRevenueByStatusAndProductType(OrderStatus.DA_HOAN_TAT, "Battery");
 
         // Hoa hong 5% tren tong doanh thu
         double totalCommission = totalRevenue * 0.05;
 
-        // Doanh thu tu goi dich vu (Package Purchase)
-        List<Orders> packageOrders = orderRepository.findAll().stream()
-                .filter(o -> o.getPackageId() != null && OrderStatus.DA_HOAN_TAT.equals(o.getStatus()))
-                .toList();
-
-        double packageRevenue = packageOrders.stream()
-                .mapToDouble(Orders::getTotalamount)
-                .sum();
-
         // Tong doanh thu nen tang = Commission + Package Revenue
         double platformRevenue = totalCommission + packageRevenue;
 
@@ -540,89 +542,99 @@ public class ManagerServiceImpl implements ManagerService {
         report.put("commissionRate", "5%");
         report.put("packageRevenue", packageRevenue);
         report.put("platformRevenue", platformRevenue);
-        report.put("totalCompletedOrders", completedOrders.size());
-        report.put("totalPackagesSold", packageOrders.size());
+        report.put("totalCompletedOrders", totalCompletedOrders);
+        report.put("totalPackagesSold", totalPackagesSold);
 
         return report;
     }
 
+    //Báo cáo hệ thống: mỗi bảng 1 câu GROUP BY (user theo role, sản phẩm theo type/status/kho, đơn và tranh chấp theo status)
+    //=> số câu SQL cố định, không phụ thuộc số dòng, không load entity
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public Map<String, Object> getSystemReport() {
-        // Thong ke tong quat
-        long totalUsers = userRepository.count();
-        long totalProducts = productRepository.count();
-        long totalOrders = orderRepository.count();
-
         // Thong ke nguoi dung theo role
-        long totalBuyers = userRepository.findAll().stream()
-                .filter(u -> u.getRoles().stream()
-                .anyMatch(r -> "BUYER".equals(r.getRolename())))
-                .count();
-
-        long totalSellers = userRepository.findAll().stream()
-                .filter(u -> u.getRoles().stream()
-                .anyMatch(r -> "SELLER".equals(r.getRolename())))
-                .count();
-
-        // Thong ke san pham
-        long carsOnSale = productRepository.findAll().stream()
-                .filter(p -> "Car EV".equals(p.getType()) && ProductStatus.DANG_BAN.equals(p.getStatus()))
-                .count();
-
-        long batteriesOnSale = productRepository.findAll().stream()
-                .filter(p -> "Battery".equals(p.getType()) && ProductStatus.DANG_BAN.equals(p.getStatus()))
-                .count();
-
-        long pendingApprovalProducts = productRepository.findAll().stream()
-                .filter(p -> ProductStatus.CHO_DUYET.equals(p.getStatus()))
-                .count();
-
-        long pendingInspectionProducts = productRepository.findAll().stream()
-                .filter(p -> ProductStatus.CHO_KIEM_DUYET.equals(p.getStatus()))
-                .count();
+        long totalUsers = userRepository.count();
+        long totalBuyers = 0;
+        long totalSellers = 0;
+        for (Object[] row : userRepository.countByRole()) {
+            if ("BUYER".equals(row[0])) {
+                totalBuyers = toLong(row[1]);
+            } else if ("SELLER".equals(row[0])) {
+                totalSellers = toLong(row[1]);
+            }
+        }
 
-        long productsInWarehouse = productRepository.findAll().stream()
-                .filter(Product::getInWarehouse)
-                .count();
+        // Thong ke san pham: [type, status, inWarehouse, count, sum(viewCount)]
+        long totalProducts = 0;
+        long carsOnSale = 0;
+        long batteriesOnSale = 0;
+        long pendingApprovalProducts = 0;
+        long pendingInspectionProducts = 0;
+        long productsInWarehouse = 0;
+        long totalCarViews = 0;
+        long totalBatteryViews = 0;
+        for (Object[] row : productRepository.countByTypeStatusWarehouse()) {
+            String type = (String) row[0];
+            ProductStatus status = (ProductStatus) row[1];
+            long count = toLong(row[3]);
+            long views = toLong(row[4]);
+
+            totalProducts += count;
+            if (ProductStatus.DANG_BAN.equals(status)) {
+                if ("Car EV".equals(type)) {
+                    carsOnSale += count;
+                } else if ("Battery".equals(type)) {
+                    batteriesOnSale += count;
+                }
+            }
+            if (ProductStatus.CHO_DUYET.equals(status)) {
+                pendingApprovalProducts += count;
+            } else if (ProductStatus.CHO_KIEM_DUYET.equals(status)) {
+                pendingInspectionProducts += count;
+            }
+            if (Boolean.TRUE.equals(row[2])) {
+                productsInWarehouse += count;
+            }
+            if ("Car EV".equals(type)) {
+                totalCarViews += views;
+            } else if ("Battery".equals(type)) {
+                totalBatteryViews += views;
+            }
+        }
 
         // Thong ke don hang
-        long pendingOrders = orderRepository.findAll().stream()
-                .filter(o -> OrderStatus.CHO_DUYET.equals(o.getStatus()))
-                .count();
-
-        long completedOrders = orderRepository.findAll().stream()
-                .filter(o -> OrderStatus.DA_HOAN_TAT.equals(o.getStatus()))
-                .count();
-
-        long disputeOrders = orderRepository.findAll().stream()
-                .filter(o -> OrderStatus.TRANH_CHAP.equals(o.getStatus()))
-                .count();
+        long totalOrders = 0;
+        long pendingOrders = 0;
+        long completedOrders = 0;
+        long disputeOrders = 0;
+        for (Object[] row : orderRepository.countByStatus()) {
+            long count = toLong(row[1]);
+            totalOrders += count;
+            if (OrderStatus.CHO_DUYET.equals(row[0])) {
+                pendingOrders = count;
+            } else if (OrderStatus.DA_HOAN_TAT.equals(row[0])) {
+                completedOrders = count;
+            } else if (OrderStatus.TRANH_CHAP.equals(row[0])) {
+                disputeOrders = count;
+            }
+        }
 
         // Thong ke tranh chap
-        long totalDisputes = disputeRepository.count();
-        long openDisputes = disputeRepository.findAll().stream()
-                .filter(d -> DisputeStatus.OPEN.equals(d.getStatus())
-                || DisputeStatus.IN_PROGRESS.equals(d.getStatus()))
-                .count();
-
-        // San pham xem nhieu nhat - Xu huong thi truong
-        List<Product> allProducts = productRepository.findAll();
-        Product mostViewedProduct = allProducts.stream()
-                .max(Comparator.comparingInt(Product::getViewCount))
-                .orElse(null);
-
-        // Loai san pham pho bien nhat
-        long totalCarViews = allProducts.stream()
-                .filter(p -> "Car EV".equals(p.getType()))
-                .mapToInt(Product::getViewCount)
-                .sum();
+        long totalDisputes = 0;
+        long openDisputes = 0;
+        for (Object[] row : disputeRepository.countByStatus()) {
+            long count = toLong(row[1]);
+            totalDisputes += count;
+            if (DisputeStatus.OPEN.equals(row[0]) || DisputeStatus.IN_PROGRESS.equals(row[0])) {
+                openDisputes += count;
+            }
+        }
 
-        long totalBatteryViews = allProducts.stream()
-                .filter(p -> "Battery".equals(p.getType()))
-                .mapToInt(Product::getViewCount)
-                .sum();
+        // San pham xem nhieu nhat - Xu huong thi truong (1 dòng)
+        List<Object[]> mostViewed = productRepository.findMostViewed(PageRequest.of(0, 1));
 
+        // Loai san pham pho bien nhat
         String trendingCategory = totalCarViews > totalBatteryViews ? "Car EV" : "Battery";
 
         // Doanh thu
@@ -654,13 +666,14 @@ public class ManagerServiceImpl implements ManagerService {
         report.put("openDisputes", openDisputes);
 
         // Xu huong thi truong
-        if (mostViewedProduct != null) {
-            report.put("mostViewedProduct", Map.of(
-                    "productId", mostViewedProduct.getProductid(),
-                    "productName", mostViewedProduct.getProductname(),
-                    "views", mostViewedProduct.getViewCount(),
-                    "type", mostViewedProduct.getType()
-            ));
+        if (!mostViewed.isEmpty()) {
+            Object[] row = mostViewed.get(0);
+            Map<String, Object> mostViewedProduct = new HashMap<>();
+            mostViewedProduct.put("productId", row[0]);
+            mostViewedProduct.put("productName", row[1]);
+            mostViewedProduct.put("views", row[2]);
+            mostViewedProduct.put("type", row[3]);
+            report.put("mostViewedProduct", mostViewedProduct);
         } else {
             report.put("mostViewedProduct", null);
         }
@@ -677,6 +690,19 @@ public class ManagerServiceImpl implements ManagerService {
         return report;
     }
 
+    // Câu aggregate không GROUP BY luôn trả đúng 1 dòng
+    private static Object[] firstRow(List<Object[]> rows) {
+        return rows.isEmpty() ? new Object[]{0L, 0.0, 0L, 0.0} : rows.get(0);
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    private static double toDouble(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
+    }
+
     // Lấy tất cả user đang sử dụng gói (còn hiệu lực)
     @Override
     @Transactional(readOnly = true)
@@ -0,0 +1,160 @@
+package com.project.tradingev_batter.Service;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.project.tradingev_batter.Entity.Product;
+import com.project.tradingev_batter.Repository.ProductRepository;
+import com.project.tradingev_batter.enums.ProductStatus;
+
+import lombok.extern.slf4j.Slf4j;
+
+//Thống kê công khai của sàn (số xe/pin, giá min/avg/max) cho sản phẩm DA_DUYET + DANG_BAN
+//Cập nhật từng sản phẩm qua ProductChangedEvent => đọc thống kê không phụ thuộc kích thước catalog
+//Định kỳ đối chiếu lại với DB (chỉ select productid, type, cost) để sửa sai lệch nếu có event bị lỡ
+@Service
+@Slf4j
+public class MarketplaceStatsIndex implements ProductIndex {
+
+    static final List<ProductStatus> ACTIVE_STATUSES = List.of(ProductStatus.DA_DUYET, ProductStatus.DANG_BAN);
+
+    private final ProductRepository productRepository;
+
+    // productId -> (type, cost) đang được tính vào thống kê
+    private final Map<Long, Member> members = new HashMap<>();
+    private final Map<String, Long> countByType = new HashMap<>();
+    // Multiset giá (giá -> số sản phẩm) để lấy min/max vẫn đúng khi xóa
+    private final TreeMap<Double, Integer> costs = new TreeMap<>();
+    private double totalCost;
+
+    // Trong lúc đối chiếu: trạng thái mới nhất của các sản phẩm đổi sau khi query DB bắt đầu (null = không còn active)
+    // => áp lại sau khi nạp snapshot để event commit giữa query và lúc khóa không bị mất
+    private Map<Long, Member> changedDuringReconcile;
+
+    public MarketplaceStatsIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @Override
+    public synchronized void upsert(Product product) {
+        removeInternal(product.getProductid());
+        Member member = null;
+        if (ACTIVE_STATUSES.contains(product.getStatus())) {
+            member = addInternal(product.getProductid(), product.getType(), product.getCost());
+        }
+        if (changedDuringReconcile != null) {
+            changedDuringReconcile.put(product.getProductid(), member);
+        }
+    }
+
+    @Override
+    public synchronized void remove(long productId) {
+        removeInternal(productId);
+        if (changedDuringReconcile != null) {
+            changedDuringReconcile.put(productId, null);
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        members.clear();
+        countByType.clear();
+        costs.clear();
+        totalCost = 0;
+    }
+
+    public synchronized Map<String, Object> getStatistics() {
+        int total = members.size();
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalProducts", total);
+        stats.put("totalCars", countByType.getOrDefault("Car EV", 0L));
+        stats.put("totalBatteries", countByType.getOrDefault("Battery", 0L));
+        stats.put("averagePrice", total > 0 ? totalCost / total : 0.0);
+        stats.put("priceRange", Map.of(
+                "min", costs.isEmpty() ? 0.0 : costs.firstKey(),
+                "max", costs.isEmpty() ? 0.0 : costs.lastKey()));
+        stats.put("lastUpdated", new Date());
+        return stats;
+    }
+
+    //Đối chiếu với DB mỗi giờ (phút 30): nạp lại từ projection nhẹ, log nếu phát hiện lệch
+    @Scheduled(cron = "0 30 * * * ?")
+    public void reconcile() {
+        synchronized (this) {
+            changedDuringReconcile = new HashMap<>();
+        }
+        List<Object[]> rows;
+        try {
+            rows = productRepository.findStatRowsByStatusIn(ACTIVE_STATUSES);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                changedDuringReconcile = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            int before = members.size();
+            double costBefore = totalCost;
+            Map<Long, Member> changed = changedDuringReconcile;
+            changedDuringReconcile = null;
+
+            clear();
+            for (Object[] row : rows) {
+                addInternal((Long) row[0], (String) row[1], row[2] != null ? ((Number) row[2]).doubleValue() : 0.0);
+            }
+            // Event đến sau khi query bắt đầu mang trạng thái mới hơn snapshot => ghi đè
+            changed.forEach((productId, member) -> {
+                removeInternal(productId);
+                if (member != null) {
+                    addInternal(productId, member.type, member.cost);
+                }
+            });
+
+            if (before != members.size() || Math.abs(costBefore - totalCost) > 0.5) {
+                log.warn("Marketplace stats drift corrected: {} -> {} products", before, members.size());
+            }
+        }
+    }
+
+    // =============== HELPER METHODS ==================================================================================
+
+    private Member addInternal(long productId, String type, double cost) {
+        Member member = new Member(type, cost);
+        members.put(productId, member);
+        if (type != null) {
+            countByType.merge(type, 1L, Long::sum);
+        }
+        costs.merge(cost, 1, Integer::sum);
+        totalCost += cost;
+        return member;
+    }
+
+    private void removeInternal(long productId) {
+        Member member = members.remove(productId);
+        if (member == null) {
+            return;
+        }
+        if (member.type != null) {
+            countByType.computeIfPresent(member.type, (k, v) -> v > 1 ? v - 1 : null);
+        }
+        costs.computeIfPresent(member.cost, (k, v) -> v > 1 ? v - 1 : null);
+        totalCost -= member.cost;
+    }
+
+    private static final class Member {
+        private final String type;
+        private final double cost;
+
+        private Member(String type, double cost) {
+            this.type = type;
+            this.cost = cost;
+        }
+    }
+}
@@ -5,9 +5,13 @@ import com.project.tradingev_batter.Entity.User;
 import com.project.tradingev_batter.Repository.NotificationRepository;
 import com.project.tradingev_batter.Repository.UserRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -15,13 +19,19 @@ import java.util.List;
 @Slf4j
 public class NotificationService {
 
+    private static final String BATCH_INSERT_SQL =
+            "INSERT INTO notifications (title, description, created_time, userid) VALUES (?, ?, ?, ?)";
+
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
 
     public NotificationService(NotificationRepository notificationRepository,
-                              UserRepository userRepository) {
+                              UserRepository userRepository,
+                              JdbcTemplate jdbcTemplate) {
         this.notificationRepository = notificationRepository;
         this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     // Tao notification cho mot user
@@ -42,6 +52,22 @@ public class NotificationService {
         return saved;
     }
 
+    // Tao cung 1 notification cho nhieu user bang 1 batch INSERT (id IDENTITY => saveAll khong batch duoc)
+    @Transactional
+    public int createNotifications(Collection<Long> userIds, String title, String description) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> rows = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            rows.add(new Object[]{title, description, now, userId});
+        }
+        jdbcTemplate.batchUpdate(BATCH_INSERT_SQL, rows);
+        log.info("Created notification '{}' for {} users", title, rows.size());
+        return rows.size();
+    }
+
     // Lay tat ca notifications cua user
     public List<Notification> getUserNotifications(Long userId) {
         User user = userRepository.findById(userId)
@@ -107,6 +133,35 @@ public class NotificationService {
         );
     }
 
+    // Notification khi co tin moi khop tim kiem da luu
+    public void notifySavedSearchMatch(Long buyerId, String searchName, Long productId, String productName, double cost) {
+        createNotification(
+            buyerId,
+            "Co tin moi khop tim kiem cua ban",
+            String.format("San pham '%s' (ID: %d) gia %.0f VND vua len san, khop tim kiem '%s'.",
+                productName, productId, cost, searchName)
+        );
+    }
+
+    // Notification cho nguoi theo doi khi san pham giam gia
+    public void notifyWatchersPriceDrop(Collection<Long> watcherIds, Long productId, String productName,
+                                        double oldPrice, double newPrice) {
+        createNotifications(
+            watcherIds,
+            "San pham ban theo doi vua giam gia",
+            String.format("San pham '%s' (ID: %d) giam gia tu %.0f VND xuong %.0f VND.", productName, productId, oldPrice, newPrice)
+        );
+    }
+
+    // Notification cho nguoi theo doi khi san pham doi trang thai (da ban, het han, mo ban lai...)
+    public void notifyWatchersStatusChanged(Collection<Long> watcherIds, Long productId, String productName, String status) {
+        createNotifications(
+            watcherIds,
+            "San pham ban theo doi da thay doi trang thai",
+            String.format("San pham '%s' (ID: %d) hien o trang thai: %s.", productName, productId, status)
+        );
+    }
+
     // Notification khi san pham bi tu choi
     public void notifyProductRejected(Long sellerId, Long productId, String productName, String reason) {
         createNotification(
@@ -3,6 +3,7 @@ package com.project.tradingev_batter.Service;
 import java.util.Date;
 import java.util.List;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,6 +24,7 @@ import com.project.tradingev_batter.Repository.UserRepository;
 import com.project.tradingev_batter.enums.OrderStatus;
 import com.project.tradingev_batter.enums.ProductStatus;
 import com.project.tradingev_batter.enums.TransactionStatus;
+import com.project.tradingev_batter.event.ProductChangedEvent;
 
 @Service
 public class OrderServiceImpl implements OrderService {
@@ -34,6 +36,7 @@ public class OrderServiceImpl implements OrderService {
     private final CartService cartService;
     private final TransactionRepository transactionRepository;
     private final NotificationRepository notificationRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public OrderServiceImpl(OrderRepository orderRepository,
             UserRepository userRepository,
@@ -41,7 +44,8 @@ public class OrderServiceImpl implements OrderService {
             ProductRepository productRepository,
             CartService cartService,
             TransactionRepository transactionRepository,
-            NotificationRepository notificationRepository) {
+            NotificationRepository notificationRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.orderRepository = orderRepository;
         this.userRepository = userRepository;
         this.orderDetailRepository = orderDetailRepository;
@@ -49,6 +53,7 @@ public class OrderServiceImpl implements OrderService {
         this.cartService = cartService;
         this.transactionRepository = transactionRepository;
         this.notificationRepository = notificationRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -480,6 +485,7 @@ public class OrderServiceImpl implements OrderService {
 
             product.setUpdatedat(new Date());
             productRepository.save(product);
+            eventPublisher.publishEvent(new ProductChangedEvent(product.getProductid()));
         }
     }
 
@@ -0,0 +1,250 @@
+package com.project.tradingev_batter.Service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Service;
+
+import com.project.tradingev_batter.Entity.Brandbattery;
+import com.project.tradingev_batter.Entity.Brandcars;
+import com.project.tradingev_batter.Entity.Product;
+import com.project.tradingev_batter.Entity.SellerRating;
+import com.project.tradingev_batter.Entity.User;
+import com.project.tradingev_batter.Entity.product_img;
+import com.project.tradingev_batter.dto.ProductCardDTO;
+import com.project.tradingev_batter.dto.ProductFields;
+import com.project.tradingev_batter.enums.ProductStatus;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.criteria.Subquery;
+
+//Truy vấn thẻ sản phẩm cho trang danh sách: 1 câu SQL duy nhất
+//products LEFT JOIN users/brandcars/brandbattery + subquery lấy ảnh đầu tiên và rating seller, select thẳng vào ProductCardDTO
+//=> không kích hoạt các quan hệ EAGER của Product (imgs, brand, user) và không load toàn bộ URL ảnh
+//Nhận Specification để dùng chung điều kiện lọc/keyset với truy vấn entity
+//Với sparse fieldset (?fields=) chỉ select cột và join/subquery mà field được chọn cần
+@Service
+public class ProductCardQuery {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public List<ProductCardDTO> find(Specification<Product> spec, Sort sort, int offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductCardDTO> query = cb.createQuery(ProductCardDTO.class);
+        Root<Product> p = query.from(Product.class);
+        Join<Product, User> seller = p.join("users", JoinType.LEFT);
+        Join<Product, Brandcars> car = p.join("brandcars", JoinType.LEFT);
+        Join<Product, Brandbattery> battery = p.join("brandbattery", JoinType.LEFT);
+
+        // Ảnh đầu tiên = ảnh có imgid nhỏ nhất của sản phẩm
+        Subquery<Long> firstImageId = query.subquery(Long.class);
+        Root<product_img> img = firstImageId.from(product_img.class);
+        firstImageId.select(cb.min(img.<Long>get("imgid"))).where(cb.equal(img.get("products"), p));
+
+        Subquery<String> primaryImage = query.subquery(String.class);
+        Root<product_img> primary = primaryImage.from(product_img.class);
+        primaryImage.select(primary.<String>get("url")).where(cb.equal(primary.get("imgid"), firstImageId));
+
+        // Rating seller: lookup theo khóa chính trong seller_ratings
+        Subquery<Long> ratingSum = query.subquery(Long.class);
+        Root<SellerRating> sumRoot = ratingSum.from(SellerRating.class);
+        ratingSum.select(sumRoot.<Long>get("ratingSum")).where(cb.equal(sumRoot.get("sellerId"), seller.get("userid")));
+
+        Subquery<Long> reviewCount = query.subquery(Long.class);
+        Root<SellerRating> countRoot = reviewCount.from(SellerRating.class);
+        reviewCount.select(countRoot.<Long>get("reviewCount")).where(cb.equal(countRoot.get("sellerId"), seller.get("userid")));
+
+        query.select(cb.construct(ProductCardDTO.class,
+                p.get("productid"), p.get("productname"), p.get("cost"), p.get("status"), p.get("type"),
+                p.get("model"), p.get("viewCount"), p.get("inWarehouse"), p.get("createdat"),
+                car.get("brand"), car.get("year"), car.get("licensePlate"),
+                battery.get("brand"), battery.get("year"), battery.get("capacity"), battery.get("condition"),
+                seller.get("userid"), seller.get("username"), seller.get("displayname"),
+                primaryImage, ratingSum, reviewCount));
+
+        Predicate predicate = spec != null ? spec.toPredicate(p, query, cb) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (sort != null && sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, p, cb));
+        }
+
+        return entityManager.createQuery(query)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public List<ProductCardDTO> find(Specification<Product> spec, Sort sort, int offset, int limit, ProductFields fields) {
+        if (fields == null || fields.isAll()) {
+            return find(spec, sort, offset, limit);
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Product> p = query.from(Product.class);
+
+        // productid/createdat/cost là khóa keyset, type để biết lấy hãng của xe hay pin => luôn select
+        List<Selection<?>> selections = new ArrayList<>();
+        selections.add(p.get("productid").alias("productid"));
+        selections.add(p.get("createdat").alias("createdat"));
+        selections.add(p.get("cost").alias("cost"));
+        selections.add(p.get("type").alias("type"));
+        for (String column : new String[]{"productname", "status", "model", "viewCount", "inWarehouse"}) {
+            if (fields.includes(column)) {
+                selections.add(p.get(column).alias(column));
+            }
+        }
+
+        // sellerId lấy thẳng từ FK products.userid, chỉ join users khi cần tên seller
+        Path<Object> sellerId = p.get("users").get("userid");
+        if (fields.includes("sellerId")) {
+            selections.add(sellerId.alias("sellerId"));
+        }
+        if (fields.includes("sellerName")) {
+            Join<Product, User> seller = p.join("users", JoinType.LEFT);
+            selections.add(seller.get("username").alias("sellerUsername"));
+            selections.add(seller.get("displayname").alias("sellerDisplayName"));
+        }
+
+        if (fields.includesAny("brand", "year", "licensePlate")) {
+            Join<Product, Brandcars> car = p.join("brandcars", JoinType.LEFT);
+            selections.add(car.get("brand").alias("carBrand"));
+            selections.add(car.get("year").alias("carYear"));
+            selections.add(car.get("licensePlate").alias("licensePlate"));
+        }
+        if (fields.includesAny("brand", "year", "capacity", "condition")) {
+            Join<Product, Brandbattery> battery = p.join("brandbattery", JoinType.LEFT);
+            selections.add(battery.get("brand").alias("batteryBrand"));
+            selections.add(battery.get("year").alias("batteryYear"));
+            selections.add(battery.get("capacity").alias("batteryCapacity"));
+            selections.add(battery.get("condition").alias("batteryCondition"));
+        }
+
+        if (fields.includes("primaryImage")) {
+            Subquery<Long> firstImageId = query.subquery(Long.class);
+            Root<product_img> img = firstImageId.from(product_img.class);
+            firstImageId.select(cb.min(img.<Long>get("imgid"))).where(cb.equal(img.get("products"), p));
+
+            Subquery<String> primaryImage = query.subquery(String.class);
+            Root<product_img> primary = primaryImage.from(product_img.class);
+            primaryImage.select(primary.<String>get("url")).where(cb.equal(primary.get("imgid"), firstImageId));
+            selections.add(primaryImage.alias("primaryImage"));
+        }
+
+        if (fields.includesAny("sellerRating", "sellerReviews")) {
+            Subquery<Long> ratingSum = query.subquery(Long.class);
+            Root<SellerRating> sumRoot = ratingSum.from(SellerRating.class);
+            ratingSum.select(sumRoot.<Long>get("ratingSum")).where(cb.equal(sumRoot.get("sellerId"), sellerId));
+
+            Subquery<Long> reviewCount = query.subquery(Long.class);
+            Root<SellerRating> countRoot = reviewCount.from(SellerRating.class);
+            reviewCount.select(countRoot.<Long>get("reviewCount")).where(cb.equal(countRoot.get("sellerId"), sellerId));
+            selections.add(ratingSum.alias("ratingSum"));
+            selections.add(reviewCount.alias("reviewCount"));
+        }
+
+        query.multiselect(selections);
+        Predicate predicate = spec != null ? spec.toPredicate(p, query, cb) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (sort != null && sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, p, cb));
+        }
+
+        List<Tuple> rows = entityManager.createQuery(query)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+        List<ProductCardDTO> cards = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            cards.add(toCard(row, fields));
+        }
+        return cards;
+    }
+
+    public long count(Specification<Product> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Product> p = query.from(Product.class);
+        query.select(cb.count(p));
+
+        Predicate predicate = spec != null ? spec.toPredicate(p, query, cb) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    // =============== HELPER METHODS ==================================================================================
+
+    private ProductCardDTO toCard(Tuple row, ProductFields fields) {
+        ProductCardDTO card = new ProductCardDTO();
+        card.setProductid(row.get("productid", Long.class));
+        card.setCreatedat(row.get("createdat", Date.class));
+        card.setCost(row.get("cost", Double.class));
+        String type = row.get("type", String.class);
+        card.setType(type);
+        if (fields.includes("productname")) {
+            card.setProductname(row.get("productname", String.class));
+        }
+        if (fields.includes("status")) {
+            card.setStatus(row.get("status", ProductStatus.class));
+        }
+        if (fields.includes("model")) {
+            card.setModel(row.get("model", String.class));
+        }
+        if (fields.includes("viewCount")) {
+            card.setViewCount(row.get("viewCount", Integer.class));
+        }
+        if (fields.includes("inWarehouse")) {
+            card.setInWarehouse(row.get("inWarehouse", Boolean.class));
+        }
+        if (fields.includes("sellerId")) {
+            card.setSellerId(row.get("sellerId", Long.class));
+        }
+        if (fields.includes("sellerName")) {
+            String displayName = row.get("sellerDisplayName", String.class);
+            card.setSellerName(displayName != null ? displayName : row.get("sellerUsername", String.class));
+        }
+        if (ProductSpecifications.TYPE_CAR.equals(type) && fields.includesAny("brand", "year", "licensePlate")) {
+            card.setBrand(row.get("carBrand", String.class));
+            card.setYear(row.get("carYear", Integer.class));
+            card.setLicensePlate(row.get("licensePlate", String.class));
+        } else if (ProductSpecifications.TYPE_BATTERY.equals(type) && fields.includesAny("brand", "year", "capacity", "condition")) {
+            card.setBrand(row.get("batteryBrand", String.class));
+            card.setYear(row.get("batteryYear", Integer.class));
+            card.setCapacity(row.get("batteryCapacity", Double.class));
+            card.setCondition(row.get("batteryCondition", String.class));
+        }
+        if (fields.includes("primaryImage")) {
+            card.setPrimaryImage(row.get("primaryImage", String.class));
+        }
+        if (fields.includesAny("sellerRating", "sellerReviews")) {
+            Long sum = row.get("ratingSum", Long.class);
+            Long count = row.get("reviewCount", Long.class);
+            if (count != null && count > 0 && sum != null) {
+                card.setSellerRating(Math.round(sum * 10.0 / count) / 10.0);
+                card.setSellerReviews(count);
+            }
+        }
+        // Các field nội bộ (cost/type khi không chọn, hãng của loại còn lại...) bị xóa ở ProductFields.strip sau khi tính cursor
+        return card;
+    }
+}
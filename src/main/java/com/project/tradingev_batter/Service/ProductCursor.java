@@ -0,0 +1,172 @@
+package com.project.tradingev_batter.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.project.tradingev_batter.Entity.Product;
+import com.project.tradingev_batter.dto.CursorPage;
+import com.project.tradingev_batter.dto.ProductCardDTO;
+import com.project.tradingev_batter.enums.ProductSort;
+
+//Cursor cho keyset pagination: lưu khóa sắp xếp (createdat|cost, productid) của phần tử cuối trang trước
+//Trang sau chỉ lấy các dòng "đứng sau" khóa này => chi phí mỗi trang như nhau dù cuộn sâu đến đâu,
+//và không bị trùng/sót khi có sản phẩm mới được thêm/xóa giữa 2 request
+//Chuỗi cursor gửi cho client là Base64 (URL-safe) - client chỉ cần gửi lại nguyên văn
+public final class ProductCursor {
+
+    private static final String SEPARATOR = ":";
+    private static final String NULL_VALUE = "-";
+
+    private final ProductSort sort;
+    private final Long createdAt; // epoch millis, null nếu sản phẩm không có createdat
+    private final double cost;
+    private final long productId;
+
+    private ProductCursor(ProductSort sort, Long createdAt, double cost, long productId) {
+        this.sort = sort;
+        this.createdAt = createdAt;
+        this.cost = cost;
+        this.productId = productId;
+    }
+
+    // Tạo cursor trỏ tới sau sản phẩm cuối cùng của trang hiện tại
+    public static ProductCursor after(ProductSort sort, Product last) {
+        Long createdAt = last.getCreatedat() != null ? last.getCreatedat().getTime() : null;
+        return new ProductCursor(sort, createdAt, last.getCost(), last.getProductid());
+    }
+
+    public static ProductCursor after(ProductSort sort, ProductCardDTO last) {
+        Long createdAt = last.getCreatedat() != null ? last.getCreatedat().getTime() : null;
+        return new ProductCursor(sort, createdAt, last.getCost(), last.getProductid());
+    }
+
+    public static ProductCursor decode(String token, ProductSort expectedSort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Cursor không hợp lệ");
+            }
+            ProductSort sort = ProductSort.valueOf(parts[0]);
+            if (sort != expectedSort) {
+                throw new IllegalArgumentException("Cursor không khớp với kiểu sắp xếp " + expectedSort);
+            }
+            long productId = Long.parseLong(parts[2]);
+            if (sort == ProductSort.NEWEST) {
+                Long createdAt = NULL_VALUE.equals(parts[1]) ? null : Long.parseLong(parts[1]);
+                return new ProductCursor(sort, createdAt, 0, productId);
+            }
+            return new ProductCursor(sort, null, Double.parseDouble(parts[1]), productId);
+        } catch (IllegalArgumentException e) {
+            // Base64 lỗi / số lỗi / enum lỗi đều là IllegalArgumentException
+            if (e.getMessage() != null && e.getMessage().startsWith("Cursor")) {
+                throw e;
+            }
+            throw new IllegalArgumentException("Cursor không hợp lệ");
+        }
+    }
+
+    public String encode() {
+        String value;
+        if (sort == ProductSort.NEWEST) {
+            value = createdAt != null ? String.valueOf(createdAt) : NULL_VALUE;
+        } else {
+            value = String.valueOf(cost);
+        }
+        String raw = sort.name() + SEPARATOR + value + SEPARATOR + productId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Thứ tự sắp xếp ổn định: luôn có productid làm tie-breaker
+    //NEWEST: SQL Server xếp NULL cuối khi DESC => sản phẩm thiếu createdat nằm cuối danh sách
+    public static Sort sortOf(ProductSort sort) {
+        switch (sort) {
+            case PRICE_ASC:
+                return Sort.by(Sort.Order.asc("cost"), Sort.Order.asc("productid"));
+            case PRICE_DESC:
+                return Sort.by(Sort.Order.desc("cost"), Sort.Order.desc("productid"));
+            case NEWEST:
+            default:
+                return Sort.by(Sort.Order.desc("createdat"), Sort.Order.desc("productid"));
+        }
+    }
+
+    // Comparator tương ứng sortOf() - dùng cho danh sách đã nằm trong bộ nhớ (vd kết quả search)
+    public static Comparator<Product> comparatorOf(ProductSort sort) {
+        switch (sort) {
+            case PRICE_ASC:
+                return Comparator.comparingDouble(Product::getCost)
+                        .thenComparingLong(Product::getProductid);
+            case PRICE_DESC:
+                return Comparator.comparingDouble(Product::getCost).reversed()
+                        .thenComparing(Comparator.comparingLong(Product::getProductid).reversed());
+            case NEWEST:
+            default:
+                return Comparator.comparing(Product::getCreatedat, Comparator.nullsLast(Comparator.<Date>reverseOrder()))
+                        .thenComparing(Comparator.comparingLong(Product::getProductid).reversed());
+        }
+    }
+
+    // Điều kiện keyset: các dòng đứng sau cursor theo thứ tự sortOf()
+    public Specification<Product> toSpecification() {
+        return (root, query, cb) -> {
+            switch (sort) {
+                case PRICE_ASC:
+                    return cb.or(
+                            cb.greaterThan(root.<Double>get("cost"), cost),
+                            cb.and(cb.equal(root.get("cost"), cost), cb.greaterThan(root.<Long>get("productid"), productId)));
+                case PRICE_DESC:
+                    return cb.or(
+                            cb.lessThan(root.<Double>get("cost"), cost),
+                            cb.and(cb.equal(root.get("cost"), cost), cb.lessThan(root.<Long>get("productid"), productId)));
+                case NEWEST:
+                default:
+                    if (createdAt == null) {
+                        return cb.and(cb.isNull(root.get("createdat")), cb.lessThan(root.<Long>get("productid"), productId));
+                    }
+                    Date cursorDate = new Date(createdAt);
+                    return cb.or(
+                            cb.lessThan(root.<Date>get("createdat"), cursorDate),
+                            cb.and(cb.equal(root.get("createdat"), cursorDate), cb.lessThan(root.<Long>get("productid"), productId)),
+                            cb.isNull(root.get("createdat")));
+            }
+        };
+    }
+
+    // Kiểm tra sản phẩm có đứng sau cursor không (phiên bản in-memory của toSpecification())
+    public boolean isBefore(Product product) {
+        Product key = new Product();
+        key.setProductid(productId);
+        key.setCost(cost);
+        key.setCreatedat(createdAt != null ? new Date(createdAt) : null);
+        return comparatorOf(sort).compare(key, product) < 0;
+    }
+
+    //Cắt 1 trang từ danh sách đã fetch (đã lọc) sẵn, rows dư 1 phần tử để biết còn trang sau hay không
+    public static <T> CursorPage<T> toPage(List<T> rows, int size, Function<T, ProductCursor> cursorOf) {
+        boolean hasNext = rows.size() > size;
+        List<T> items = hasNext ? new ArrayList<>(rows.subList(0, size)) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(items.get(items.size() - 1)).encode() : null;
+        return new CursorPage<>(items, nextCursor, hasNext);
+    }
+
+    //Keyset pagination trên danh sách trong bộ nhớ (vd kết quả search đã lọc)
+    public static CursorPage<Product> slice(List<Product> products, ProductSort sort, String cursor, int size) {
+        ProductCursor after = (cursor == null || cursor.isBlank()) ? null : decode(cursor, sort);
+        List<Product> rows = products.stream()
+                .filter(p -> after == null || after.isBefore(p))
+                .sorted(comparatorOf(sort))
+                .limit(size + 1L)
+                .collect(Collectors.toList());
+        return toPage(rows, size, p -> after(sort, p));
+    }
+}
@@ -0,0 +1,325 @@
+package com.project.tradingev_batter.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Service;
+
+import com.project.tradingev_batter.Entity.Product;
+import com.project.tradingev_batter.enums.ProductStatus;
+
+//Facet index in-memory cho sản phẩm DANG_BAN: loại, hãng, năm, tình trạng pin, khoảng giá
+//Mỗi giá trị facet là một BitSet trên số thứ tự (ordinal) của sản phẩm
+//=> đếm facet cho bất kỳ tổ hợp filter nào chỉ bằng phép AND + cardinality, không truy vấn DB
+@Service
+public class ProductFacetIndex implements ProductIndex {
+
+    public static final String FACET_TYPE = "type";
+    public static final String FACET_BRAND = "brand";
+    public static final String FACET_YEAR = "year";
+    public static final String FACET_CONDITION = "condition";
+    public static final String FACET_PRICE = "priceRange";
+
+    // Mốc khoảng giá (VNĐ): <50tr, 50-200tr, 200-500tr, 500tr-1 tỷ, >1 tỷ
+    private static final double[] PRICE_BOUNDS = {50_000_000, 200_000_000, 500_000_000, 1_000_000_000};
+    private static final String[] PRICE_LABELS = {
+            "0-50000000", "50000000-200000000", "200000000-500000000", "500000000-1000000000", "1000000000+"
+    };
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // productId <-> ordinal (ordinal được tái sử dụng khi sản phẩm rời index)
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final List<FacetDocument> documents = new ArrayList<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private final BitSet live = new BitSet();
+
+    // Facet dạng chuỗi: key đã chuẩn hóa (bỏ dấu, chữ thường) -> BitSet
+    private final Map<String, BitSet> typeValues = new HashMap<>();
+    private final Map<String, BitSet> brandValues = new HashMap<>();
+    private final Map<String, BitSet> conditionValues = new HashMap<>();
+    private final Map<String, BitSet> priceBuckets = new HashMap<>();
+
+    // Nhãn hiển thị cho key đã chuẩn hóa (giữ cách viết gặp đầu tiên, vd "VinFast")
+    private final Map<String, String> labels = new HashMap<>();
+
+    // Facet dạng số: hỗ trợ lọc theo khoảng (minYear/maxYear, minPrice/maxPrice)
+    private final TreeMap<Integer, BitSet> yearValues = new TreeMap<>();
+    private final TreeMap<Double, BitSet> costValues = new TreeMap<>();
+
+    @Override
+    public void upsert(Product product) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(product.getProductid());
+            if (!ProductStatus.DANG_BAN.equals(product.getStatus())) {
+                return;
+            }
+
+            FacetDocument doc = FacetDocument.of(product);
+            int ordinal = freeOrdinals.isEmpty() ? documents.size() : freeOrdinals.pop();
+            if (ordinal == documents.size()) {
+                documents.add(doc);
+            } else {
+                documents.set(ordinal, doc);
+            }
+            ordinals.put(product.getProductid(), ordinal);
+            live.set(ordinal);
+
+            addValue(typeValues, doc.type, product.getType(), ordinal);
+            addValue(brandValues, doc.brand, doc.brandLabel, ordinal);
+            addValue(conditionValues, doc.condition, doc.conditionLabel, ordinal);
+            priceBuckets.computeIfAbsent(doc.priceBucket, k -> new BitSet()).set(ordinal);
+            if (doc.year > 0) {
+                yearValues.computeIfAbsent(doc.year, k -> new BitSet()).set(ordinal);
+            }
+            costValues.computeIfAbsent(doc.cost, k -> new BitSet()).set(ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ordinals.clear();
+            documents.clear();
+            freeOrdinals.clear();
+            live.clear();
+            typeValues.clear();
+            brandValues.clear();
+            conditionValues.clear();
+            priceBuckets.clear();
+            labels.clear();
+            yearValues.clear();
+            costValues.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Đếm facet cho một tổ hợp filter
+    //Mỗi facet được đếm trên tập kết quả của TẤT CẢ filter khác (trừ filter của chính nó)
+    //để FE hiển thị được "nếu chọn thêm giá trị này thì còn bao nhiêu kết quả"
+    //restrictToProductIds: giới hạn trong tập sản phẩm (vd kết quả keyword search), null = không giới hạn
+    public Map<String, Object> countFacets(Iterable<Long> restrictToProductIds, String type, String brand,
+                                           Integer minYear, Integer maxYear, Double minPrice, Double maxPrice,
+                                           String condition) {
+        lock.readLock().lock();
+        try {
+            BitSet base = (BitSet) live.clone();
+            if (restrictToProductIds != null) {
+                BitSet restricted = new BitSet();
+                for (Long productId : restrictToProductIds) {
+                    Integer ordinal = ordinals.get(productId);
+                    if (ordinal != null) {
+                        restricted.set(ordinal);
+                    }
+                }
+                base.and(restricted);
+            }
+
+            BitSet typeMask = isBlank(type) ? null : valueMask(typeValues, type);
+            BitSet brandMask = isBlank(brand) ? null : valueMask(brandValues, brand);
+            BitSet conditionMask = isBlank(condition) ? null : valueMask(conditionValues, condition);
+            BitSet yearMask = (minYear == null && maxYear == null) ? null
+                    : unionOf(yearValues.subMap(minYear != null ? minYear : Integer.MIN_VALUE, true,
+                    maxYear != null ? maxYear : Integer.MAX_VALUE, true));
+            BitSet priceMask = (minPrice == null && maxPrice == null) ? null
+                    : unionOf(costValues.subMap(minPrice != null ? minPrice : Double.NEGATIVE_INFINITY, true,
+                    maxPrice != null ? maxPrice : Double.POSITIVE_INFINITY, true));
+
+            BitSet all = intersect(base, typeMask, brandMask, conditionMask, yearMask, priceMask);
+
+            Map<String, Object> facets = new LinkedHashMap<>();
+            facets.put(FACET_TYPE, countValues(typeValues, intersect(base, brandMask, conditionMask, yearMask, priceMask)));
+            facets.put(FACET_BRAND, countValues(brandValues, intersect(base, typeMask, conditionMask, yearMask, priceMask)));
+            facets.put(FACET_YEAR, countYears(intersect(base, typeMask, brandMask, conditionMask, priceMask)));
+            facets.put(FACET_CONDITION, countValues(conditionValues, intersect(base, typeMask, brandMask, yearMask, priceMask)));
+            facets.put(FACET_PRICE, countPriceBuckets(intersect(base, typeMask, brandMask, conditionMask, yearMask)));
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("totalResults", all.cardinality());
+            result.put("facets", facets);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static String priceBucketOf(double cost) {
+        for (int i = 0; i < PRICE_BOUNDS.length; i++) {
+            if (cost < PRICE_BOUNDS[i]) {
+                return PRICE_LABELS[i];
+            }
+        }
+        return PRICE_LABELS[PRICE_LABELS.length - 1];
+    }
+
+    // =============== HELPER METHODS ==================================================================================
+
+    private void removeInternal(long productId) {
+        Integer ordinal = ordinals.remove(productId);
+        if (ordinal == null) {
+            return;
+        }
+        FacetDocument doc = documents.get(ordinal);
+        clearValue(typeValues, doc.type, ordinal);
+        clearValue(brandValues, doc.brand, ordinal);
+        clearValue(conditionValues, doc.condition, ordinal);
+        clearValue(priceBuckets, doc.priceBucket, ordinal);
+        clearValue(yearValues, doc.year, ordinal);
+        clearValue(costValues, doc.cost, ordinal);
+        documents.set(ordinal, null);
+        live.clear(ordinal);
+        freeOrdinals.push(ordinal);
+    }
+
+    private void addValue(Map<String, BitSet> values, String key, String label, int ordinal) {
+        if (key == null) {
+            return;
+        }
+        values.computeIfAbsent(key, k -> new BitSet()).set(ordinal);
+        labels.putIfAbsent(key, label);
+    }
+
+    private <K> void clearValue(Map<K, BitSet> values, K key, int ordinal) {
+        if (key == null) {
+            return;
+        }
+        BitSet bits = values.get(key);
+        if (bits != null) {
+            bits.clear(ordinal);
+            if (bits.isEmpty()) {
+                values.remove(key);
+                if (key instanceof String) {
+                    labels.remove(key);
+                }
+            }
+        }
+    }
+
+    private BitSet valueMask(Map<String, BitSet> values, String rawValue) {
+        BitSet bits = values.get(normalizeKey(rawValue));
+        return bits != null ? bits : new BitSet();
+    }
+
+    private BitSet unionOf(Map<?, BitSet> values) {
+        BitSet union = new BitSet();
+        for (BitSet bits : values.values()) {
+            union.or(bits);
+        }
+        return union;
+    }
+
+    private BitSet intersect(BitSet base, BitSet... masks) {
+        BitSet result = (BitSet) base.clone();
+        for (BitSet mask : masks) {
+            if (mask != null) {
+                result.and(mask);
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Integer> countValues(Map<String, BitSet> values, BitSet scope) {
+        List<Map.Entry<String, Integer>> counts = new ArrayList<>();
+        for (Map.Entry<String, BitSet> entry : values.entrySet()) {
+            int count = countIn(entry.getValue(), scope);
+            if (count > 0) {
+                counts.add(Map.entry(labels.getOrDefault(entry.getKey(), entry.getKey()), count));
+            }
+        }
+        counts.sort(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : counts) {
+            result.merge(entry.getKey(), entry.getValue(), Integer::sum);
+        }
+        return result;
+    }
+
+    private Map<Integer, Integer> countYears(BitSet scope) {
+        Map<Integer, Integer> result = new LinkedHashMap<>();
+        for (Map.Entry<Integer, BitSet> entry : yearValues.descendingMap().entrySet()) {
+            int count = countIn(entry.getValue(), scope);
+            if (count > 0) {
+                result.put(entry.getKey(), count);
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Integer> countPriceBuckets(BitSet scope) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (String label : PRICE_LABELS) {
+            BitSet bits = priceBuckets.get(label);
+            result.put(label, bits != null ? countIn(bits, scope) : 0);
+        }
+        return result;
+    }
+
+    private int countIn(BitSet values, BitSet scope) {
+        BitSet intersection = (BitSet) values.clone();
+        intersection.and(scope);
+        return intersection.cardinality();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String normalizeKey(String value) {
+        return isBlank(value) ? null : SearchTextUtils.fold(value).trim();
+    }
+
+    // Các thuộc tính facet của 1 sản phẩm (lưu lại để xóa đúng BitSet khi sản phẩm thay đổi)
+    private static final class FacetDocument {
+        private String type;
+        private String brand;
+        private String brandLabel;
+        private String condition;
+        private String conditionLabel;
+        private String priceBucket;
+        private int year;
+        private double cost;
+
+        private static FacetDocument of(Product product) {
+            FacetDocument doc = new FacetDocument();
+            doc.type = normalizeKey(product.getType());
+            if ("Car EV".equals(product.getType()) && product.getBrandcars() != null) {
+                doc.brandLabel = product.getBrandcars().getBrand();
+                doc.year = product.getBrandcars().getYear();
+            } else if ("Battery".equals(product.getType()) && product.getBrandbattery() != null) {
+                doc.brandLabel = product.getBrandbattery().getBrand();
+                doc.year = product.getBrandbattery().getYear();
+                doc.conditionLabel = product.getBrandbattery().getCondition();
+                doc.condition = normalizeKey(doc.conditionLabel);
+            }
+            doc.brand = normalizeKey(doc.brandLabel);
+            doc.cost = product.getCost();
+            doc.priceBucket = priceBucketOf(product.getCost());
+            return doc;
+        }
+    }
+}
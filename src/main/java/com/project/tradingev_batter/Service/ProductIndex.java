@@ -0,0 +1,21 @@
+package com.project.tradingev_batter.Service;
+
+import com.project.tradingev_batter.Entity.Product;
+
+//Một cấu trúc dữ liệu in-memory được đồng bộ theo vòng đời sản phẩm.
+//ProductIndexSynchronizer gọi upsert/remove sau mỗi ProductChangedEvent và rebuild lúc khởi động.
+public interface ProductIndex {
+
+    // Sản phẩm mới hoặc vừa thay đổi (mỗi index tự quyết định có giữ sản phẩm này hay không)
+    void upsert(Product product);
+
+    // Sản phẩm đã bị xóa khỏi DB
+    void remove(long productId);
+
+    // Xóa toàn bộ dữ liệu trước khi rebuild
+    void clear();
+
+    // Rebuild lúc khởi động đã nạp xong toàn bộ sản phẩm (các upsert sau đó là thay đổi thật)
+    default void rebuilt() {
+    }
+}
@@ -0,0 +1,88 @@
+package com.project.tradingev_batter.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.project.tradingev_batter.Entity.Product;
+import com.project.tradingev_batter.Repository.ProductRepository;
+import com.project.tradingev_batter.event.ProductChangedEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+//Giữ tất cả ProductIndex đồng bộ với DB
+//1. Khi khởi động: nạp toàn bộ sản phẩm theo từng trang vào các index
+//2. Sau mỗi transaction có ProductChangedEvent: đọc lại đúng 1 sản phẩm và cập nhật các index
+@Service
+@Slf4j
+public class ProductIndexSynchronizer {
+
+    private static final int REBUILD_PAGE_SIZE = 500;
+
+    private final ProductRepository productRepository;
+    private final List<ProductIndex> indexes;
+
+    public ProductIndexSynchronizer(ProductRepository productRepository, List<ProductIndex> indexes) {
+        this.productRepository = productRepository;
+        this.indexes = indexes;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildAll() {
+        log.info("Rebuilding {} product indexes...", indexes.size());
+        indexes.forEach(ProductIndex::clear);
+
+        int pageNumber = 0;
+        long total = 0;
+        Page<Product> page;
+        do {
+            page = productRepository.findAll(PageRequest.of(pageNumber++, REBUILD_PAGE_SIZE, Sort.by("productid")));
+            for (Product product : page.getContent()) {
+                upsertAll(product);
+                total++;
+            }
+        } while (page.hasNext());
+        indexes.forEach(ProductIndex::rebuilt);
+
+        log.info("Product indexes rebuilt with {} products", total);
+    }
+
+    // Chạy sau khi transaction commit (hoặc ngay lập tức nếu event phát ra ngoài transaction)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        Long productId = event.getProductId();
+        if (productId == null) {
+            return;
+        }
+
+        Optional<Product> product = productRepository.findById(productId);
+        if (product.isPresent()) {
+            upsertAll(product.get());
+        } else {
+            for (ProductIndex index : indexes) {
+                try {
+                    index.remove(productId);
+                } catch (Exception e) {
+                    log.warn("Failed to remove product {} from {}: {}", productId, index.getClass().getSimpleName(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void upsertAll(Product product) {
+        for (ProductIndex index : indexes) {
+            try {
+                index.upsert(product);
+            } catch (Exception e) {
+                log.warn("Failed to index product {} in {}: {}", product.getProductid(), index.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+    }
+}
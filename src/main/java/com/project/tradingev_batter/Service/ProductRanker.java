@@ -0,0 +1,114 @@
+package com.project.tradingev_batter.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import com.project.tradingev_batter.Entity.Product;
+import com.project.tradingev_batter.Entity.SellerRating;
+
+//Xếp hạng kết quả tìm kiếm: trộn độ liên quan văn bản với độ phổ biến, độ mới, uy tín seller, hàng đã kiểm định
+//Chọn top-k bằng min-heap kích thước k => O(n log k), chi phí sắp xếp tỉ lệ với trang cần trả về chứ không với số kết quả
+public final class ProductRanker {
+
+    // Trọng số các tín hiệu (tổng = 1)
+    private static final double TEXT_WEIGHT = 0.55;
+    private static final double POPULARITY_WEIGHT = 0.15;
+    private static final double RECENCY_WEIGHT = 0.15;
+    private static final double SELLER_WEIGHT = 0.10;
+    private static final double WAREHOUSE_WEIGHT = 0.05;
+
+    // Tin đăng mất một nửa điểm độ mới sau 30 ngày
+    private static final double RECENCY_HALF_LIFE_DAYS = 30.0;
+    // Rating seller được kéo về mức trung bình khi còn ít đánh giá (Bayesian average)
+    private static final double PRIOR_RATING = 3.5;
+    private static final double PRIOR_REVIEWS = 5.0;
+
+    private static final double MILLIS_PER_DAY = 24.0 * 60 * 60 * 1000;
+
+    private ProductRanker() {
+    }
+
+    //Top `limit` sản phẩm theo điểm tổng hợp, điểm cao trước
+    //textScores: productId -> điểm từ ProductSearchIndex (rỗng khi không có keyword)
+    public static List<Product> topK(List<Product> candidates, Map<Long, Double> textScores,
+                                     Map<Long, SellerRating> sellerRatings, int limit) {
+        if (candidates.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        // Chuẩn hóa theo giá trị lớn nhất của tập ứng viên để các tín hiệu cùng thang [0, 1]
+        double maxText = 0;
+        double maxViews = 0;
+        for (Product product : candidates) {
+            maxText = Math.max(maxText, textScores.getOrDefault(product.getProductid(), 0.0));
+            maxViews = Math.max(maxViews, viewsOf(product));
+        }
+        double logMaxViews = Math.log1p(maxViews);
+        long now = System.currentTimeMillis();
+
+        Comparator<Scored> order = Comparator.<Scored>comparingDouble(s -> s.score)
+                .thenComparing(s -> -s.product.getProductid());
+        PriorityQueue<Scored> heap = new PriorityQueue<>(Math.min(limit, candidates.size()) + 1, order);
+        for (Product product : candidates) {
+            double text = maxText > 0 ? textScores.getOrDefault(product.getProductid(), 0.0) / maxText : 0;
+            double popularity = logMaxViews > 0 ? Math.log1p(viewsOf(product)) / logMaxViews : 0;
+            double recency = recencyOf(product, now);
+            double seller = sellerScoreOf(sellerRatings.get(product.getUsers() != null ? product.getUsers().getUserid() : null));
+            double warehouse = Boolean.TRUE.equals(product.getInWarehouse()) ? 1 : 0;
+
+            double score = TEXT_WEIGHT * text + POPULARITY_WEIGHT * popularity + RECENCY_WEIGHT * recency
+                    + SELLER_WEIGHT * seller + WAREHOUSE_WEIGHT * warehouse;
+
+            Scored scored = new Scored(product, score);
+            if (heap.size() < limit) {
+                heap.add(scored);
+            } else if (order.compare(scored, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(scored);
+            }
+        }
+
+        List<Scored> top = new ArrayList<>(heap);
+        top.sort(Collections.reverseOrder(order));
+        List<Product> result = new ArrayList<>(top.size());
+        for (Scored scored : top) {
+            result.add(scored.product);
+        }
+        return result;
+    }
+
+    // =============== HELPER METHODS ==================================================================================
+
+    private static double viewsOf(Product product) {
+        return product.getViewCount() != null ? Math.max(0, product.getViewCount()) : 0;
+    }
+
+    private static double recencyOf(Product product, long now) {
+        if (product.getCreatedat() == null) {
+            return 0;
+        }
+        double ageDays = Math.max(0, now - product.getCreatedat().getTime()) / MILLIS_PER_DAY;
+        return Math.pow(0.5, ageDays / RECENCY_HALF_LIFE_DAYS);
+    }
+
+    private static double sellerScoreOf(SellerRating rating) {
+        long reviews = rating != null ? rating.getReviewCount() : 0;
+        long sum = rating != null ? rating.getRatingSum() : 0;
+        double smoothed = (PRIOR_RATING * PRIOR_REVIEWS + sum) / (PRIOR_REVIEWS + reviews);
+        return (smoothed - 1) / 4; // thang 1-5 -> [0, 1]
+    }
+
+    private static final class Scored {
+        private final Product product;
+        private final double score;
+
+        private Scored(Product product, double score) {
+            this.product = product;
+            this.score = score;
+        }
+    }
+}
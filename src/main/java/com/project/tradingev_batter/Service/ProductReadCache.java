@@ -0,0 +1,125 @@
+package com.project.tradingev_batter.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.project.tradingev_batter.event.ProductChangedEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+//Read-through cache cho API công khai: chi tiết sản phẩm + các trang danh sách
+//- Giới hạn số entry (LRU) và TTL cho từng vùng
+//- Mọi điểm thay đổi sản phẩm đã publish ProductChangedEvent => sau commit: xóa detail của sản phẩm đó
+//  và toàn bộ trang danh sách (status/giá đổi có thể làm sản phẩm vào/ra bất kỳ trang nào)
+//Giá trị cache là Map response đã build sẵn (chỉ chứa kiểu đơn giản, không chứa entity)
+@Service
+@Slf4j
+public class ProductReadCache {
+
+    private final Region<Long> details;
+    private final Region<String> listings;
+
+    public ProductReadCache(@Value("${product.cache.detail-max-size:1000}") int detailMaxSize,
+                            @Value("${product.cache.listing-max-size:200}") int listingMaxSize,
+                            @Value("${product.cache.ttl-seconds:60}") long ttlSeconds) {
+        this.details = new Region<>(detailMaxSize, ttlSeconds * 1000);
+        this.listings = new Region<>(listingMaxSize, ttlSeconds * 1000);
+    }
+
+    public Map<String, Object> getDetail(Long productId, Supplier<Map<String, Object>> loader) {
+        return details.get(productId, loader);
+    }
+
+    public Map<String, Object> getListing(String key, Supplier<Map<String, Object>> loader) {
+        return listings.get(key, loader);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getProductId() != null) {
+            details.evict(event.getProductId());
+        }
+        listings.clear();
+    }
+
+    public void clear() {
+        details.clear();
+        listings.clear();
+        log.info("Product read cache cleared");
+    }
+
+    // 1 vùng cache: LinkedHashMap access-order làm LRU, mỗi entry có thời điểm hết hạn
+    private static final class Region<K> {
+
+        private final int maxSize;
+        private final long ttlMillis;
+        private final LinkedHashMap<K, CachedValue> entries;
+
+        // Tăng mỗi lần invalidate: giá trị load xong sau khi bị invalidate sẽ không được ghi vào cache
+        private final AtomicLong generation = new AtomicLong();
+
+        private Region(int maxSize, long ttlMillis) {
+            this.maxSize = maxSize;
+            this.ttlMillis = ttlMillis;
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, CachedValue> eldest) {
+                    return size() > Region.this.maxSize;
+                }
+            };
+        }
+
+        private Map<String, Object> get(K key, Supplier<Map<String, Object>> loader) {
+            long now = System.currentTimeMillis();
+            long loadGeneration;
+            synchronized (this) {
+                CachedValue entry = entries.get(key);
+                if (entry != null && entry.expiresAt > now) {
+                    return entry.value;
+                }
+                if (entry != null) {
+                    entries.remove(key);
+                }
+                loadGeneration = generation.get();
+            }
+
+            // Load ngoài lock để request khác không phải chờ DB
+            Map<String, Object> value = loader.get();
+            if (maxSize <= 0 || ttlMillis <= 0) {
+                return value;
+            }
+            synchronized (this) {
+                if (generation.get() == loadGeneration) {
+                    entries.put(key, new CachedValue(value, System.currentTimeMillis() + ttlMillis));
+                }
+            }
+            return value;
+        }
+
+        private synchronized void evict(K key) {
+            generation.incrementAndGet();
+            entries.remove(key);
+        }
+
+        private synchronized void clear() {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    private static final class CachedValue {
+        private final Map<String, Object> value;
+        private final long expiresAt;
+
+        private CachedValue(Map<String, Object> value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,416 @@
+package com.project.tradingev_batter.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Service;
+
+import com.project.tradingev_batter.Entity.Product;
+import com.project.tradingev_batter.enums.ProductStatus;
+
+//Inverted index in-memory cho tìm kiếm từ khóa trên sản phẩm DANG_BAN
+//Index theo: tên sản phẩm, mô tả, model, hãng (Brandcars/Brandbattery) - đã bỏ dấu tiếng Việt
+//Truy vấn chỉ duyệt posting list của các token trong keyword, không quét toàn bộ catalog
+//Khi không có kết quả khớp chính xác thì chuyển sang tìm gần đúng (gõ sai "Vinfats", viết liền "VF8"):
+//- Từ điển term của tên/model/hãng có trigram index => chỉ xét các term có chung trigram với token (giới hạn số ứng viên)
+//- Ứng viên được kiểm tra lại bằng khoảng cách Damerau-Levenshtein (đổi chỗ 2 ký tự tính 1 lỗi)
+//- Tên/model/hãng được index thêm dạng ghép 2 token liền kề có số hoặc ngắn ("vf 8" -> "vf8"), query cũng thử ghép token
+@Service
+public class ProductSearchIndex implements ProductIndex {
+
+    // Trọng số theo field: khớp ở tên quan trọng hơn khớp ở mô tả
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float MODEL_WEIGHT = 2.0f;
+    private static final float BRAND_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    // Token cuối cùng của keyword được khớp theo tiền tố ("tes" -> "tesla"), điểm thấp hơn khớp chính xác
+    private static final double PREFIX_MATCH_FACTOR = 0.8;
+
+    // Tìm gần đúng: điểm giảm theo số lỗi, token ngắn hơn MIN_FUZZY_LENGTH không sửa lỗi (quá nhiều term gần giống)
+    private static final double FUZZY_MATCH_FACTOR = 0.5;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int MAX_FUZZY_CANDIDATES = 50; // Số term tối đa được tính khoảng cách cho mỗi token
+    private static final int MAX_FUZZY_TERMS = 10;      // Số term gần đúng tối đa được dùng cho mỗi token
+    // Ghép 2 token liền kề khi 1 trong 2 ngắn hơn hoặc bằng độ dài này (hoặc có chữ số): "vf 8", "model 3"
+    private static final int MAX_JOIN_TOKEN_LENGTH = 3;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (productId -> trọng số của term trong sản phẩm)
+    private final TreeMap<String, Map<Long, Float>> postings = new TreeMap<>();
+
+    // productId -> các term đã index (để xóa nhanh khi sản phẩm thay đổi)
+    private final Map<Long, Set<String>> documentTerms = new HashMap<>();
+
+    // Từ điển cho tìm gần đúng (chỉ term của tên/model/hãng): term -> số sản phẩm chứa term
+    private final Map<String, Integer> fuzzyTermCounts = new HashMap<>();
+    // trigram -> các term chứa trigram đó
+    private final Map<String, Set<String>> trigramTerms = new HashMap<>();
+    // productId -> các term của sản phẩm trong từ điển gần đúng
+    private final Map<Long, Set<String>> documentFuzzyTerms = new HashMap<>();
+
+    @Override
+    public void upsert(Product product) {
+        boolean active = ProductStatus.DANG_BAN.equals(product.getStatus());
+        Map<String, Float> termWeights = active ? extractTermWeights(product) : Collections.emptyMap();
+        Set<String> fuzzyTerms = active ? extractFuzzyTerms(product) : Collections.emptySet();
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(product.getProductid());
+            if (termWeights.isEmpty()) {
+                return;
+            }
+            for (Map.Entry<String, Float> entry : termWeights.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>())
+                        .put(product.getProductid(), entry.getValue());
+            }
+            documentTerms.put(product.getProductid(), new HashSet<>(termWeights.keySet()));
+            for (String term : fuzzyTerms) {
+                if (fuzzyTermCounts.merge(term, 1, Integer::sum) == 1) {
+                    for (String trigram : trigrams(term)) {
+                        trigramTerms.computeIfAbsent(trigram, k -> new HashSet<>()).add(term);
+                    }
+                }
+            }
+            documentFuzzyTerms.put(product.getProductid(), fuzzyTerms);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documentTerms.clear();
+            fuzzyTermCounts.clear();
+            trigramTerms.clear();
+            documentFuzzyTerms.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentTerms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Tìm theo keyword, trả về productId -> điểm liên quan (chưa sắp xếp)
+    //Sản phẩm phải chứa tất cả token của keyword (token cuối được khớp theo tiền tố)
+    //Không có sản phẩm nào khớp chính xác thì thử lại với khớp gần đúng
+    public Map<Long, Double> score(String keyword) {
+        List<String> tokens = SearchTextUtils.tokenize(keyword);
+        if (tokens.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = scoreTokens(tokens, false);
+            if (scores.isEmpty()) {
+                scores = scoreTokens(joinTokens(tokens), true);
+            }
+            return scores;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Tìm theo keyword, trả về danh sách productId đã xếp hạng theo điểm giảm dần
+    public List<Long> search(String keyword) {
+        List<Map.Entry<Long, Double>> entries = new ArrayList<>(score(keyword).entrySet());
+        entries.sort(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()));
+        List<Long> productIds = new ArrayList<>(entries.size());
+        for (Map.Entry<Long, Double> entry : entries) {
+            productIds.add(entry.getKey());
+        }
+        return productIds;
+    }
+
+    // =============== HELPER METHODS ==================================================================================
+
+    private Map<Long, Double> scoreTokens(List<String> tokens, boolean fuzzy) {
+        int totalDocuments = documentTerms.size();
+        Map<Long, Double> scores = null;
+
+        for (int i = 0; i < tokens.size(); i++) {
+            boolean lastToken = i == tokens.size() - 1;
+            Map<Long, Double> tokenScores = scoreToken(tokens.get(i), lastToken, totalDocuments);
+            if (tokenScores.isEmpty() && fuzzy) {
+                tokenScores = scoreFuzzyToken(tokens.get(i), totalDocuments);
+            }
+            if (tokenScores.isEmpty()) {
+                return Collections.emptyMap();
+            }
+            scores = scores == null ? tokenScores : intersect(scores, tokenScores);
+            if (scores.isEmpty()) {
+                return Collections.emptyMap();
+            }
+        }
+        return scores;
+    }
+
+    private Map<Long, Double> scoreToken(String token, boolean allowPrefix, int totalDocuments) {
+        Map<Long, Double> tokenScores = new HashMap<>();
+
+        Map<Long, Float> exact = postings.get(token);
+        if (exact != null) {
+            accumulate(tokenScores, exact, idf(exact.size(), totalDocuments));
+        }
+
+        if (allowPrefix) {
+            // Các term bắt đầu bằng token (không tính term trùng khớp chính xác đã xử lý ở trên)
+            for (Map.Entry<String, Map<Long, Float>> entry
+                    : postings.subMap(token, false, token + Character.MAX_VALUE, false).entrySet()) {
+                Map<Long, Float> docs = entry.getValue();
+                accumulate(tokenScores, docs, idf(docs.size(), totalDocuments) * PREFIX_MATCH_FACTOR);
+            }
+        }
+        return tokenScores;
+    }
+
+    // Token gõ sai: lấy các term có chung nhiều trigram nhất rồi kiểm tra khoảng cách chỉnh sửa
+    private Map<Long, Double> scoreFuzzyToken(String token, int totalDocuments) {
+        int maxDistance = maxEditDistance(token);
+        if (maxDistance == 0) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, Integer> sharedTrigrams = new HashMap<>();
+        for (String trigram : trigrams(token)) {
+            Set<String> terms = trigramTerms.get(trigram);
+            if (terms == null) {
+                continue;
+            }
+            for (String term : terms) {
+                if (Math.abs(term.length() - token.length()) <= maxDistance) {
+                    sharedTrigrams.merge(term, 1, Integer::sum);
+                }
+            }
+        }
+
+        List<Map.Entry<String, Integer>> candidates = new ArrayList<>(sharedTrigrams.entrySet());
+        candidates.sort(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()));
+
+        Map<Long, Double> tokenScores = new HashMap<>();
+        int checked = 0;
+        int used = 0;
+        for (Map.Entry<String, Integer> candidate : candidates) {
+            if (checked++ >= MAX_FUZZY_CANDIDATES || used >= MAX_FUZZY_TERMS) {
+                break;
+            }
+            int distance = editDistance(token, candidate.getKey(), maxDistance);
+            Map<Long, Float> docs = postings.get(candidate.getKey());
+            if (distance <= maxDistance && docs != null) {
+                accumulate(tokenScores, docs, idf(docs.size(), totalDocuments) * FUZZY_MATCH_FACTOR / distance);
+                used++;
+            }
+        }
+        return tokenScores;
+    }
+
+    // Ghép các token liền kề nếu dạng ghép là term đã biết còn từng token thì không ("vf 8" -> "vf8")
+    private List<String> joinTokens(List<String> tokens) {
+        List<String> joined = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if (i + 1 < tokens.size()) {
+                String next = tokens.get(i + 1);
+                String combined = token + next;
+                if (postings.containsKey(combined) && (!postings.containsKey(token) || !postings.containsKey(next))) {
+                    joined.add(combined);
+                    i++;
+                    continue;
+                }
+            }
+            joined.add(token);
+        }
+        return joined;
+    }
+
+    private int maxEditDistance(String token) {
+        if (token.length() < MIN_FUZZY_LENGTH) {
+            return 0;
+        }
+        return token.length() < 8 ? 1 : 2;
+    }
+
+    // Khoảng cách Damerau-Levenshtein (optimal string alignment), dừng sớm khi đã vượt maxDistance
+    private int editDistance(String a, String b, int maxDistance) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            int rowMin = Integer.MAX_VALUE;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, d[i][j]);
+            }
+            if (rowMin > maxDistance) {
+                return maxDistance + 1;
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    // Trigram có đánh dấu đầu/cuối: "vf8" -> "^vf", "vf8", "f8$"
+    private Set<String> trigrams(String term) {
+        String padded = "^" + term + "$";
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    private void accumulate(Map<Long, Double> target, Map<Long, Float> docs, double idf) {
+        for (Map.Entry<Long, Float> doc : docs.entrySet()) {
+            target.merge(doc.getKey(), doc.getValue() * idf, Math::max);
+        }
+    }
+
+    private Map<Long, Double> intersect(Map<Long, Double> left, Map<Long, Double> right) {
+        Map<Long, Double> smaller = left.size() <= right.size() ? left : right;
+        Map<Long, Double> larger = smaller == left ? right : left;
+        Map<Long, Double> result = new HashMap<>();
+        for (Map.Entry<Long, Double> entry : smaller.entrySet()) {
+            Double other = larger.get(entry.getKey());
+            if (other != null) {
+                result.put(entry.getKey(), entry.getValue() + other);
+            }
+        }
+        return result;
+    }
+
+    private double idf(int documentFrequency, int totalDocuments) {
+        return Math.log(1.0 + (double) Math.max(totalDocuments, 1) / Math.max(documentFrequency, 1));
+    }
+
+    private void removeInternal(long productId) {
+        Set<String> terms = documentTerms.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Long, Float> docs = postings.get(term);
+            if (docs != null) {
+                docs.remove(productId);
+                if (docs.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+
+        Set<String> fuzzyTerms = documentFuzzyTerms.remove(productId);
+        if (fuzzyTerms == null) {
+            return;
+        }
+        for (String term : fuzzyTerms) {
+            if (fuzzyTermCounts.merge(term, -1, Integer::sum) <= 0) {
+                fuzzyTermCounts.remove(term);
+                for (String trigram : trigrams(term)) {
+                    Set<String> termsWithTrigram = trigramTerms.get(trigram);
+                    if (termsWithTrigram != null) {
+                        termsWithTrigram.remove(term);
+                        if (termsWithTrigram.isEmpty()) {
+                            trigramTerms.remove(trigram);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private Map<String, Float> extractTermWeights(Product product) {
+        Map<String, Float> weights = new HashMap<>();
+        addField(weights, product.getProductname(), NAME_WEIGHT, true);
+        addField(weights, product.getModel(), MODEL_WEIGHT, true);
+        addField(weights, product.getDescription(), DESCRIPTION_WEIGHT, false);
+        if (product.getBrandcars() != null) {
+            addField(weights, product.getBrandcars().getBrand(), BRAND_WEIGHT, true);
+        }
+        if (product.getBrandbattery() != null) {
+            addField(weights, product.getBrandbattery().getBrand(), BRAND_WEIGHT, true);
+        }
+        return weights;
+    }
+
+    // Term của tên/model/hãng (kể cả dạng ghép) - mô tả không đưa vào từ điển gần đúng để giới hạn số ứng viên
+    private Set<String> extractFuzzyTerms(Product product) {
+        Set<String> terms = new HashSet<>();
+        terms.addAll(withJoinedTokens(SearchTextUtils.tokenize(product.getProductname())));
+        terms.addAll(withJoinedTokens(SearchTextUtils.tokenize(product.getModel())));
+        if (product.getBrandcars() != null) {
+            terms.addAll(withJoinedTokens(SearchTextUtils.tokenize(product.getBrandcars().getBrand())));
+        }
+        if (product.getBrandbattery() != null) {
+            terms.addAll(withJoinedTokens(SearchTextUtils.tokenize(product.getBrandbattery().getBrand())));
+        }
+        return terms;
+    }
+
+    private void addField(Map<String, Float> weights, String text, float fieldWeight, boolean joinTokens) {
+        List<String> tokens = SearchTextUtils.tokenize(text);
+        Set<String> seen = new HashSet<>();
+        for (String token : joinTokens ? withJoinedTokens(tokens) : tokens) {
+            // Mỗi field chỉ tính 1 lần cho mỗi term để mô tả dài không lấn át tên sản phẩm
+            if (seen.add(token)) {
+                weights.merge(token, fieldWeight, Float::sum);
+            }
+        }
+    }
+
+    // Token gốc + dạng ghép của cặp token liền kề ngắn/có số: "vf 8 plus" -> vf, 8, plus, vf8
+    private List<String> withJoinedTokens(List<String> tokens) {
+        List<String> result = new ArrayList<>(tokens);
+        for (int i = 0; i + 1 < tokens.size(); i++) {
+            String left = tokens.get(i);
+            String right = tokens.get(i + 1);
+            if (isJoinable(left) || isJoinable(right)) {
+                result.add(left + right);
+            }
+        }
+        return result;
+    }
+
+    private boolean isJoinable(String token) {
+        return token.length() <= MAX_JOIN_TOKEN_LENGTH || token.chars().anyMatch(Character::isDigit);
+    }
+}
@@ -1,6 +1,13 @@
 package com.project.tradingev_batter.Service;
 
 import com.project.tradingev_batter.Entity.Product;
+import com.project.tradingev_batter.Entity.SellerRating;
+import com.project.tradingev_batter.dto.CursorPage;
+import com.project.tradingev_batter.dto.ProductCardDTO;
+import com.project.tradingev_batter.dto.ProductFields;
+import com.project.tradingev_batter.dto.ProductFilter;
+import com.project.tradingev_batter.enums.ProductStatus;
+import org.springframework.data.domain.Page;
 
 import java.util.List;
 import java.util.Map;
@@ -10,22 +17,37 @@ public interface ProductService {
     
     // Guest features
     List<Product> getAllActiveProducts(); // Chỉ lấy sản phẩm đang active và đã duyệt
+    Page<ProductCardDTO> getProductCardsForSale(String type, int page, int size, ProductFields fields); // DANG_BAN, thẻ sản phẩm, phân trang tại DB
+    CursorPage<ProductCardDTO> getProductCardsForSale(String type, String sort, String cursor, int size, ProductFields fields); // DANG_BAN, keyset pagination
+    List<ProductCardDTO> getProductCardsBySeller(Long sellerId, ProductStatus status, ProductFields fields); // thẻ sản phẩm của seller theo status
     
     Product getProductById(Long id);
     Product createProduct(Product product);
     Product updateProduct(Long id, Product product);
     void deleteProduct(Long id);
     
-    List<Product> searchAndFilterProducts(String type, String brand, Integer yearMin, Integer yearMax,
-                                          Double capacityMin, Double capacityMax, String status, 
-                                          Double priceMin, Double priceMax);
+    // Lọc theo ProductFilter - chỉ sinh điều kiện cho field được truyền (xem ProductSpecifications)
+    List<Product> filterProducts(ProductFilter filter);
     
     List<Product> getProductsBySeller(Long sellerId);
+    CursorPage<Product> getProductsBySeller(Long sellerId, String sort, String cursor, int size); // keyset pagination
+
+    // Tìm kiếm keyword qua inverted index - chỉ trả về sản phẩm DANG_BAN, xếp hạng theo độ liên quan
+    List<Product> searchProductsByKeyword(String keyword);
+    // Top `limit` sản phẩm theo điểm tổng hợp (liên quan, lượt xem, độ mới, rating seller, đã kiểm định)
+    List<Product> rankProducts(List<Product> matches, String keyword, Map<Long, SellerRating> sellerRatings, int limit);
+
+    // Đếm facet (loại, hãng, năm, tình trạng, khoảng giá) cho tổ hợp filter hiện tại - không truy vấn DB
+    Map<String, Object> getSearchFacets(String keyword, String type, String brand, Integer minYear, Integer maxYear,
+                                        Double minPrice, Double maxPrice, String condition);
     
     // Helper methods cho Guest
     List<String> getBrandsByType(String type);
+    Map<String, Integer> getBrandCountsByType(String type); // Hãng -> số tin đang bán
+    List<Map<String, Object>> suggestProducts(String prefix, int limit); // Gợi ý typeahead cho ô tìm kiếm
+    List<ProductCardDTO> getSimilarProducts(Long productId, int limit); // Tin tương tự cho trang chi tiết
     Map<String, Object> getPublicStatistics();
 
     // View tracking - Tăng viewCount khi user xem sản phẩm
-    void incrementViewCount(Long productId);
+    int incrementViewCount(Long productId); // Trả về viewCount mới
 }
@@ -3,20 +3,32 @@ package com.project.tradingev_batter.Service;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.project.tradingev_batter.Entity.Product;
+import com.project.tradingev_batter.Entity.SellerRating;
 import com.project.tradingev_batter.Entity.User;
 import com.project.tradingev_batter.Entity.product_img;
 import com.project.tradingev_batter.Repository.ProductRepository;
+import com.project.tradingev_batter.dto.CursorPage;
+import com.project.tradingev_batter.dto.ProductCardDTO;
+import com.project.tradingev_batter.dto.ProductFields;
+import com.project.tradingev_batter.dto.ProductFilter;
+import com.project.tradingev_batter.enums.ProductSort;
 import com.project.tradingev_batter.enums.ProductStatus;
+import com.project.tradingev_batter.event.ProductChangedEvent;
 
 @Service
 public class ProductServiceImpl implements ProductService {
@@ -24,11 +36,35 @@ public class ProductServiceImpl implements ProductService {
     private final ProductRepository productRepository;
     private final UserService userService;
     private final ImageUploadService imageUploadService;
-
-    public ProductServiceImpl(ProductRepository productRepository, UserService userService, ImageUploadService imageUploadService) {
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final ProductCardQuery productCardQuery;
+    private final MarketplaceStatsIndex marketplaceStatsIndex;
+    private final BrandDictionaryIndex brandDictionaryIndex;
+    private final ProductSuggestIndex productSuggestIndex;
+    private final ProductSimilarityIndex productSimilarityIndex;
+    private final ViewCountBuffer viewCountBuffer;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ProductServiceImpl(ProductRepository productRepository, UserService userService, ImageUploadService imageUploadService,
+                              ProductSearchIndex productSearchIndex, ProductFacetIndex productFacetIndex,
+                              ProductCardQuery productCardQuery, MarketplaceStatsIndex marketplaceStatsIndex,
+                              BrandDictionaryIndex brandDictionaryIndex, ProductSuggestIndex productSuggestIndex,
+                              ProductSimilarityIndex productSimilarityIndex,
+                              ViewCountBuffer viewCountBuffer,
+                              ApplicationEventPublisher eventPublisher) {
         this.userService = userService;
         this.productRepository = productRepository;
         this.imageUploadService = imageUploadService;
+        this.productSearchIndex = productSearchIndex;
+        this.productFacetIndex = productFacetIndex;
+        this.productCardQuery = productCardQuery;
+        this.marketplaceStatsIndex = marketplaceStatsIndex;
+        this.brandDictionaryIndex = brandDictionaryIndex;
+        this.productSuggestIndex = productSuggestIndex;
+        this.productSimilarityIndex = productSimilarityIndex;
+        this.viewCountBuffer = viewCountBuffer;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -53,6 +89,57 @@ public class ProductServiceImpl implements ProductService {
                 .collect(Collectors.toList());
     }
 
+    //Danh sách thẻ sản phẩm đang bán cho Guest - lọc status/type và phân trang ngay trong DB
+    //Select thẳng vào ProductCardDTO (1 câu SQL/trang) + 1 câu COUNT để tính tổng
+    @Override
+    @Transactional(readOnly = true)
+    public Page<ProductCardDTO> getProductCardsForSale(String type, int page, int size, ProductFields fields) {
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.max(size, 1), Sort.by("productid"));
+        Specification<Product> spec = forSale(type);
+        List<ProductCardDTO> cards = productCardQuery.find(spec, pageable.getSort(),
+                (int) pageable.getOffset(), pageable.getPageSize(), fields);
+        cards.forEach(fields::strip);
+        return new PageImpl<>(cards, pageable, productCardQuery.count(spec));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ProductCardDTO> getProductCardsForSale(String type, String sort, String cursor, int size, ProductFields fields) {
+        ProductSort productSort = ProductSort.fromParam(sort);
+        int pageSize = Math.max(size, 1);
+        Specification<Product> spec = forSale(type);
+        if (cursor != null && !cursor.isBlank()) {
+            spec = spec.and(ProductCursor.decode(cursor, productSort).toSpecification());
+        }
+        List<ProductCardDTO> rows = productCardQuery.find(spec, ProductCursor.sortOf(productSort), 0, pageSize + 1, fields);
+        CursorPage<ProductCardDTO> result = ProductCursor.toPage(rows, pageSize, card -> ProductCursor.after(productSort, card));
+        // Cursor đã tính từ createdat/cost => giờ mới xóa các field không được chọn
+        result.getItems().forEach(fields::strip);
+        return result;
+    }
+
+    //Thẻ sản phẩm của 1 seller (trang shop) - cùng projection với trang danh sách, không load entity
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductCardDTO> getProductCardsBySeller(Long sellerId, ProductStatus status, ProductFields fields) {
+        Specification<Product> spec = (root, query, cb) -> cb.equal(root.get("users").get("userid"), sellerId);
+        if (status != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("status"), status));
+        }
+        List<ProductCardDTO> cards = productCardQuery.find(spec, Sort.by(Sort.Direction.DESC, "productid"),
+                0, Integer.MAX_VALUE, fields);
+        cards.forEach(fields::strip);
+        return cards;
+    }
+
+    private Specification<Product> forSale(String type) {
+        Specification<Product> spec = (root, query, cb) -> cb.equal(root.get("status"), ProductStatus.DANG_BAN);
+        if (type != null && !type.isEmpty()) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("type"), type));
+        }
+        return spec;
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Product getProductById(Long id) {
@@ -74,7 +161,9 @@ public class ProductServiceImpl implements ProductService {
         product.setCreatedat(new Date());
         product.setStatus(ProductStatus.CHO_DUYET); // Mặc định chờ duyệt
         product.setInWarehouse(false);
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(saved.getProductid()));
+        return saved;
     }
 
     @Override
@@ -90,7 +179,9 @@ public class ProductServiceImpl implements ProductService {
         product.setType(updatedProduct.getType());
         product.setSpecs(updatedProduct.getSpecs());
         product.setUpdatedat(new Date());
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(id));
+        return saved;
     }
 
     @Override
@@ -139,6 +230,7 @@ public class ProductServiceImpl implements ProductService {
         }
 
         productRepository.deleteById(id);
+        eventPublisher.publishEvent(new ProductChangedEvent(id));
     }
 
     //Helper method: Extract public_id từ Cloudinary URL
@@ -174,11 +266,9 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
-    public List<Product> searchAndFilterProducts(String type, String brand, Integer yearMin, Integer yearMax,
-            Double capacityMin, Double capacityMax, String status,
-            Double priceMin, Double priceMax) {
-        return productRepository.findByFilters(type, brand, yearMin, yearMax,
-                capacityMin, capacityMax, status, priceMin, priceMax);
+    @Transactional(readOnly = true)
+    public List<Product> filterProducts(ProductFilter filter) {
+        return productRepository.findAll(ProductSpecifications.of(filter), Sort.by("productid"));
     }
 
     @Override
@@ -187,86 +277,112 @@ public class ProductServiceImpl implements ProductService {
         return productRepository.findByUsers(seller);
     }
 
-    //Lấy danh sách hãng theo loại sản phẩm
     @Override
-    public List<String> getBrandsByType(String type) {
-        List<Product> products = productRepository.findAll();
-        Set<String> brands = new HashSet<>();
+    @Transactional(readOnly = true)
+    public CursorPage<Product> getProductsBySeller(Long sellerId, String sort, String cursor, int size) {
+        Specification<Product> spec = (root, query, cb) -> cb.equal(root.get("users").get("userid"), sellerId);
+        return findPageAfter(spec, ProductSort.fromParam(sort), cursor, size);
+    }
 
-        for (Product p : products) {
-            if (type == null || type.equals(p.getType())) {
-                if (p.getBrandcars() != null && p.getBrandcars().getBrand() != null) {
-                    brands.add(p.getBrandcars().getBrand());
-                }
-                if (p.getBrandbattery() != null && p.getBrandbattery().getBrand() != null) {
-                    brands.add(p.getBrandbattery().getBrand());
-                }
+    //Keyset pagination: WHERE <điều kiện> AND (khóa sắp xếp) > cursor ORDER BY khóa LIMIT size + 1
+    //Không dùng OFFSET, không COUNT => mỗi trang tốn như nhau
+    private CursorPage<Product> findPageAfter(Specification<Product> spec, ProductSort sort, String cursor, int size) {
+        int pageSize = Math.max(size, 1);
+        if (cursor != null && !cursor.isBlank()) {
+            spec = spec.and(ProductCursor.decode(cursor, sort).toSpecification());
+        }
+        List<Product> rows = productRepository.findBy(spec,
+                q -> q.sortBy(ProductCursor.sortOf(sort)).limit(pageSize + 1).all());
+        return ProductCursor.toPage(rows, pageSize, product -> ProductCursor.after(sort, product));
+    }
+
+    //Tìm kiếm keyword: tra inverted index rồi chỉ load các sản phẩm khớp, giữ nguyên thứ tự xếp hạng
+    @Override
+    @Transactional(readOnly = true)
+    public List<Product> searchProductsByKeyword(String keyword) {
+        List<Long> rankedIds = productSearchIndex.search(keyword);
+        if (rankedIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, Product> productsById = new HashMap<>();
+        for (Product product : productRepository.findAllById(rankedIds)) {
+            productsById.put(product.getProductid(), product);
+        }
+
+        List<Product> result = new ArrayList<>(rankedIds.size());
+        for (Long productId : rankedIds) {
+            Product product = productsById.get(productId);
+            // Index cập nhật sau commit nên kiểm tra lại status để chắc chắn
+            if (product != null && ProductStatus.DANG_BAN.equals(product.getStatus())) {
+                result.add(product);
             }
         }
+        return result;
+    }
 
-        return new ArrayList<>(brands);
+    //Điểm văn bản lấy lại từ inverted index (không chạm DB), các tín hiệu khác lấy từ entity đã load
+    @Override
+    public List<Product> rankProducts(List<Product> matches, String keyword, Map<Long, SellerRating> sellerRatings, int limit) {
+        Map<Long, Double> textScores = keyword != null && !keyword.isBlank()
+                ? productSearchIndex.score(keyword)
+                : new HashMap<>();
+        return ProductRanker.topK(matches, textScores, sellerRatings, limit);
     }
 
-    //Lấy thống kê công khai cho Guest
+    @Override
+    public Map<String, Object> getSearchFacets(String keyword, String type, String brand, Integer minYear, Integer maxYear,
+                                               Double minPrice, Double maxPrice, String condition) {
+        // Có keyword thì chỉ đếm trong tập sản phẩm khớp keyword
+        Iterable<Long> keywordMatches = (keyword != null && !keyword.isBlank())
+                ? productSearchIndex.score(keyword).keySet()
+                : null;
+        return productFacetIndex.countFacets(keywordMatches, type, brand, minYear, maxYear, minPrice, maxPrice, condition);
+    }
+
+    //Lấy danh sách hãng theo loại sản phẩm - đọc từ BrandDictionaryIndex, không quét bảng products
+    @Override
+    public List<String> getBrandsByType(String type) {
+        return brandDictionaryIndex.getBrands(normalizeType(type));
+    }
+
+    @Override
+    public Map<String, Integer> getBrandCountsByType(String type) {
+        return brandDictionaryIndex.getBrandCounts(normalizeType(type));
+    }
+
+    //Typeahead: đọc từ ProductSuggestIndex (prefix trie), không chạm DB
+    @Override
+    public List<Map<String, Object>> suggestProducts(String prefix, int limit) {
+        return productSuggestIndex.suggest(prefix, limit);
+    }
+
+    //Tin tương tự: list láng giềng đã tính sẵn trong ProductSimilarityIndex, không chạm DB
+    @Override
+    public List<ProductCardDTO> getSimilarProducts(Long productId, int limit) {
+        return productSimilarityIndex.similarTo(productId, limit);
+    }
+
+    private String normalizeType(String type) {
+        return type == null || type.isBlank() ? null : type;
+    }
+
+    //Lấy thống kê công khai cho Guest - đọc từ MarketplaceStatsIndex (cập nhật theo event), không quét DB
     @Override
     public Map<String, Object> getPublicStatistics() {
-        List<Product> activeProducts = getAllActiveProducts();
-
-        long totalCars = activeProducts.stream()
-                .filter(p -> "Car EV".equals(p.getType()))
-                .count();
-
-        long totalBatteries = activeProducts.stream()
-                .filter(p -> "Battery".equals(p.getType()))
-                .count();
-
-        // Tính giá trung bình
-        double avgPrice = activeProducts.stream()
-                .mapToDouble(Product::getCost)
-                .average()
-                .orElse(0.0);
-
-        // Tìm giá thấp nhất và cao nhất
-        double minPrice = activeProducts.stream()
-                .mapToDouble(Product::getCost)
-                .min()
-                .orElse(0.0);
-
-        double maxPrice = activeProducts.stream()
-                .mapToDouble(Product::getCost)
-                .max()
-                .orElse(0.0);
-
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("totalProducts", activeProducts.size());
-        stats.put("totalCars", totalCars);
-        stats.put("totalBatteries", totalBatteries);
-        stats.put("averagePrice", avgPrice);
-        stats.put("priceRange", Map.of("min", minPrice, "max", maxPrice));
-        stats.put("lastUpdated", new Date());
-
-        return stats;
+        return marketplaceStatsIndex.getStatistics();
     }
 
     // VIEW TRACKING - Tăng viewCount khi user/guest xem sản phẩm
     // Mỗi lần gọi API này, viewCount sẽ tăng lên 1
     // Frontend nên gọi API này khi user vào trang chi tiết sản phẩm
+    // Write-behind: chỉ cộng vào ViewCountBuffer, DB được cập nhật theo batch định kỳ
+    // Không load Product, không ghi cả row và không đổi updatedat
     @Override
-    @Transactional
-    public void incrementViewCount(Long productId) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
-
-        // Tăng viewCount lên 1
-        Integer currentViewCount = product.getViewCount();
-        if (currentViewCount == null) {
-            currentViewCount = 0;
-        }
-        product.setViewCount(currentViewCount + 1);
-
-        // Cập nhật updatedat
-        product.setUpdatedat(new Date());
-
-        productRepository.save(product);
+    public int incrementViewCount(Long productId) {
+        long total = viewCountBuffer.record(productId, () -> productRepository.findViewCountById(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId))
+                .longValue());
+        return (int) total;
     }
 }
@@ -0,0 +1,261 @@
+package com.project.tradingev_batter.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.springframework.stereotype.Service;
+
+import com.project.tradingev_batter.Entity.Product;
+import com.project.tradingev_batter.dto.ProductCardDTO;
+import com.project.tradingev_batter.enums.ProductStatus;
+
+//"Tin tương tự" cho trang chi tiết: k láng giềng gần nhất (xấp xỉ) theo đặc trưng của tin đang bán (DANG_BAN)
+//- Đặc trưng: loại, hãng, năm, giá (log), odo (xe), dung lượng/dung lượng còn lại (pin)
+//- ANN kiểu lưới: tin được chia ô theo (loại, bậc giá, bậc năm); ứng viên chỉ lấy từ ô của nó và 8 ô kề, tối đa MAX_CANDIDATES
+//- Danh sách láng giềng được tính sẵn và cập nhật tăng dần khi có tin thay đổi => trang chi tiết chỉ đọc 1 list, O(1)
+@Service
+public class ProductSimilarityIndex implements ProductIndex {
+
+    public static final int NEIGHBOURS = 8;
+    private static final int MAX_CANDIDATES = 300;
+
+    // Bậc giá: mỗi ô rộng gấp 1.5 lần ô trước; bậc năm: 3 năm
+    private static final double PRICE_BUCKET_RATIO = Math.log(1.5);
+    private static final int YEAR_BUCKET = 3;
+
+    // Thang chuẩn hóa: chênh lệch bằng các giá trị này được tính là 1 đơn vị khoảng cách
+    private static final double PRICE_SCALE = Math.log(2);   // giá gấp đôi
+    private static final double YEAR_SCALE = 3;
+    private static final double ODO_SCALE = 50_000;
+    private static final double CAPACITY_SCALE = 20;
+    private static final double REMAINING_SCALE = 20;
+    private static final double BRAND_MISMATCH = 1.0;
+
+    private final Map<Long, Listing> listings = new HashMap<>();
+    private final Map<Cell, Set<Listing>> cells = new HashMap<>();
+
+    @Override
+    public synchronized void upsert(Product product) {
+        removeInternal(product.getProductid());
+        if (!ProductStatus.DANG_BAN.equals(product.getStatus()) || product.getType() == null) {
+            return;
+        }
+
+        Listing listing = new Listing(product);
+        // Láng giềng của tin mới + đưa tin mới vào list của các tin gần nó nếu gần hơn láng giềng xa nhất
+        for (Listing candidate : candidatesOf(listing)) {
+            double distance = distance(listing, candidate);
+            listing.offer(candidate, distance);
+            candidate.offer(listing, distance);
+        }
+        listings.put(listing.productId, listing);
+        cells.computeIfAbsent(listing.cell, c -> new HashSet<>()).add(listing);
+    }
+
+    @Override
+    public synchronized void remove(long productId) {
+        removeInternal(productId);
+    }
+
+    @Override
+    public synchronized void clear() {
+        listings.clear();
+        cells.clear();
+    }
+
+    //Thẻ các tin tương tự (đã sắp gần nhất trước); rỗng nếu sản phẩm không còn bán
+    public synchronized List<ProductCardDTO> similarTo(long productId, int limit) {
+        Listing listing = listings.get(productId);
+        List<ProductCardDTO> result = new ArrayList<>();
+        if (listing == null) {
+            return result;
+        }
+        for (Neighbour neighbour : listing.neighbours) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(neighbour.listing.card);
+        }
+        return result;
+    }
+
+    // =============== HELPER METHODS ==================================================================================
+
+    private void removeInternal(long productId) {
+        Listing removed = listings.remove(productId);
+        if (removed == null) {
+            return;
+        }
+        Set<Listing> cell = cells.get(removed.cell);
+        if (cell != null) {
+            cell.remove(removed);
+            if (cell.isEmpty()) {
+                cells.remove(removed.cell);
+            }
+        }
+        // Các tin đang coi tin bị xóa là láng giềng => tính lại list của chúng
+        for (Listing other : new ArrayList<>(removed.referencedBy)) {
+            other.neighbours.removeIf(n -> n.listing == removed);
+            other.neighbours.forEach(n -> n.listing.referencedBy.remove(other));
+            other.neighbours.clear();
+            for (Listing candidate : candidatesOf(other)) {
+                if (candidate != other) {
+                    other.offer(candidate, distance(other, candidate));
+                }
+            }
+        }
+        for (Neighbour neighbour : removed.neighbours) {
+            neighbour.listing.referencedBy.remove(removed);
+        }
+    }
+
+    // Ứng viên: cùng loại, ô hiện tại + 8 ô kề theo (bậc giá, bậc năm), ô gần nhất được duyệt trước
+    private List<Listing> candidatesOf(Listing listing) {
+        List<Listing> candidates = new ArrayList<>();
+        for (int ring = 0; ring <= 1 && candidates.size() < MAX_CANDIDATES; ring++) {
+            for (int dp = -ring; dp <= ring; dp++) {
+                for (int dy = -ring; dy <= ring; dy++) {
+                    if (Math.max(Math.abs(dp), Math.abs(dy)) != ring) {
+                        continue;
+                    }
+                    Set<Listing> cell = cells.get(new Cell(listing.type, listing.cell.priceBucket + dp, listing.cell.yearBucket + dy));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (Listing candidate : cell) {
+                        if (candidates.size() >= MAX_CANDIDATES) {
+                            return candidates;
+                        }
+                        if (candidate.productId != listing.productId) {
+                            candidates.add(candidate);
+                        }
+                    }
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private double distance(Listing a, Listing b) {
+        double d = square((a.logPrice - b.logPrice) / PRICE_SCALE) + square((a.year - b.year) / YEAR_SCALE);
+        if (a.brandKey.isEmpty() || !a.brandKey.equals(b.brandKey)) {
+            d += BRAND_MISMATCH;
+        }
+        if (ProductSpecifications.TYPE_CAR.equals(a.type)) {
+            d += square((a.odo - b.odo) / ODO_SCALE);
+        } else if (ProductSpecifications.TYPE_BATTERY.equals(a.type)) {
+            d += square((a.capacity - b.capacity) / CAPACITY_SCALE) + square((a.remaining - b.remaining) / REMAINING_SCALE);
+        }
+        return d;
+    }
+
+    private static double square(double value) {
+        return value * value;
+    }
+
+    private static final class Listing {
+        private final long productId;
+        private final String type;
+        private final String brandKey;
+        private final double logPrice;
+        private final int year;
+        private final double odo;
+        private final double capacity;
+        private final double remaining;
+        private final Cell cell;
+        private final ProductCardDTO card;
+        // Láng giềng gần nhất, sắp theo khoảng cách tăng dần (tối đa NEIGHBOURS)
+        private final List<Neighbour> neighbours = new ArrayList<>(NEIGHBOURS + 1);
+        // Các tin đang giữ tin này trong list láng giềng
+        private final Set<Listing> referencedBy = new HashSet<>();
+
+        private Listing(Product product) {
+            this.productId = product.getProductid();
+            this.type = product.getType();
+            String brand = null;
+            int productYear = 0;
+            double productCapacity = 0;
+            if (product.getBrandcars() != null) {
+                brand = product.getBrandcars().getBrand();
+                productYear = product.getBrandcars().getYear();
+                productCapacity = product.getBrandcars().getCapacity();
+                this.odo = product.getBrandcars().getOdo();
+            } else {
+                this.odo = 0;
+            }
+            if (product.getBrandbattery() != null) {
+                brand = product.getBrandbattery().getBrand();
+                productYear = product.getBrandbattery().getYear();
+                productCapacity = product.getBrandbattery().getCapacity();
+                this.remaining = product.getBrandbattery().getRemaining();
+            } else {
+                this.remaining = 0;
+            }
+            this.brandKey = SearchTextUtils.fold(brand).trim();
+            this.year = productYear;
+            this.capacity = productCapacity;
+            this.logPrice = Math.log(Math.max(1.0, product.getCost()));
+            this.cell = new Cell(type, (int) Math.floor(logPrice / PRICE_BUCKET_RATIO), Math.floorDiv(productYear, YEAR_BUCKET));
+            this.card = ProductCardDTO.from(product);
+        }
+
+        // Thêm ứng viên vào list nếu list chưa đủ hoặc ứng viên gần hơn láng giềng xa nhất
+        private void offer(Listing candidate, double distance) {
+            if (neighbours.size() >= NEIGHBOURS && distance >= neighbours.get(neighbours.size() - 1).distance) {
+                return;
+            }
+            neighbours.add(new Neighbour(candidate, distance));
+            neighbours.sort(Comparator.comparingDouble(n -> n.distance));
+            candidate.referencedBy.add(this);
+            if (neighbours.size() > NEIGHBOURS) {
+                Neighbour evicted = neighbours.remove(neighbours.size() - 1);
+                evicted.listing.referencedBy.remove(this);
+            }
+        }
+    }
+
+    private static final class Neighbour {
+        private final Listing listing;
+        private final double distance;
+
+        private Neighbour(Listing listing, double distance) {
+            this.listing = listing;
+            this.distance = distance;
+        }
+    }
+
+    private static final class Cell {
+        private final String type;
+        private final int priceBucket;
+        private final int yearBucket;
+
+        private Cell(String type, int priceBucket, int yearBucket) {
+            this.type = type;
+            this.priceBucket = priceBucket;
+            this.yearBucket = yearBucket;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Cell)) {
+                return false;
+            }
+            Cell other = (Cell) o;
+            return priceBucket == other.priceBucket && yearBucket == other.yearBucket && Objects.equals(type, other.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, priceBucket, yearBucket);
+        }
+    }
+}
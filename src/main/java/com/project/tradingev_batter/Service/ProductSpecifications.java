@@ -0,0 +1,198 @@
+package com.project.tradingev_batter.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.project.tradingev_batter.Entity.Brandbattery;
+import com.project.tradingev_batter.Entity.Brandcars;
+import com.project.tradingev_batter.Entity.Product;
+import com.project.tradingev_batter.dto.ProductFilter;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+
+//Engine lọc sản phẩm: dựng Specification chỉ từ các điều kiện thực sự được truyền
+//- Không có ":x IS NULL OR ..." => optimizer dùng được index (status, type, cost), (brand, year)...
+//- Chỉ join bảng cần thiết: biết loại (type, hoặc suy ra từ filter chỉ dành cho xe/pin) thì INNER JOIN đúng 1 bảng
+//- Chỉ khi lọc hãng/năm/dung lượng mà không biết loại mới phải OR qua cả brandcars và brandbatteries
+public final class ProductSpecifications {
+
+    public static final String TYPE_CAR = "Car EV";
+    public static final String TYPE_BATTERY = "Battery";
+
+    private ProductSpecifications() {
+    }
+
+    public static Specification<Product> of(ProductFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (filter.getStatus() != null) {
+                predicates.add(cb.equal(root.get("status"), filter.getStatus()));
+            }
+            if (filter.getSellerId() != null) {
+                predicates.add(cb.equal(root.get("users").get("userid"), filter.getSellerId()));
+            }
+            range(predicates, cb, root.<Double>get("cost"), filter.getPriceMin(), filter.getPriceMax());
+
+            String type = effectiveType(filter);
+            if (type == null && filter.hasCarOnlyFilter() && filter.hasBatteryOnlyFilter()) {
+                // Vừa lọc odo (xe) vừa lọc voltage/remaining (pin) => không sản phẩm nào thỏa
+                return cb.disjunction();
+            }
+            if (type != null) {
+                predicates.add(cb.equal(root.get("type"), type));
+            }
+
+            if (TYPE_CAR.equals(type)) {
+                if (filter.hasBatteryOnlyFilter()) {
+                    return cb.disjunction();
+                }
+                if (filter.hasSharedSpecFilter() || filter.hasCarOnlyFilter()) {
+                    Join<Product, Brandcars> car = root.join("brandcars", JoinType.INNER);
+                    predicates.addAll(specPredicates(cb, car, filter));
+                    range(predicates, cb, car.<Double>get("odo"), filter.getOdoMin(), filter.getOdoMax());
+                }
+            } else if (TYPE_BATTERY.equals(type)) {
+                if (filter.hasCarOnlyFilter()) {
+                    return cb.disjunction();
+                }
+                if (filter.hasSharedSpecFilter() || filter.hasBatteryOnlyFilter()) {
+                    Join<Product, Brandbattery> battery = root.join("brandbattery", JoinType.INNER);
+                    predicates.addAll(specPredicates(cb, battery, filter));
+                    predicates.addAll(batteryOnlyPredicates(cb, battery, filter));
+                }
+            } else if (type != null) {
+                // Loại khác không có bảng thông số => mọi filter thông số đều không thỏa
+                if (filter.hasSharedSpecFilter() || filter.hasCarOnlyFilter() || filter.hasBatteryOnlyFilter()) {
+                    return cb.disjunction();
+                }
+            } else if (filter.hasSharedSpecFilter()) {
+                Join<Product, Brandcars> car = root.join("brandcars", JoinType.LEFT);
+                Join<Product, Brandbattery> battery = root.join("brandbattery", JoinType.LEFT);
+                predicates.add(cb.or(
+                        cb.and(specPredicates(cb, car, filter).toArray(new Predicate[0])),
+                        cb.and(specPredicates(cb, battery, filter).toArray(new Predicate[0]))));
+            }
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    //Phiên bản in-memory của of(): cùng ngữ nghĩa, dùng cho danh sách đã load sẵn (vd kết quả keyword search)
+    public static boolean matches(ProductFilter filter, Product product) {
+        if (filter.getStatus() != null && filter.getStatus() != product.getStatus()) {
+            return false;
+        }
+        if (filter.getSellerId() != null
+                && (product.getUsers() == null || !filter.getSellerId().equals(product.getUsers().getUserid()))) {
+            return false;
+        }
+        if (!inRange(product.getCost(), filter.getPriceMin(), filter.getPriceMax())) {
+            return false;
+        }
+
+        String type = effectiveType(filter);
+        if (type == null && filter.hasCarOnlyFilter() && filter.hasBatteryOnlyFilter()) {
+            return false;
+        }
+        if (type != null && !type.equals(product.getType())) {
+            return false;
+        }
+
+        Brandcars car = TYPE_CAR.equals(product.getType()) ? product.getBrandcars() : null;
+        Brandbattery battery = TYPE_BATTERY.equals(product.getType()) ? product.getBrandbattery() : null;
+
+        if (filter.hasCarOnlyFilter()
+                && (car == null || !inRange(car.getOdo(), filter.getOdoMin(), filter.getOdoMax()))) {
+            return false;
+        }
+        if (filter.hasBatteryOnlyFilter() && (battery == null || !matchesBatteryOnly(filter, battery))) {
+            return false;
+        }
+        if (filter.hasSharedSpecFilter()) {
+            if (car != null) {
+                return matchesSpec(filter, car.getBrand(), car.getYear(), car.getCapacity());
+            }
+            if (battery != null) {
+                return matchesSpec(filter, battery.getBrand(), battery.getYear(), battery.getCapacity());
+            }
+            return false;
+        }
+        return true;
+    }
+
+    // =============== HELPER METHODS ==================================================================================
+
+    // Loại sản phẩm: lấy từ filter, hoặc suy ra khi chỉ có filter dành riêng cho xe / riêng cho pin
+    private static String effectiveType(ProductFilter filter) {
+        if (filter.getType() != null && !filter.getType().isBlank()) {
+            return filter.getType();
+        }
+        if (filter.hasCarOnlyFilter() && !filter.hasBatteryOnlyFilter()) {
+            return TYPE_CAR;
+        }
+        if (filter.hasBatteryOnlyFilter() && !filter.hasCarOnlyFilter()) {
+            return TYPE_BATTERY;
+        }
+        return null;
+    }
+
+    // Hãng / năm / dung lượng - brandcars và brandbatteries có cùng tên cột
+    private static List<Predicate> specPredicates(CriteriaBuilder cb, From<?, ?> spec, ProductFilter filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getBrand() != null && !filter.getBrand().isBlank()) {
+            predicates.add(cb.equal(spec.get("brand"), filter.getBrand().trim()));
+        }
+        range(predicates, cb, spec.<Integer>get("year"), filter.getYearMin(), filter.getYearMax());
+        range(predicates, cb, spec.<Double>get("capacity"), filter.getCapacityMin(), filter.getCapacityMax());
+        return predicates;
+    }
+
+    private static List<Predicate> batteryOnlyPredicates(CriteriaBuilder cb, From<?, ?> battery, ProductFilter filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getCondition() != null && !filter.getCondition().isBlank()) {
+            predicates.add(cb.equal(battery.get("condition"), filter.getCondition().trim()));
+        }
+        range(predicates, cb, battery.<Double>get("voltage"), filter.getVoltageMin(), filter.getVoltageMax());
+        range(predicates, cb, battery.<Double>get("remaining"), filter.getRemainingMin(), filter.getRemainingMax());
+        return predicates;
+    }
+
+    private static <N extends Comparable<? super N>> void range(List<Predicate> predicates, CriteriaBuilder cb,
+                                                                Path<N> path, N min, N max) {
+        if (min != null) {
+            predicates.add(cb.greaterThanOrEqualTo(path, min));
+        }
+        if (max != null) {
+            predicates.add(cb.lessThanOrEqualTo(path, max));
+        }
+    }
+
+    private static boolean matchesSpec(ProductFilter filter, String brand, int year, double capacity) {
+        if (filter.getBrand() != null && !filter.getBrand().isBlank() && !filter.getBrand().trim().equalsIgnoreCase(brand)) {
+            return false;
+        }
+        return inRange(year, filter.getYearMin(), filter.getYearMax())
+                && inRange(capacity, filter.getCapacityMin(), filter.getCapacityMax());
+    }
+
+    private static boolean matchesBatteryOnly(ProductFilter filter, Brandbattery battery) {
+        if (filter.getCondition() != null && !filter.getCondition().isBlank()
+                && !filter.getCondition().trim().equalsIgnoreCase(battery.getCondition())) {
+            return false;
+        }
+        return inRange(battery.getVoltage(), filter.getVoltageMin(), filter.getVoltageMax())
+                && inRange(battery.getRemaining(), filter.getRemainingMin(), filter.getRemainingMax());
+    }
+
+    private static boolean inRange(double value, Number min, Number max) {
+        return (min == null || value >= min.doubleValue()) && (max == null || value <= max.doubleValue());
+    }
+}
@@ -0,0 +1,284 @@
+package com.project.tradingev_batter.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.stereotype.Service;
+
+import com.project.tradingev_batter.Entity.Product;
+import com.project.tradingev_batter.enums.ProductStatus;
+
+//Prefix trie cho ô tìm kiếm (typeahead): gợi ý hãng, model, tên sản phẩm của các tin đang bán (DANG_BAN)
+//- Mỗi gợi ý (term) được gắn vào trie tại đầu mỗi từ của nó: gõ "vf" hay "vinfast v" đều ra "VinFast VF 8"
+//- Trọng số = số tin đang bán + log(tổng viewCount), viewCount lấy theo lần upsert gần nhất của sản phẩm
+//- Mỗi node cache sẵn top gợi ý của cây con; khi term thay đổi chỉ xóa cache trên đường đi của nó
+//=> truy vấn = đi xuống prefix.length() node + đọc list đã sắp xếp, không quét sản phẩm
+@Service
+public class ProductSuggestIndex implements ProductIndex {
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private static final Comparator<Term> BY_WEIGHT = Comparator
+            .comparingDouble(Term::weight).reversed()
+            .thenComparing(t -> t.key);
+
+    private final Node root = new Node();
+    // kind + key -> term (gom không dấu/chữ thường, hiển thị cách viết gặp đầu tiên)
+    private final Map<String, Term> terms = new HashMap<>();
+    // productId -> các term sản phẩm đang đóng góp
+    private final Map<Long, ProductRef> refs = new HashMap<>();
+
+    @Override
+    public synchronized void upsert(Product product) {
+        removeInternal(product.getProductid());
+        if (!ProductStatus.DANG_BAN.equals(product.getStatus())) {
+            return;
+        }
+
+        long views = product.getViewCount() != null ? Math.max(0, product.getViewCount()) : 0;
+        List<Term> contributed = new ArrayList<>();
+        for (Map.Entry<String, String> phrase : phrasesOf(product).entrySet()) {
+            String label = phrase.getValue();
+            String key = String.join(" ", SearchTextUtils.tokenize(label));
+            if (key.isEmpty()) {
+                continue;
+            }
+            Term term = terms.get(phrase.getKey() + ":" + key);
+            if (term == null) {
+                term = new Term(phrase.getKey(), key, label);
+                terms.put(phrase.getKey() + ":" + key, term);
+                insert(term);
+            }
+            term.listings++;
+            term.views += views;
+            invalidate(term);
+            contributed.add(term);
+        }
+        if (!contributed.isEmpty()) {
+            refs.put(product.getProductid(), new ProductRef(contributed, views));
+        }
+    }
+
+    @Override
+    public synchronized void remove(long productId) {
+        removeInternal(productId);
+    }
+
+    @Override
+    public synchronized void clear() {
+        root.children.clear();
+        root.terms.clear();
+        root.top = null;
+        terms.clear();
+        refs.clear();
+    }
+
+    //Gợi ý cho prefix người dùng đang gõ, đã sắp theo trọng số
+    public synchronized List<Map<String, Object>> suggest(String prefix, int limit) {
+        String key = String.join(" ", SearchTextUtils.tokenize(prefix));
+        if (prefix != null && !prefix.isEmpty() && !key.isEmpty() && Character.isWhitespace(prefix.charAt(prefix.length() - 1))) {
+            // "vinfast " => chỉ gợi ý các term có từ tiếp theo
+            key = key + " ";
+        }
+        if (key.isBlank()) {
+            return new ArrayList<>();
+        }
+
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        if (node == null) {
+            return new ArrayList<>();
+        }
+
+        int max = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        Set<String> seen = new HashSet<>();
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Term term : topOf(node)) {
+            if (result.size() >= max) {
+                break;
+            }
+            if (!seen.add(term.key)) {
+                // Tên sản phẩm trùng model/hãng => chỉ hiển thị 1 lần
+                continue;
+            }
+            Map<String, Object> suggestion = new LinkedHashMap<>();
+            suggestion.put("text", term.label);
+            suggestion.put("kind", term.kind);
+            suggestion.put("listings", term.listings);
+            result.add(suggestion);
+        }
+        return result;
+    }
+
+    // =============== HELPER METHODS ==================================================================================
+
+    // kind -> cụm từ gợi ý của sản phẩm
+    private Map<String, String> phrasesOf(Product product) {
+        Map<String, String> phrases = new LinkedHashMap<>();
+        String brand = null;
+        if (product.getBrandcars() != null) {
+            brand = product.getBrandcars().getBrand();
+        } else if (product.getBrandbattery() != null) {
+            brand = product.getBrandbattery().getBrand();
+        }
+        brand = brand != null && !brand.isBlank() ? brand.trim() : null;
+        String model = product.getModel() != null && !product.getModel().isBlank() ? product.getModel().trim() : null;
+
+        if (brand != null) {
+            phrases.put("brand", brand);
+        }
+        if (model != null) {
+            // Model luôn kèm hãng nếu model chưa chứa tên hãng ("VinFast VF 8" thay vì "VF 8")
+            boolean hasBrand = brand != null && SearchTextUtils.fold(model).contains(SearchTextUtils.fold(brand));
+            phrases.put("model", brand != null && !hasBrand ? brand + " " + model : model);
+        }
+        if (product.getProductname() != null && !product.getProductname().isBlank()) {
+            phrases.put("product", product.getProductname().trim());
+        }
+        return phrases;
+    }
+
+    // Gắn term vào trie tại đầu mỗi từ của key
+    private void insert(Term term) {
+        for (int start : term.wordStarts()) {
+            Node node = root;
+            for (int i = start; i < term.key.length(); i++) {
+                node = node.children.computeIfAbsent(term.key.charAt(i), c -> new Node());
+            }
+            node.terms.add(term);
+        }
+    }
+
+    private void detach(Term term) {
+        for (int start : term.wordStarts()) {
+            List<Node> path = new ArrayList<>();
+            Node node = root;
+            path.add(node);
+            for (int i = start; i < term.key.length() && node != null; i++) {
+                node = node.children.get(term.key.charAt(i));
+                path.add(node);
+            }
+            if (node == null) {
+                continue;
+            }
+            node.terms.remove(term);
+            // Cắt các node không còn term và không còn con
+            for (int i = path.size() - 1; i > 0; i--) {
+                Node current = path.get(i);
+                current.top = null;
+                if (current.terms.isEmpty() && current.children.isEmpty()) {
+                    path.get(i - 1).children.remove(term.key.charAt(start + i - 1));
+                }
+            }
+            root.top = null;
+        }
+    }
+
+    // Trọng số term đổi => xóa cache top của mọi node trên đường đi
+    private void invalidate(Term term) {
+        for (int start : term.wordStarts()) {
+            Node node = root;
+            for (int i = start; i < term.key.length() && node != null; i++) {
+                node = node.children.get(term.key.charAt(i));
+                if (node != null) {
+                    node.top = null;
+                }
+            }
+        }
+    }
+
+    // Top gợi ý của cây con, tính lại khi cache bị xóa
+    private List<Term> topOf(Node node) {
+        if (node.top == null) {
+            Set<Term> collected = new LinkedHashSet<>();
+            collect(node, collected);
+            List<Term> sorted = new ArrayList<>(collected);
+            sorted.sort(BY_WEIGHT);
+            node.top = sorted.size() > MAX_SUGGESTIONS ? new ArrayList<>(sorted.subList(0, MAX_SUGGESTIONS)) : sorted;
+        }
+        return node.top;
+    }
+
+    private void collect(Node node, Set<Term> collected) {
+        if (node.top != null && node != root) {
+            // Top của node con đã đủ đại diện cho cây con của nó
+            collected.addAll(node.top);
+            return;
+        }
+        collected.addAll(node.terms);
+        for (Node child : node.children.values()) {
+            collect(child, collected);
+        }
+    }
+
+    private void removeInternal(long productId) {
+        ProductRef ref = refs.remove(productId);
+        if (ref == null) {
+            return;
+        }
+        for (Term term : ref.terms) {
+            term.listings--;
+            term.views -= ref.views;
+            if (term.listings <= 0) {
+                terms.remove(term.kind + ":" + term.key);
+                detach(term);
+            } else {
+                invalidate(term);
+            }
+        }
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private final Set<Term> terms = new LinkedHashSet<>();
+        private List<Term> top; // null = cần tính lại
+    }
+
+    private static final class Term {
+        private final String kind;   // brand | model | product
+        private final String key;    // không dấu, chữ thường, các từ cách nhau 1 space
+        private final String label;
+        private int listings;
+        private long views;
+
+        private Term(String kind, String key, String label) {
+            this.kind = kind;
+            this.key = key;
+            this.label = label;
+        }
+
+        private double weight() {
+            return listings + Math.log1p(views);
+        }
+
+        private List<Integer> wordStarts() {
+            List<Integer> starts = new ArrayList<>();
+            starts.add(0);
+            for (int i = 1; i < key.length(); i++) {
+                if (key.charAt(i - 1) == ' ') {
+                    starts.add(i);
+                }
+            }
+            return starts;
+        }
+    }
+
+    private static final class ProductRef {
+        private final List<Term> terms;
+        private final long views;
+
+        private ProductRef(List<Term> terms, long views) {
+            this.terms = terms;
+            this.views = views;
+        }
+    }
+}
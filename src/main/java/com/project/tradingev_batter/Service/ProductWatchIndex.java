@@ -0,0 +1,128 @@
+package com.project.tradingev_batter.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.project.tradingev_batter.Entity.Product;
+import com.project.tradingev_batter.Repository.FavoritePostRepository;
+import com.project.tradingev_batter.enums.ProductStatus;
+import com.project.tradingev_batter.event.WatchlistChangedEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+//Index đảo product -> người theo dõi (watchlist) + giá/trạng thái lần cuối của các sản phẩm đang được theo dõi
+//Mỗi ProductChangedEvent chỉ tra 1 key: sản phẩm không ai theo dõi thì bỏ qua ngay, không quét bảng favorite_posts
+//Giảm giá hoặc đổi trạng thái => 1 batch notification cho tất cả người theo dõi
+@Service
+@Slf4j
+public class ProductWatchIndex implements ProductIndex {
+
+    private final FavoritePostRepository favoritePostRepository;
+    private final WatchlistService watchlistService;
+
+    // productId -> userId người theo dõi
+    private final Map<Long, Set<Long>> watchers = new HashMap<>();
+    // productId -> giá/trạng thái đã thấy lần cuối (chỉ cho sản phẩm có người theo dõi)
+    private final Map<Long, Snapshot> snapshots = new HashMap<>();
+
+    public ProductWatchIndex(FavoritePostRepository favoritePostRepository, WatchlistService watchlistService) {
+        this.favoritePostRepository = favoritePostRepository;
+        this.watchlistService = watchlistService;
+    }
+
+    @Override
+    public void upsert(Product product) {
+        Snapshot previous;
+        List<Long> targets;
+        synchronized (this) {
+            Set<Long> productWatchers = watchers.get(product.getProductid());
+            if (productWatchers == null) {
+                return;
+            }
+            previous = snapshots.put(product.getProductid(), new Snapshot(product.getCost(), product.getStatus()));
+            if (previous == null) {
+                return;
+            }
+            targets = new ArrayList<>(productWatchers);
+        }
+
+        try {
+            if (product.getStatus() != previous.status && product.getStatus() != null) {
+                watchlistService.notifyStatusChanged(product.getProductid(), product.getProductname(),
+                        product.getStatus(), targets);
+            } else if (product.getCost() < previous.cost && ProductStatus.DANG_BAN.equals(product.getStatus())) {
+                watchlistService.notifyPriceDrop(product.getProductid(), product.getProductname(),
+                        previous.cost, product.getCost(), targets);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to notify watchers of product {}: {}", product.getProductid(), e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void remove(long productId) {
+        watchers.remove(productId);
+        snapshots.remove(productId);
+    }
+
+    @Override
+    public synchronized void clear() {
+        watchers.clear();
+        snapshots.clear();
+    }
+
+    //Nạp watchlist sau khi rebuild (1 câu query), mốc giá/trạng thái = giá trị hiện tại trong DB
+    @Override
+    public void rebuilt() {
+        List<Object[]> rows = favoritePostRepository.findAllWatchRows();
+        synchronized (this) {
+            watchers.clear();
+            snapshots.clear();
+            for (Object[] row : rows) {
+                Long productId = ((Number) row[0]).longValue();
+                watchers.computeIfAbsent(productId, k -> new HashSet<>()).add(((Number) row[1]).longValue());
+                snapshots.put(productId, new Snapshot(((Number) row[2]).doubleValue(), (ProductStatus) row[3]));
+            }
+        }
+        log.info("Loaded {} watched products into watch index", watchers.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onWatchlistChanged(WatchlistChangedEvent event) {
+        if (event.isWatching()) {
+            watchers.computeIfAbsent(event.getProductId(), k -> new HashSet<>()).add(event.getUserId());
+            snapshots.putIfAbsent(event.getProductId(), new Snapshot(event.getCost(), event.getStatus()));
+            return;
+        }
+        Set<Long> productWatchers = watchers.get(event.getProductId());
+        if (productWatchers != null) {
+            productWatchers.remove(event.getUserId());
+            if (productWatchers.isEmpty()) {
+                watchers.remove(event.getProductId());
+                snapshots.remove(event.getProductId());
+            }
+        }
+    }
+
+    public synchronized int countWatchers(long productId) {
+        Set<Long> productWatchers = watchers.get(productId);
+        return productWatchers != null ? productWatchers.size() : 0;
+    }
+
+    private static final class Snapshot {
+        private final double cost;
+        private final ProductStatus status;
+
+        private Snapshot(double cost, ProductStatus status) {
+            this.cost = cost;
+            this.status = status;
+        }
+    }
+}
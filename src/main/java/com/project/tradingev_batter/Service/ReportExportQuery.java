@@ -0,0 +1,98 @@
+package com.project.tradingev_batter.Service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.stereotype.Service;
+
+import com.project.tradingev_batter.Entity.Orders;
+import com.project.tradingev_batter.Entity.Transaction;
+import com.project.tradingev_batter.Entity.User;
+import com.project.tradingev_batter.enums.OrderStatus;
+import com.project.tradingev_batter.enums.TransactionStatus;
+import com.project.tradingev_batter.enums.TransactionType;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+//Truy vấn 1 trang keyset cho xuất báo cáo: chỉ select cột cần xuất, không load entity
+//Chỉ thêm điều kiện lọc thực sự được truyền (không ":x IS NULL OR ...") => optimizer dùng được index (status, createdat...)
+@Service
+public class ReportExportQuery {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    //[orderid, createdat, updatedat, status, totalamount, shippingfee, totalfinal, paymentmethod, packageId, buyerId, buyerName]
+    public List<Object[]> findOrderPage(long afterId, OrderStatus status, Date from, Date to, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Orders> o = query.from(Orders.class);
+        Join<Orders, User> buyer = o.join("users", JoinType.LEFT);
+
+        query.multiselect(o.get("orderid"), o.get("createdat"), o.get("updatedat"), o.get("status"),
+                o.get("totalamount"), o.get("shippingfee"), o.get("totalfinal"), o.get("paymentmethod"),
+                o.get("packageId"), buyer.get("userid"), buyer.get("username"));
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.greaterThan(o.<Long>get("orderid"), afterId));
+        if (status != null) {
+            predicates.add(cb.equal(o.get("status"), status));
+        }
+        createdBetween(predicates, cb, o.get("createdat"), from, to);
+        query.where(predicates.toArray(new Predicate[0]));
+        query.orderBy(cb.asc(o.get("orderid")));
+
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    //[transid, createdat, paymentDate, transactionType, status, amount, method, transactionCode, vnpayTransactionNo,
+    // bankCode, orderId, createdById]
+    public List<Object[]> findTransactionPage(long afterId, TransactionType type, TransactionStatus status,
+                                              Date from, Date to, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Transaction> t = query.from(Transaction.class);
+        Join<Transaction, Orders> order = t.join("orders", JoinType.LEFT);
+        Join<Transaction, User> createdBy = t.join("createdBy", JoinType.LEFT);
+
+        query.multiselect(t.get("transid"), t.get("createdat"), t.get("paymentDate"), t.get("transactionType"),
+                t.get("status"), t.get("amount"), t.get("method"), t.get("transactionCode"),
+                t.get("vnpayTransactionNo"), t.get("bankCode"), order.get("orderid"), createdBy.get("userid"));
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.greaterThan(t.<Long>get("transid"), afterId));
+        if (type != null) {
+            predicates.add(cb.equal(t.get("transactionType"), type));
+        }
+        if (status != null) {
+            predicates.add(cb.equal(t.get("status"), status));
+        }
+        createdBetween(predicates, cb, t.get("createdat"), from, to);
+        query.where(predicates.toArray(new Predicate[0]));
+        query.orderBy(cb.asc(t.get("transid")));
+
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    // =============== HELPER METHODS ==================================================================================
+
+    // Khoảng [from, to), bỏ trống đầu nào thì không lọc đầu đó
+    private static void createdBetween(List<Predicate> predicates, CriteriaBuilder cb, Path<Date> createdAt,
+                                       Date from, Date to) {
+        if (from != null) {
+            predicates.add(cb.greaterThanOrEqualTo(createdAt, from));
+        }
+        if (to != null) {
+            predicates.add(cb.lessThan(createdAt, to));
+        }
+    }
+}
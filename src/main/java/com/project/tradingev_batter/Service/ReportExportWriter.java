@@ -0,0 +1,295 @@
+package com.project.tradingev_batter.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.project.tradingev_batter.Entity.RevenueRollup;
+import com.project.tradingev_batter.Repository.RevenueRollupRepository;
+import com.project.tradingev_batter.enums.ExportFormat;
+import com.project.tradingev_batter.enums.OrderStatus;
+import com.project.tradingev_batter.enums.RollupGranularity;
+import com.project.tradingev_batter.enums.TransactionStatus;
+import com.project.tradingev_batter.enums.TransactionType;
+
+import lombok.extern.slf4j.Slf4j;
+
+//Xuất báo cáo đơn hàng, giao dịch, doanh thu ra CSV hoặc XLSX cho kế toán
+//- Đọc theo trang keyset (id > id cuối trang trước), chỉ select cột cần xuất => không giữ entity, không OFFSET
+//- CSV: ghi từng dòng thẳng ra response, flush sau mỗi trang
+//- XLSX: SXSSFWorkbook chỉ giữ N dòng gần nhất trong bộ nhớ, phần còn lại đẩy ra file tạm (nén);
+//  sheet đầy (giới hạn Excel ~1 triệu dòng) thì sang sheet mới
+//=> bộ nhớ không đổi theo số dòng xuất
+@Service
+@Slf4j
+public class ReportExportWriter {
+
+    private static final String[] ORDER_HEADERS = {"Mã đơn", "Ngày tạo", "Cập nhật", "Trạng thái", "Tổng tiền",
+            "Phí vận chuyển", "Thành tiền", "Thanh toán", "Mã gói", "Mã người mua", "Người mua"};
+    private static final String[] TRANSACTION_HEADERS = {"Mã giao dịch", "Ngày tạo", "Ngày thanh toán", "Loại",
+            "Trạng thái", "Số tiền", "Phương thức", "Mã nội bộ", "Mã VNPay", "Ngân hàng", "Mã đơn", "Người tạo"};
+    private static final String[] REVENUE_HEADERS = {"Kỳ", "Danh mục", "Doanh thu", "Số đơn/giao dịch"};
+
+    // Excel giới hạn 1,048,576 dòng/sheet (chừa 1 dòng tiêu đề)
+    private static final int MAX_ROWS_PER_SHEET = 1_048_575;
+
+    private final ReportExportQuery reportExportQuery;
+    private final RevenueRollupRepository revenueRollupRepository;
+    private final int pageSize;
+    private final int rowWindow;
+
+    public ReportExportWriter(ReportExportQuery reportExportQuery, RevenueRollupRepository revenueRollupRepository,
+                              @Value("${report.export.page-size:1000}") int pageSize,
+                              @Value("${report.export.xlsx-row-window:200}") int rowWindow) {
+        this.reportExportQuery = reportExportQuery;
+        this.revenueRollupRepository = revenueRollupRepository;
+        this.pageSize = pageSize;
+        this.rowWindow = rowWindow;
+    }
+
+    //Ghi danh sách đơn hàng (lọc status, khoảng ngày tạo [from, to)), trả về số dòng đã ghi
+    public long writeOrders(OutputStream output, ExportFormat format, OrderStatus status, Date from, Date to)
+            throws IOException {
+        long written = 0;
+        try (RowSink sink = open(output, format, "Orders", ORDER_HEADERS)) {
+            long afterId = 0;
+            List<Object[]> rows;
+            do {
+                rows = reportExportQuery.findOrderPage(afterId, status, from, to, pageSize);
+                for (Object[] row : rows) {
+                    sink.row(row);
+                    afterId = ((Number) row[0]).longValue();
+                    written++;
+                }
+                sink.flush();
+            } while (rows.size() == pageSize);
+        }
+        log.info("Exported {} orders ({}, status={})", written, format, status);
+        return written;
+    }
+
+    //Ghi danh sách giao dịch (lọc loại, status, khoảng ngày tạo [from, to)), trả về số dòng đã ghi
+    public long writeTransactions(OutputStream output, ExportFormat format, TransactionType type,
+                                  TransactionStatus status, Date from, Date to) throws IOException {
+        long written = 0;
+        try (RowSink sink = open(output, format, "Transactions", TRANSACTION_HEADERS)) {
+            long afterId = 0;
+            List<Object[]> rows;
+            do {
+                rows = reportExportQuery.findTransactionPage(afterId, type, status, from, to, pageSize);
+                for (Object[] row : rows) {
+                    sink.row(row);
+                    afterId = ((Number) row[0]).longValue();
+                    written++;
+                }
+                sink.flush();
+            } while (rows.size() == pageSize);
+        }
+        log.info("Exported {} transactions ({}, type={}, status={})", written, format, type, status);
+        return written;
+    }
+
+    //Ghi doanh thu theo kỳ/danh mục từ bảng revenue_rollups (mỗi kỳ tối đa 4 dòng nên đọc 1 lần)
+    public long writeRevenue(OutputStream output, ExportFormat format, LocalDate from, LocalDate to,
+                             RollupGranularity granularity) throws IOException {
+        boolean daily = granularity == RollupGranularity.DAY;
+        LocalDate start = daily ? from : from.withDayOfMonth(1);
+        LocalDate end = daily ? to : to.withDayOfMonth(1);
+        long written = 0;
+        try (RowSink sink = open(output, format, "Revenue", REVENUE_HEADERS)) {
+            for (RevenueRollup rollup : revenueRollupRepository
+                    .findByGranularityAndPeriodStartBetweenOrderByPeriodStart(granularity, start, end)) {
+                String period = daily ? rollup.getPeriodStart().toString() : YearMonth.from(rollup.getPeriodStart()).toString();
+                sink.row(new Object[]{period, rollup.getCategory().getDescription(), rollup.getAmount(), rollup.getOrderCount()});
+                written++;
+            }
+        }
+        return written;
+    }
+
+    // =============== HELPER METHODS ==================================================================================
+
+    private RowSink open(OutputStream output, ExportFormat format, String sheetName, String[] headers) throws IOException {
+        RowSink sink = format == ExportFormat.XLSX
+                ? new XlsxSink(output, sheetName, headers, rowWindow)
+                : new CsvSink(output, headers);
+        sink.header();
+        return sink;
+    }
+
+    private abstract static class RowSink implements AutoCloseable {
+        abstract void header() throws IOException;
+
+        abstract void row(Object[] values) throws IOException;
+
+        abstract void flush() throws IOException;
+
+        @Override
+        public abstract void close() throws IOException;
+    }
+
+    //CSV theo RFC 4180, có BOM để Excel mở đúng tiếng Việt
+    private static final class CsvSink extends RowSink {
+        private final Writer writer;
+        private final String[] headers;
+        private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+
+        private CsvSink(OutputStream output, String[] headers) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 16 * 1024);
+            this.headers = headers;
+        }
+
+        @Override
+        void header() throws IOException {
+            writer.write('\uFEFF');
+            row(headers);
+        }
+
+        @Override
+        void row(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(escape(format(values[i])));
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Không đóng response stream, chỉ đẩy phần còn lại ra
+            writer.flush();
+        }
+
+        private String format(Object value) {
+            if (value == null) {
+                return "";
+            }
+            if (value instanceof Date date) {
+                return dateFormat.format(date);
+            }
+            if (value instanceof Double number && number == Math.rint(number) && !Double.isInfinite(number)) {
+                return Long.toString(number.longValue());
+            }
+            if (value instanceof Number) {
+                return value.toString();
+            }
+            // Chặn CSV injection: ô chữ bắt đầu bằng =, +, -, @ bị Excel hiểu là công thức => thêm ' phía trước
+            String text = value.toString();
+            if (!text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+                return "'" + text;
+            }
+            return text;
+        }
+
+        private static String escape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    private static final class XlsxSink extends RowSink {
+        private final OutputStream output;
+        private final SXSSFWorkbook workbook;
+        private final String sheetName;
+        private final String[] headers;
+        private final CellStyle headerStyle;
+        private final CellStyle dateStyle;
+        private Sheet sheet;
+        private int sheetCount;
+        private int rowIndex;
+
+        private XlsxSink(OutputStream output, String sheetName, String[] headers, int rowWindow) {
+            this.output = output;
+            this.workbook = new SXSSFWorkbook(rowWindow);
+            this.workbook.setCompressTempFiles(true);
+            this.sheetName = sheetName;
+            this.headers = headers;
+
+            this.headerStyle = workbook.createCellStyle();
+            Font bold = workbook.createFont();
+            bold.setBold(true);
+            this.headerStyle.setFont(bold);
+            this.dateStyle = workbook.createCellStyle();
+            this.dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+        }
+
+        @Override
+        void header() {
+            sheetCount++;
+            sheet = workbook.createSheet(sheetCount == 1 ? sheetName : sheetName + " (" + sheetCount + ")");
+            Row row = sheet.createRow(0);
+            for (int i = 0; i < headers.length; i++) {
+                Cell cell = row.createCell(i);
+                cell.setCellValue(headers[i]);
+                cell.setCellStyle(headerStyle);
+            }
+            sheet.createFreezePane(0, 1);
+            rowIndex = 1;
+        }
+
+        @Override
+        void row(Object[] values) {
+            if (rowIndex > MAX_ROWS_PER_SHEET) {
+                header();
+            }
+            Row row = sheet.createRow(rowIndex++);
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                if (value == null) {
+                    continue;
+                }
+                Cell cell = row.createCell(i);
+                if (value instanceof Number number) {
+                    cell.setCellValue(number.doubleValue());
+                } else if (value instanceof Date date) {
+                    cell.setCellValue(date);
+                    cell.setCellStyle(dateStyle);
+                } else {
+                    cell.setCellValue(value.toString());
+                }
+            }
+        }
+
+        @Override
+        void flush() {
+            // Dòng ngoài cửa sổ đã được SXSSF đẩy ra file tạm; file xlsx chỉ ghi được khi đóng workbook
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                workbook.write(output);
+                output.flush();
+            } finally {
+                workbook.dispose();
+                workbook.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.project.tradingev_batter.Service;
+
+import com.project.tradingev_batter.dto.ReportJobRequest;
+import com.project.tradingev_batter.dto.ReportJobResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+public interface ReportJobService {
+    // Gửi job báo cáo chạy nền; yêu cầu giống hệt job đang chạy/còn hạn cache thì trả lại job đó
+    Map<String, Object> submit(ReportJobRequest request, Long requestedBy);
+
+    // Trạng thái job; null nếu không có (sai id hoặc kết quả đã hết hạn)
+    Map<String, Object> getStatus(String jobId);
+
+    // SSE: gửi trạng thái hiện tại và lần đổi trạng thái tiếp theo đến khi job kết thúc; null nếu không có job
+    SseEmitter subscribe(String jobId);
+
+    // Kết quả job đã COMPLETED; null nếu job không tồn tại hoặc chưa xong
+    ReportJobResult getResult(String jobId);
+}
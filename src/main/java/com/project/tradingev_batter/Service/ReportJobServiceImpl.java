@@ -0,0 +1,338 @@
+package com.project.tradingev_batter.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.project.tradingev_batter.dto.ReportJobRequest;
+import com.project.tradingev_batter.dto.ReportJobResult;
+import com.project.tradingev_batter.enums.ExportFormat;
+import com.project.tradingev_batter.enums.ReportJobStatus;
+import com.project.tradingev_batter.enums.ReportJobType;
+import com.project.tradingev_batter.enums.RollupGranularity;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+//Chạy báo cáo nặng của Manager ở nền thay vì trên thread Tomcat
+//- Pool cố định + hàng đợi giới hạn: hàng đợi đầy thì từ chối ngay (không dồn job vô hạn)
+//- Yêu cầu giống hệt (cùng loại + tham số) trong lúc job đang chờ/chạy hoặc kết quả còn hạn => dùng lại job đó
+//- Kết quả giữ trong bộ nhớ (báo cáo JSON) hoặc file tạm (xuất CSV/XLSX) đến hết TTL rồi dọn định kỳ;
+//  file tạm còn giữ thêm 1 khoảng sau khi job bị dọn để lượt tải đang chạy đọc xong
+//Trạng thái job chỉ nằm trong bộ nhớ của instance nhận yêu cầu; restart là mất (client gửi lại)
+@Service
+@Slf4j
+public class ReportJobServiceImpl implements ReportJobService {
+
+    private final ManagerService managerService;
+    private final RevenueRollupService revenueRollupService;
+    private final ReportExportWriter reportExportWriter;
+    private final long resultTtlMillis;
+    private final long fileGraceMillis;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, Job> jobsById = new ConcurrentHashMap<>();
+    private final Map<String, Job> jobsByKey = new ConcurrentHashMap<>();
+    // File tạm của job đã dọn -> thời điểm được xóa
+    private final Map<Path, Long> filesToDelete = new ConcurrentHashMap<>();
+
+    public ReportJobServiceImpl(ManagerService managerService, RevenueRollupService revenueRollupService,
+                                ReportExportWriter reportExportWriter,
+                                @Value("${report.jobs.threads:2}") int threads,
+                                @Value("${report.jobs.queue-capacity:20}") int queueCapacity,
+                                @Value("${report.jobs.result-ttl-seconds:300}") long resultTtlSeconds,
+                                @Value("${report.jobs.file-grace-seconds:600}") long fileGraceSeconds) {
+        this.managerService = managerService;
+        this.revenueRollupService = revenueRollupService;
+        this.reportExportWriter = reportExportWriter;
+        this.resultTtlMillis = resultTtlSeconds * 1000;
+        this.fileGraceMillis = fileGraceSeconds * 1000;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "report-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public Map<String, Object> submit(ReportJobRequest request, Long requestedBy) {
+        String key = keyOf(request);
+        long now = System.currentTimeMillis();
+        boolean[] reused = new boolean[1];
+
+        Job job = jobsByKey.compute(key, (k, existing) -> {
+            if (existing != null && existing.status != ReportJobStatus.FAILED && !existing.isExpired(now)) {
+                reused[0] = true;
+                return existing;
+            }
+            Job created = new Job(UUID.randomUUID().toString(), key, request, requestedBy);
+            try {
+                executor.execute(() -> run(created));
+            } catch (RejectedExecutionException e) {
+                throw new IllegalStateException("Hệ thống đang xử lý quá nhiều báo cáo, vui lòng thử lại sau");
+            }
+            jobsById.put(created.id, created);
+            if (existing != null) {
+                discard(existing);
+            }
+            return created;
+        });
+
+        Map<String, Object> status = statusOf(job);
+        status.put("reused", reused[0]);
+        return status;
+    }
+
+    @Override
+    public Map<String, Object> getStatus(String jobId) {
+        Job job = jobsById.get(jobId);
+        return job != null ? statusOf(job) : null;
+    }
+
+    @Override
+    public SseEmitter subscribe(String jobId) {
+        Job job = jobsById.get(jobId);
+        if (job == null) {
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(30 * 60 * 1000L);
+        emitter.onCompletion(() -> job.subscribers.remove(emitter));
+        emitter.onTimeout(() -> job.subscribers.remove(emitter));
+        emitter.onError(e -> job.subscribers.remove(emitter));
+        job.subscribers.add(emitter);
+        try {
+            emitter.send(SseEmitter.event().name("status").data(statusOf(job)));
+            // Job có thể đã xong trước khi đăng ký => đóng luôn, không chờ lần đổi trạng thái nào nữa
+            if (job.status.isFinished()) {
+                emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // changeStatus chạy song song có thể đã gửi trạng thái cuối và complete emitter
+            job.subscribers.remove(emitter);
+        }
+        return emitter;
+    }
+
+    @Override
+    public ReportJobResult getResult(String jobId) {
+        Job job = jobsById.get(jobId);
+        if (job == null || job.status != ReportJobStatus.COMPLETED) {
+            return null;
+        }
+        return job.result;
+    }
+
+    //Dọn job đã kết thúc quá TTL; xóa file tạm đã hết thời gian chờ
+    @Scheduled(fixedDelayString = "${report.jobs.cleanup-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        for (Job job : jobsById.values()) {
+            if (job.isExpired(now)) {
+                jobsByKey.remove(job.key, job);
+                discard(job);
+            }
+        }
+        filesToDelete.forEach((file, deleteAt) -> {
+            if (deleteAt < now) {
+                deleteFile(file);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        jobsById.values().forEach(this::discard);
+        filesToDelete.keySet().forEach(this::deleteFile);
+    }
+
+    // =============== HELPER METHODS ==================================================================================
+
+    private void run(Job job) {
+        job.startedAt = new Date();
+        changeStatus(job, ReportJobStatus.RUNNING);
+        ReportJobRequest request = job.request;
+        try {
+            switch (request.getType()) {
+                case REVENUE_REPORT -> job.result = new ReportJobResult(managerService.getRevenueReport(), null, null, null);
+                case SYSTEM_REPORT -> job.result = new ReportJobResult(managerService.getSystemReport(), null, null, null);
+                case REVENUE_SERIES -> job.result = new ReportJobResult(revenueRollupService.getRevenueSeries(
+                        request.getFrom(), request.getTo(), granularityOf(request)), null, null, null);
+                case ORDERS_EXPORT, TRANSACTIONS_EXPORT -> job.result = export(job);
+            }
+            job.finishedAt = new Date();
+            changeStatus(job, ReportJobStatus.COMPLETED);
+        } catch (Exception e) {
+            log.error("Report job {} ({}) failed", job.id, request.getType(), e);
+            job.error = e.getMessage();
+            job.finishedAt = new Date();
+            changeStatus(job, ReportJobStatus.FAILED);
+        }
+    }
+
+    // Ghi file tạm rồi giữ đường dẫn; ReportExportWriter stream theo trang nên bộ nhớ không đổi
+    private ReportJobResult export(Job job) throws IOException {
+        ReportJobRequest request = job.request;
+        ExportFormat format = ExportFormat.fromParam(request.getFormat());
+        boolean orders = request.getType() == ReportJobType.ORDERS_EXPORT;
+        Path file = Files.createTempFile("report-job-", "." + format.getExtension());
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(file))) {
+            if (orders) {
+                reportExportWriter.writeOrders(output, format, request.getOrderStatus(),
+                        startOf(request.getFrom()), startOfNextDay(request.getTo()));
+            } else {
+                reportExportWriter.writeTransactions(output, format, request.getTransactionType(),
+                        request.getTransactionStatus(), startOf(request.getFrom()), startOfNextDay(request.getTo()));
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        String fileName = (orders ? "orders" : "transactions") + "-" + LocalDate.now() + "." + format.getExtension();
+        return new ReportJobResult(null, file, format, fileName);
+    }
+
+    private void changeStatus(Job job, ReportJobStatus status) {
+        job.status = status;
+        if (status.isFinished()) {
+            job.expiresAt = System.currentTimeMillis() + resultTtlMillis;
+        }
+        Map<String, Object> snapshot = statusOf(job);
+        for (SseEmitter emitter : job.subscribers) {
+            try {
+                emitter.send(SseEmitter.event().name("status").data(snapshot));
+                if (status.isFinished()) {
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                job.subscribers.remove(emitter);
+            }
+        }
+    }
+
+    // Gỡ job; file tạm chưa xóa ngay vì có thể đang có lượt tải đọc dở
+    private void discard(Job job) {
+        jobsById.remove(job.id, job);
+        if (job.result != null && job.result.getFile() != null) {
+            filesToDelete.put(job.result.getFile(), System.currentTimeMillis() + fileGraceMillis);
+        }
+    }
+
+    // Xóa không được (file đang mở trên Windows...) thì giữ lại, thử lại lần dọn sau
+    private void deleteFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+            filesToDelete.remove(file);
+        } catch (IOException e) {
+            log.warn("Could not delete report file {}: {}", file, e.getMessage());
+        }
+    }
+
+    // Kiểm tra tham số và tạo khóa chống trùng: chỉ gồm tham số có ý nghĩa với loại báo cáo
+    private String keyOf(ReportJobRequest request) {
+        if (request == null || request.getType() == null) {
+            throw new IllegalArgumentException("Thiếu loại báo cáo (type)");
+        }
+        if (request.getFrom() != null && request.getTo() != null && request.getFrom().isAfter(request.getTo())) {
+            throw new IllegalArgumentException("Khoảng thời gian không hợp lệ: from phải trước hoặc bằng to");
+        }
+        return switch (request.getType()) {
+            case REVENUE_REPORT, SYSTEM_REPORT -> request.getType().name();
+            case REVENUE_SERIES -> {
+                if (request.getFrom() == null || request.getTo() == null) {
+                    throw new IllegalArgumentException("Báo cáo doanh thu theo kỳ cần from và to");
+                }
+                yield request.getType() + "|" + request.getFrom() + "|" + request.getTo() + "|" + granularityOf(request);
+            }
+            case ORDERS_EXPORT -> request.getType() + "|" + ExportFormat.fromParam(request.getFormat()) + "|"
+                    + request.getOrderStatus() + "|" + request.getFrom() + "|" + request.getTo();
+            case TRANSACTIONS_EXPORT -> request.getType() + "|" + ExportFormat.fromParam(request.getFormat()) + "|"
+                    + request.getTransactionType() + "|" + request.getTransactionStatus() + "|"
+                    + request.getFrom() + "|" + request.getTo();
+        };
+    }
+
+    private static RollupGranularity granularityOf(ReportJobRequest request) {
+        return request.getGranularity() != null ? request.getGranularity() : RollupGranularity.DAY;
+    }
+
+    private Map<String, Object> statusOf(Job job) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("jobId", job.id);
+        status.put("type", job.request.getType());
+        status.put("status", job.status);
+        status.put("requestedBy", job.requestedBy);
+        status.put("submittedAt", job.submittedAt);
+        status.put("startedAt", job.startedAt);
+        status.put("finishedAt", job.finishedAt);
+        if (job.expiresAt > 0) {
+            status.put("expiresAt", new Date(job.expiresAt));
+        }
+        if (job.status == ReportJobStatus.COMPLETED) {
+            status.put("resultUrl", "/api/manager/report-jobs/" + job.id + "/result");
+        }
+        if (job.error != null) {
+            status.put("error", job.error);
+        }
+        return status;
+    }
+
+    private static Date startOf(LocalDate date) {
+        return date != null ? Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant()) : null;
+    }
+
+    private static Date startOfNextDay(LocalDate date) {
+        return date != null ? startOf(date.plusDays(1)) : null;
+    }
+
+    private static final class Job {
+        private final String id;
+        private final String key;
+        private final ReportJobRequest request;
+        private final Long requestedBy;
+        private final Date submittedAt = new Date();
+        private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+
+        private volatile ReportJobStatus status = ReportJobStatus.QUEUED;
+        private volatile Date startedAt;
+        private volatile Date finishedAt;
+        private volatile long expiresAt; // 0 = chưa kết thúc
+        private volatile ReportJobResult result;
+        private volatile String error;
+
+        private Job(String id, String key, ReportJobRequest request, Long requestedBy) {
+            this.id = id;
+            this.key = key;
+            this.request = request;
+            this.requestedBy = requestedBy;
+        }
+
+        private boolean isExpired(long now) {
+            return expiresAt > 0 && expiresAt < now;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.project.tradingev_batter.Service;
+
+import com.project.tradingev_batter.enums.RollupGranularity;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+public interface RevenueRollupService {
+    // Chuỗi doanh thu theo ngày/tháng trong [from, to] cho biểu đồ Manager (đọc từ bảng revenue_rollups)
+    Map<String, Object> getRevenueSeries(LocalDate from, LocalDate to, RollupGranularity granularity);
+
+    // Dựng lại toàn bộ rollup từ orders/transactions; trả về số dòng đã ghi
+    int rebuildRollups();
+}
@@ -0,0 +1,298 @@
+package com.project.tradingev_batter.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.project.tradingev_batter.Entity.RevenueRollup;
+import com.project.tradingev_batter.Repository.OrderRepository;
+import com.project.tradingev_batter.Repository.RevenueRollupRepository;
+import com.project.tradingev_batter.Repository.TransactionRepository;
+import com.project.tradingev_batter.enums.OrderStatus;
+import com.project.tradingev_batter.enums.RevenueCategory;
+import com.project.tradingev_batter.enums.RollupGranularity;
+import com.project.tradingev_batter.enums.TransactionStatus;
+import com.project.tradingev_batter.enums.TransactionType;
+import com.project.tradingev_batter.event.OrderStateChangedEvent;
+import com.project.tradingev_batter.event.TransactionStateChangedEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+//Duy trì bảng revenue_rollups (ngày + tháng, theo danh mục) từ event của EntityStateListener
+//- Đơn vào DA_HOAN_TAT: cộng totalamount vào PACKAGE (đơn mua gói) hoặc CAR/BATTERY theo loại sản phẩm trong đơn
+//  (đơn có cả xe và pin được tính ở cả 2 danh mục, giống getRevenueReport)
+//- Giao dịch COMMISSION chuyển sang SUCCESS: cộng vào COMMISSION
+//- Rời trạng thái đó (hoàn tiền, sửa tay...) được ghi thành điều chỉnh âm vào ngày xảy ra, không sửa lại kỳ cũ
+//Bảng trống lúc khởi động (hoặc Manager yêu cầu) => dựng lại bằng các câu GROUP BY theo ngày
+//- Dựng lại giữ write lock, mỗi lần cộng dồn giữ read lock tới khi commit => không cộng xen vào giữa lúc xóa/ghi lại
+@Service
+@Slf4j
+public class RevenueRollupServiceImpl implements RevenueRollupService {
+
+    private static final String CAR_TYPE = "Car EV";
+    private static final String BATTERY_TYPE = "Battery";
+
+    // Giới hạn số điểm trên 1 biểu đồ
+    private static final int MAX_DAY_POINTS = 366;
+    private static final int MAX_MONTH_POINTS = 120;
+
+    private final RevenueRollupRepository revenueRollupRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionRepository transactionRepository;
+    // Transaction riêng, commit xong mới nhả lock
+    private final TransactionTemplate requiresNewTransaction;
+
+    private final ReentrantReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    // Tăng mỗi lần dựng lại: event đọc được số cũ nghĩa là thay đổi đã commit trước đó, đã nằm trong các câu GROUP BY
+    private final AtomicLong rebuildGeneration = new AtomicLong();
+
+    public RevenueRollupServiceImpl(RevenueRollupRepository revenueRollupRepository, OrderRepository orderRepository,
+                                    TransactionRepository transactionRepository,
+                                    PlatformTransactionManager transactionManager) {
+        this.revenueRollupRepository = revenueRollupRepository;
+        this.orderRepository = orderRepository;
+        this.transactionRepository = transactionRepository;
+        this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+        this.requiresNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStateChanged(OrderStateChangedEvent event) {
+        boolean wasCompleted = event.getOldStatus() == OrderStatus.DA_HOAN_TAT;
+        boolean isCompleted = event.getNewStatus() == OrderStatus.DA_HOAN_TAT;
+        if (!wasCompleted && !isCompleted) {
+            return;
+        }
+        double amount = (isCompleted ? event.getNewAmount() : 0) - (wasCompleted ? event.getOldAmount() : 0);
+        long count = (isCompleted ? 1 : 0) - (wasCompleted ? 1 : 0);
+        if (amount == 0 && count == 0) {
+            return;
+        }
+
+        LocalDate today = LocalDate.now();
+        recordUnlessRebuilt(() -> {
+            if (event.isPackageOrder()) {
+                record(RevenueCategory.PACKAGE, today, amount, count);
+                return;
+            }
+            for (String type : orderRepository.findProductTypesByOrderId(event.getOrderId())) {
+                RevenueCategory category = categoryOf(type);
+                if (category != null) {
+                    record(category, today, amount, count);
+                }
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransactionStateChanged(TransactionStateChangedEvent event) {
+        boolean wasCollected = event.getOldType() == TransactionType.COMMISSION
+                && event.getOldStatus() == TransactionStatus.SUCCESS;
+        boolean isCollected = event.getNewType() == TransactionType.COMMISSION
+                && event.getNewStatus() == TransactionStatus.SUCCESS;
+        if (!wasCollected && !isCollected) {
+            return;
+        }
+        double amount = (isCollected ? event.getNewAmount() : 0) - (wasCollected ? event.getOldAmount() : 0);
+        long count = (isCollected ? 1 : 0) - (wasCollected ? 1 : 0);
+        if (amount != 0 || count != 0) {
+            LocalDate today = LocalDate.now();
+            recordUnlessRebuilt(() -> record(RevenueCategory.COMMISSION, today, amount, count));
+        }
+    }
+
+    //Dữ liệu có trước bảng rollup: dựng 1 lần khi khởi động nếu bảng còn trống
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (revenueRollupRepository.count() == 0) {
+            int rows = rebuildRollups();
+            log.info("Revenue rollups backfilled: {} rows", rows);
+        }
+    }
+
+    @Override
+    public int rebuildRollups() {
+        rebuildLock.writeLock().lock();
+        try {
+            rebuildGeneration.incrementAndGet();
+            Integer rows = requiresNewTransaction.execute(status -> {
+                Map<RollupKey, RevenueRollup> rollups = new HashMap<>();
+                addDays(rollups, RevenueCategory.PACKAGE, orderRepository.sumPackageRevenueByDay(OrderStatus.DA_HOAN_TAT));
+                addDays(rollups, RevenueCategory.CAR,
+                        orderRepository.sumRevenueByDayAndProductType(OrderStatus.DA_HOAN_TAT, CAR_TYPE));
+                addDays(rollups, RevenueCategory.BATTERY,
+                        orderRepository.sumRevenueByDayAndProductType(OrderStatus.DA_HOAN_TAT, BATTERY_TYPE));
+                addDays(rollups, RevenueCategory.COMMISSION,
+                        transactionRepository.sumByDay(TransactionType.COMMISSION, TransactionStatus.SUCCESS));
+
+                revenueRollupRepository.deleteAllInBatch();
+                revenueRollupRepository.saveAll(rollups.values());
+                return rollups.size();
+            });
+            return rows != null ? rows : 0;
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> getRevenueSeries(LocalDate from, LocalDate to, RollupGranularity granularity) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new IllegalArgumentException("Khoảng thời gian không hợp lệ: from phải trước hoặc bằng to");
+        }
+        boolean daily = granularity == RollupGranularity.DAY;
+        LocalDate start = daily ? from : from.withDayOfMonth(1);
+        LocalDate end = daily ? to : to.withDayOfMonth(1);
+        long points = daily ? ChronoUnit.DAYS.between(start, end) + 1 : ChronoUnit.MONTHS.between(start, end) + 1;
+        int maxPoints = daily ? MAX_DAY_POINTS : MAX_MONTH_POINTS;
+        if (points > maxPoints) {
+            throw new IllegalArgumentException("Khoảng thời gian quá dài: tối đa " + maxPoints
+                    + (daily ? " ngày" : " tháng") + " mỗi lần truy vấn");
+        }
+
+        // Điền sẵn mọi kỳ bằng 0 để biểu đồ liên tục, rồi cộng các dòng rollup vào
+        Map<LocalDate, Map<RevenueCategory, Double>> amounts = new LinkedHashMap<>();
+        for (LocalDate period = start; !period.isAfter(end); period = daily ? period.plusDays(1) : period.plusMonths(1)) {
+            Map<RevenueCategory, Double> byCategory = new EnumMap<>(RevenueCategory.class);
+            for (RevenueCategory category : RevenueCategory.values()) {
+                byCategory.put(category, 0.0);
+            }
+            amounts.put(period, byCategory);
+        }
+        Map<RevenueCategory, Double> totals = new EnumMap<>(RevenueCategory.class);
+        for (RevenueCategory category : RevenueCategory.values()) {
+            totals.put(category, 0.0);
+        }
+        for (RevenueRollup rollup : revenueRollupRepository
+                .findByGranularityAndPeriodStartBetweenOrderByPeriodStart(granularity, start, end)) {
+            amounts.get(rollup.getPeriodStart()).merge(rollup.getCategory(), rollup.getAmount(), Double::sum);
+            totals.merge(rollup.getCategory(), rollup.getAmount(), Double::sum);
+        }
+
+        List<Map<String, Object>> series = new ArrayList<>();
+        amounts.forEach((period, byCategory) -> {
+            Map<String, Object> point = new LinkedHashMap<>();
+            point.put("period", daily ? period.toString() : YearMonth.from(period).toString());
+            point.put("carRevenue", byCategory.get(RevenueCategory.CAR));
+            point.put("batteryRevenue", byCategory.get(RevenueCategory.BATTERY));
+            point.put("packageRevenue", byCategory.get(RevenueCategory.PACKAGE));
+            point.put("commission", byCategory.get(RevenueCategory.COMMISSION));
+            series.add(point);
+        });
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("from", start.toString());
+        result.put("to", end.toString());
+        result.put("granularity", granularity.name());
+        result.put("carRevenue", totals.get(RevenueCategory.CAR));
+        result.put("batteryRevenue", totals.get(RevenueCategory.BATTERY));
+        result.put("packageRevenue", totals.get(RevenueCategory.PACKAGE));
+        result.put("commission", totals.get(RevenueCategory.COMMISSION));
+        result.put("series", series);
+        return result;
+    }
+
+    // =============== HELPER METHODS ==================================================================================
+
+    // Chờ nếu đang dựng lại; bỏ qua nếu đã dựng lại sau khi event tới (thay đổi đã được tính trong bảng mới)
+    private void recordUnlessRebuilt(Runnable work) {
+        long generation = rebuildGeneration.get();
+        rebuildLock.readLock().lock();
+        try {
+            if (generation != rebuildGeneration.get()) {
+                return;
+            }
+            requiresNewTransaction.executeWithoutResult(status -> work.run());
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    // Cộng vào dòng ngày và dòng tháng; kỳ chưa có dòng thì tạo mới
+    private void record(RevenueCategory category, LocalDate date, double amount, long count) {
+        recordPeriod(RollupGranularity.DAY, date, category, amount, count);
+        recordPeriod(RollupGranularity.MONTH, date.withDayOfMonth(1), category, amount, count);
+    }
+
+    private void recordPeriod(RollupGranularity granularity, LocalDate periodStart, RevenueCategory category,
+                              double amount, long count) {
+        revenueRollupRepository.upsert(granularity.name(), periodStart, category.name(), amount, count);
+    }
+
+    // Dòng [năm, tháng, ngày, số lượng, tổng tiền] -> dòng ngày + cộng dồn vào dòng tháng
+    private void addDays(Map<RollupKey, RevenueRollup> rollups, RevenueCategory category, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            if (row[0] == null) {
+                continue;
+            }
+            LocalDate day = LocalDate.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue(),
+                    ((Number) row[2]).intValue());
+            long count = ((Number) row[3]).longValue();
+            double amount = ((Number) row[4]).doubleValue();
+            addTo(rollups, RollupGranularity.DAY, day, category, amount, count);
+            addTo(rollups, RollupGranularity.MONTH, day.withDayOfMonth(1), category, amount, count);
+        }
+    }
+
+    private void addTo(Map<RollupKey, RevenueRollup> rollups, RollupGranularity granularity, LocalDate periodStart,
+                       RevenueCategory category, double amount, long count) {
+        RevenueRollup rollup = rollups.computeIfAbsent(new RollupKey(granularity, periodStart, category),
+                key -> new RevenueRollup(granularity, periodStart, category));
+        rollup.setAmount(rollup.getAmount() + amount);
+        rollup.setOrderCount(rollup.getOrderCount() + count);
+    }
+
+    private static RevenueCategory categoryOf(String productType) {
+        if (CAR_TYPE.equals(productType)) {
+            return RevenueCategory.CAR;
+        }
+        if (BATTERY_TYPE.equals(productType)) {
+            return RevenueCategory.BATTERY;
+        }
+        return null;
+    }
+
+    private static final class RollupKey {
+        private final RollupGranularity granularity;
+        private final LocalDate periodStart;
+        private final RevenueCategory category;
+
+        private RollupKey(RollupGranularity granularity, LocalDate periodStart, RevenueCategory category) {
+            this.granularity = granularity;
+            this.periodStart = periodStart;
+            this.category = category;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof RollupKey other)) {
+                return false;
+            }
+            return granularity == other.granularity && periodStart.equals(other.periodStart)
+                    && category == other.category;
+        }
+
+        @Override
+        public int hashCode() {
+            return (granularity.hashCode() * 31 + periodStart.hashCode()) * 31 + category.hashCode();
+        }
+    }
+}
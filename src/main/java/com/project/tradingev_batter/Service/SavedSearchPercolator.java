@@ -0,0 +1,208 @@
+package com.project.tradingev_batter.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.project.tradingev_batter.Entity.Product;
+import com.project.tradingev_batter.Entity.SavedSearch;
+import com.project.tradingev_batter.Repository.SavedSearchRepository;
+import com.project.tradingev_batter.dto.ProductFilter;
+import com.project.tradingev_batter.enums.ProductStatus;
+import com.project.tradingev_batter.event.SavedSearchChangedEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+//Percolator cho tìm kiếm đã lưu: thay vì chạy lại từng tìm kiếm, mỗi tin mới lên sàn được so với tất cả điều kiện đã lưu
+//- Điều kiện được index theo (loại, hãng), "*" = không giới hạn => 1 tin chỉ xét 4 bucket: (loại, hãng), (loại, *), (*, hãng), (*, *)
+//- Ứng viên trong bucket được kiểm tra đầy đủ bằng ProductSpecifications.matches + keyword
+//- Chỉ tin vừa chuyển sang DANG_BAN mới được percolate (sửa tin đang bán không gửi lại thông báo)
+@Service
+@Slf4j
+public class SavedSearchPercolator implements ProductIndex {
+
+    private static final String ANY = "*";
+
+    private final SavedSearchRepository savedSearchRepository;
+    private final SavedSearchService savedSearchService;
+
+    // "loại|hãng" -> các điều kiện đã lưu
+    private final Map<String, Map<Long, Query>> buckets = new HashMap<>();
+    // savedSearchId -> bucket key
+    private final Map<Long, String> bucketOf = new HashMap<>();
+    // Các tin đang bán đã biết (để nhận ra tin vừa chuyển sang DANG_BAN)
+    private final Set<Long> activeProducts = new HashSet<>();
+    // false trong lúc rebuild lúc khởi động => không gửi thông báo cho tin cũ
+    private volatile boolean ready;
+
+    public SavedSearchPercolator(SavedSearchRepository savedSearchRepository, SavedSearchService savedSearchService) {
+        this.savedSearchRepository = savedSearchRepository;
+        this.savedSearchService = savedSearchService;
+    }
+
+    @Override
+    public void upsert(Product product) {
+        List<Long> matches;
+        synchronized (this) {
+            boolean active = ProductStatus.DANG_BAN.equals(product.getStatus());
+            boolean newlyActive = active && activeProducts.add(product.getProductid());
+            if (!active) {
+                activeProducts.remove(product.getProductid());
+            }
+            if (!newlyActive || !ready) {
+                return;
+            }
+            matches = percolate(product);
+        }
+        // Gửi thông báo ngoài lock (ghi DB trong transaction riêng)
+        if (!matches.isEmpty()) {
+            savedSearchService.notifyMatches(product, matches);
+        }
+    }
+
+    @Override
+    public synchronized void remove(long productId) {
+        activeProducts.remove(productId);
+    }
+
+    @Override
+    public synchronized void clear() {
+        ready = false;
+        activeProducts.clear();
+    }
+
+    //Nạp điều kiện đã lưu sau khi index sản phẩm đã rebuild xong
+    @Override
+    public void rebuilt() {
+        List<SavedSearch> savedSearches = savedSearchRepository.findAll();
+        synchronized (this) {
+            buckets.clear();
+            bucketOf.clear();
+            savedSearches.forEach(this::register);
+            ready = true;
+        }
+        log.info("Loaded {} saved searches into percolator", savedSearches.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSavedSearchChanged(SavedSearchChangedEvent event) {
+        SavedSearch savedSearch = savedSearchRepository.findById(event.getSavedSearchId()).orElse(null);
+        synchronized (this) {
+            unregister(event.getSavedSearchId());
+            if (savedSearch != null) {
+                register(savedSearch);
+            }
+        }
+    }
+
+    // =============== HELPER METHODS ==================================================================================
+
+    private List<Long> percolate(Product product) {
+        String type = product.getType() != null ? product.getType() : "";
+        String brand = brandKey(brandOf(product));
+        Set<String> productTokens = null;
+
+        List<Long> matches = new ArrayList<>();
+        for (String key : new String[]{type + "|" + brand, type + "|" + ANY, ANY + "|" + brand, ANY + "|" + ANY}) {
+            Map<Long, Query> bucket = buckets.get(key);
+            if (bucket == null) {
+                continue;
+            }
+            for (Query query : bucket.values()) {
+                // Không báo cho chính người đăng tin
+                if (product.getUsers() != null && query.userId.equals(product.getUsers().getUserid())) {
+                    continue;
+                }
+                if (!ProductSpecifications.matches(query.filter, product)) {
+                    continue;
+                }
+                if (!query.keywordTokens.isEmpty()) {
+                    if (productTokens == null) {
+                        productTokens = tokensOf(product);
+                    }
+                    if (!productTokens.containsAll(query.keywordTokens)) {
+                        continue;
+                    }
+                }
+                matches.add(query.savedSearchId);
+            }
+        }
+        return matches;
+    }
+
+    private void register(SavedSearch savedSearch) {
+        if (savedSearch.getUsers() == null) {
+            return;
+        }
+        ProductFilter filter = savedSearch.toFilter();
+        String type = filter.getType() != null && !filter.getType().isBlank() ? filter.getType() : ANY;
+        String brand = filter.getBrand() != null && !filter.getBrand().isBlank() ? brandKey(filter.getBrand()) : ANY;
+        String key = type + "|" + brand;
+
+        Query query = new Query(savedSearch.getSavedSearchId(), savedSearch.getUsers().getUserid(), filter,
+                savedSearch.getKeyword() != null
+                        ? new HashSet<>(SearchTextUtils.tokenize(savedSearch.getKeyword()))
+                        : Collections.emptySet());
+        buckets.computeIfAbsent(key, k -> new HashMap<>()).put(query.savedSearchId, query);
+        bucketOf.put(query.savedSearchId, key);
+    }
+
+    private void unregister(long savedSearchId) {
+        String key = bucketOf.remove(savedSearchId);
+        if (key == null) {
+            return;
+        }
+        Map<Long, Query> bucket = buckets.get(key);
+        if (bucket != null) {
+            bucket.remove(savedSearchId);
+            if (bucket.isEmpty()) {
+                buckets.remove(key);
+            }
+        }
+    }
+
+    private String brandOf(Product product) {
+        if (product.getBrandcars() != null) {
+            return product.getBrandcars().getBrand();
+        }
+        if (product.getBrandbattery() != null) {
+            return product.getBrandbattery().getBrand();
+        }
+        return null;
+    }
+
+    private String brandKey(String brand) {
+        return SearchTextUtils.fold(brand).trim();
+    }
+
+    // Token của tên, model, mô tả, hãng - cùng cách chuẩn hóa với keyword
+    private Set<String> tokensOf(Product product) {
+        Set<String> tokens = new HashSet<>();
+        tokens.addAll(SearchTextUtils.tokenize(product.getProductname()));
+        tokens.addAll(SearchTextUtils.tokenize(product.getModel()));
+        tokens.addAll(SearchTextUtils.tokenize(product.getDescription()));
+        tokens.addAll(SearchTextUtils.tokenize(brandOf(product)));
+        return tokens;
+    }
+
+    private static final class Query {
+        private final long savedSearchId;
+        private final Long userId;
+        private final ProductFilter filter;
+        private final Set<String> keywordTokens;
+
+        private Query(long savedSearchId, Long userId, ProductFilter filter, Set<String> keywordTokens) {
+            this.savedSearchId = savedSearchId;
+            this.userId = userId;
+            this.filter = filter;
+            this.keywordTokens = keywordTokens;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.project.tradingev_batter.Service;
+
+import com.project.tradingev_batter.Entity.Product;
+import com.project.tradingev_batter.Entity.SavedSearch;
+import com.project.tradingev_batter.dto.SavedSearchRequest;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface SavedSearchService {
+    // Buyer quản lý tìm kiếm đã lưu
+    SavedSearch createSavedSearch(Long userId, SavedSearchRequest request);
+    List<SavedSearch> getSavedSearches(Long userId);
+    void deleteSavedSearch(Long userId, Long savedSearchId);
+
+    // SavedSearchPercolator gọi khi 1 tin mới lên sàn khớp các tìm kiếm đã lưu
+    void notifyMatches(Product product, Collection<Long> savedSearchIds);
+}
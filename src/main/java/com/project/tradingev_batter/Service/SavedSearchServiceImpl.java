@@ -0,0 +1,115 @@
+package com.project.tradingev_batter.Service;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.project.tradingev_batter.Entity.Product;
+import com.project.tradingev_batter.Entity.SavedSearch;
+import com.project.tradingev_batter.Entity.User;
+import com.project.tradingev_batter.Repository.SavedSearchRepository;
+import com.project.tradingev_batter.Repository.UserRepository;
+import com.project.tradingev_batter.dto.ProductFilter;
+import com.project.tradingev_batter.dto.SavedSearchRequest;
+import com.project.tradingev_batter.event.SavedSearchChangedEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Service
+@Slf4j
+public class SavedSearchServiceImpl implements SavedSearchService {
+
+    // Giới hạn số tìm kiếm đã lưu mỗi buyer
+    private static final int MAX_SAVED_SEARCHES_PER_USER = 20;
+
+    private final SavedSearchRepository savedSearchRepository;
+    private final UserRepository userRepository;
+    private final NotificationService notificationService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public SavedSearchServiceImpl(SavedSearchRepository savedSearchRepository, UserRepository userRepository,
+                                  NotificationService notificationService, ApplicationEventPublisher eventPublisher) {
+        this.savedSearchRepository = savedSearchRepository;
+        this.userRepository = userRepository;
+        this.notificationService = notificationService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    @Transactional
+    public SavedSearch createSavedSearch(Long userId, SavedSearchRequest request) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
+
+        ProductFilter filter = request.getFilter() != null ? request.getFilter() : new ProductFilter();
+        boolean hasKeyword = request.getKeyword() != null && !request.getKeyword().isBlank();
+        if (!hasKeyword && filter.getType() == null && filter.getPriceMin() == null && filter.getPriceMax() == null
+                && !filter.hasSharedSpecFilter() && !filter.hasCarOnlyFilter() && !filter.hasBatteryOnlyFilter()) {
+            throw new IllegalArgumentException("Tìm kiếm đã lưu cần ít nhất một điều kiện (từ khóa hoặc bộ lọc)");
+        }
+        if (savedSearchRepository.countByUsers_Userid(userId) >= MAX_SAVED_SEARCHES_PER_USER) {
+            throw new IllegalArgumentException("Bạn chỉ được lưu tối đa " + MAX_SAVED_SEARCHES_PER_USER + " tìm kiếm");
+        }
+
+        SavedSearch savedSearch = new SavedSearch();
+        savedSearch.applyFilter(filter);
+        savedSearch.setKeyword(hasKeyword ? request.getKeyword().trim() : null);
+        savedSearch.setName(request.getName() != null && !request.getName().isBlank()
+                ? request.getName().trim()
+                : (hasKeyword ? request.getKeyword().trim() : "Tìm kiếm đã lưu"));
+        savedSearch.setCreatedAt(new Date());
+        savedSearch.setUsers(user);
+
+        SavedSearch saved = savedSearchRepository.save(savedSearch);
+        eventPublisher.publishEvent(new SavedSearchChangedEvent(saved.getSavedSearchId()));
+        return saved;
+    }
+
+    @Override
+    public List<SavedSearch> getSavedSearches(Long userId) {
+        return savedSearchRepository.findByUsers_UseridOrderByCreatedAtDesc(userId);
+    }
+
+    @Override
+    @Transactional
+    public void deleteSavedSearch(Long userId, Long savedSearchId) {
+        SavedSearch savedSearch = savedSearchRepository.findById(savedSearchId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy tìm kiếm đã lưu"));
+        if (savedSearch.getUsers() == null || !userId.equals(savedSearch.getUsers().getUserid())) {
+            throw new RuntimeException("Bạn không có quyền xóa tìm kiếm này");
+        }
+        savedSearchRepository.delete(savedSearch);
+        eventPublisher.publishEvent(new SavedSearchChangedEvent(savedSearchId));
+    }
+
+    //Chạy sau khi transaction duyệt sản phẩm đã commit => cần transaction riêng để ghi notification
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void notifyMatches(Product product, Collection<Long> savedSearchIds) {
+        if (savedSearchIds.isEmpty()) {
+            return;
+        }
+        // Đọc lại từ DB: bỏ qua tìm kiếm vừa bị xóa
+        List<SavedSearch> matches = savedSearchRepository.findAllById(savedSearchIds);
+        for (SavedSearch match : matches) {
+            try {
+                notificationService.notifySavedSearchMatch(match.getUsers().getUserid(), match.getName(),
+                        product.getProductid(), product.getProductname(), product.getCost());
+            } catch (Exception e) {
+                log.warn("Failed to notify saved search {}: {}", match.getSavedSearchId(), e.getMessage());
+            }
+        }
+        if (!matches.isEmpty()) {
+            savedSearchRepository.recordMatch(matches.stream()
+                    .map(SavedSearch::getSavedSearchId)
+                    .collect(Collectors.toList()), new Date());
+            log.info("Product {} matched {} saved searches", product.getProductid(), matches.size());
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.project.tradingev_batter.Service;
 import java.util.Date;
 import java.util.List;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,6 +19,7 @@ import com.project.tradingev_batter.Repository.UserPackageRepository;
 import com.project.tradingev_batter.enums.OrderStatus;
 import com.project.tradingev_batter.enums.ProductStatus;
 import com.project.tradingev_batter.enums.TransactionStatus;
+import com.project.tradingev_batter.event.ProductChangedEvent;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -34,17 +36,20 @@ public class ScheduledTasksService {
     private final ProductRepository productRepository;
     private final UserPackageRepository userPackageRepository;
     private final NotificationService notificationService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public ScheduledTasksService(TransactionRepository transactionRepository,
             OrderRepository orderRepository,
             ProductRepository productRepository,
             UserPackageRepository userPackageRepository,
-            NotificationService notificationService) {
+            NotificationService notificationService,
+            ApplicationEventPublisher eventPublisher) {
         this.transactionRepository = transactionRepository;
         this.orderRepository = orderRepository;
         this.productRepository = productRepository;
         this.userPackageRepository = userPackageRepository;
         this.notificationService = notificationService;
+        this.eventPublisher = eventPublisher;
     }
 
     //CHẠY NGAY KHI SERVER KHỞI ĐỘNG
@@ -326,6 +331,7 @@ public class ScheduledTasksService {
                         product.setStatus(ProductStatus.HET_HAN);
                         product.setUpdatedat(new Date());
                         productRepository.save(product);
+                        eventPublisher.publishEvent(new ProductChangedEvent(product.getProductid()));
 
                         log.info("Hidden product {} (User: {}) due to expired package",
                                 product.getProductid(), userId);
@@ -4,6 +4,8 @@ import com.project.tradingev_batter.Entity.*;
 import com.project.tradingev_batter.Repository.*;
 import com.project.tradingev_batter.enums.ProductStatus;
 import com.project.tradingev_batter.enums.OrderStatus;
+import com.project.tradingev_batter.event.ProductChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -25,6 +27,7 @@ public class SellerServiceImpl implements SellerService {
     private final OrderRepository orderRepository;
     private final ImageUploadService imageUploadService;
     private final NotificationService notificationService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public SellerServiceImpl(UserRepository userRepository,
                             PackageServiceRepository packageServiceRepository,
@@ -35,7 +38,8 @@ public class SellerServiceImpl implements SellerService {
                             ProductImgRepository productImgRepository,
                             OrderRepository orderRepository,
                             ImageUploadService imageUploadService,
-                            NotificationService notificationService) {
+                            NotificationService notificationService,
+                            ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.packageServiceRepository = packageServiceRepository;
         this.userPackageRepository = userPackageRepository;
@@ -46,6 +50,7 @@ public class SellerServiceImpl implements SellerService {
         this.orderRepository = orderRepository;
         this.imageUploadService = imageUploadService;
         this.notificationService = notificationService;
+        this.eventPublisher = eventPublisher;
     }
 
     //TẠO ORDER MUA GÓI - Tạo order mua gói (chưa active UserPackage)
@@ -291,6 +296,7 @@ public class SellerServiceImpl implements SellerService {
         }
         currentCarPackage.setRemainingCars(currentCarPackage.getRemainingCars() - 1);
         userPackageRepository.save(currentCarPackage);
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getProductid()));
         
         // Tạo notification cho seller
         notificationService.createNotification(seller.getUserid(), "Đăng xe thành công",
@@ -351,6 +357,7 @@ public class SellerServiceImpl implements SellerService {
         }
         currentBatteryPackage.setRemainingBatteries(currentBatteryPackage.getRemainingBatteries() - 1);
         userPackageRepository.save(currentBatteryPackage);
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getProductid()));
         
         // Tạo notification cho seller
         notificationService.createNotification(seller.getUserid(), "Đăng pin thành công",
@@ -397,7 +404,9 @@ public class SellerServiceImpl implements SellerService {
         product.setSpecs(updatedProduct.getSpecs());
         product.setUpdatedat(new Date());
         
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getProductid()));
+        return saved;
     }
 
     //Xóa sản phẩm pin (chỉ khi chưa có đơn hàng)
@@ -423,6 +432,7 @@ public class SellerServiceImpl implements SellerService {
         }
         
         productRepository.delete(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(productId));
     }
 
     //Lấy đơn hàng xe của seller
@@ -0,0 +1,124 @@
+package com.project.tradingev_batter.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+//Bộ đếm lượt xem write-behind
+//- Mỗi lượt xem chỉ cộng vào bộ đếm trong bộ nhớ của sản phẩm (khóa theo từng sản phẩm, không mất lượt khi xem đồng thời)
+//- Định kỳ flush thành 1 batch UPDATE products SET view_count = view_count + ? (không load entity, không đụng updatedat)
+//- Mất tối đa 1 chu kỳ flush nếu server crash; khi shutdown bình thường sẽ flush nốt
+//- Tổng hiển thị = giá trị DB lúc nạp bộ đếm + số lượt xem trong bộ nhớ từ lúc nạp; đọc DB ngoài mọi lock
+//- Flush xong mà không có lượt mới thì bỏ bộ đếm, lượt xem sau đọc lại từ DB (đã gồm mọi lượt đã flush)
+//  => bộ nhớ chỉ tỉ lệ với số sản phẩm được xem trong 1 chu kỳ (sản phẩm đã xóa cũng tự rơi khỏi map)
+@Service
+@Slf4j
+public class ViewCountBuffer {
+
+    private static final String FLUSH_SQL =
+            "UPDATE products SET view_count = COALESCE(view_count, 0) + ? WHERE productid = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // productId -> bộ đếm; chỉ giữ sản phẩm có lượt xem chưa flush (hoặc vừa flush ở chu kỳ này)
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    public ViewCountBuffer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    //Ghi nhận 1 lượt xem, trả về tổng lượt xem hiện tại
+    //currentFromDb chỉ được gọi khi sản phẩm chưa có bộ đếm (lượt xem đầu tiên sau lần flush gần nhất)
+    public long record(long productId, LongSupplier currentFromDb) {
+        while (true) {
+            Counter counter = counters.get(productId);
+            if (counter == null) {
+                // Query DB ngoài lock của map; 2 request cùng nạp thì bản đến sau dùng bộ đếm đã có
+                long fromDb = currentFromDb.getAsLong();
+                counter = counters.computeIfAbsent(productId, id -> new Counter(fromDb));
+            }
+            synchronized (counter) {
+                // Bộ đếm vừa bị bỏ sau flush => nạp lại từ DB
+                if (counter.evicted) {
+                    continue;
+                }
+                counter.unflushed++;
+                counter.viewsSinceSeed++;
+                return counter.seed + counter.viewsSinceSeed;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${product.view-count.flush-interval-ms:10000}")
+    public void flush() {
+        if (counters.isEmpty()) {
+            return;
+        }
+
+        // Lấy và xóa số lượt chưa flush dưới lock của bộ đếm: lượt xem đến sau chờ lần flush sau
+        List<Object[]> batch = new ArrayList<>();
+        for (Map.Entry<Long, Counter> entry : counters.entrySet()) {
+            Counter counter = entry.getValue();
+            long delta;
+            synchronized (counter) {
+                delta = counter.unflushed;
+                counter.unflushed = 0;
+            }
+            if (delta > 0) {
+                batch.add(new Object[]{delta, entry.getKey()});
+            }
+        }
+
+        try {
+            if (!batch.isEmpty()) {
+                jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+                log.debug("Flushed view counts for {} products", batch.size());
+            }
+        } catch (Exception e) {
+            // Trả lại số lượt xem vào bộ đếm để flush lần sau
+            for (Object[] row : batch) {
+                Counter counter = counters.get((Long) row[1]);
+                synchronized (counter) {
+                    counter.unflushed += (Long) row[0];
+                }
+            }
+            log.warn("Failed to flush view counts for {} products: {}", batch.size(), e.getMessage());
+            return;
+        }
+
+        // DB đã có đủ lượt xem => bỏ bộ đếm không còn lượt chưa flush
+        counters.values().removeIf(counter -> {
+            synchronized (counter) {
+                if (counter.unflushed == 0) {
+                    counter.evicted = true;
+                }
+                return counter.evicted;
+            }
+        });
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private static final class Counter {
+        private final long seed;       // view_count trong DB lúc nạp
+        private long viewsSinceSeed;   // lượt xem ghi nhận từ lúc nạp (đã flush hoặc chưa)
+        private long unflushed;        // lượt xem chưa ghi xuống DB
+        private boolean evicted;
+
+        private Counter(long seed) {
+            this.seed = seed;
+        }
+    }
+}
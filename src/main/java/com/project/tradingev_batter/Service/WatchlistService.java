@@ -0,0 +1,18 @@
+package com.project.tradingev_batter.Service;
+
+import com.project.tradingev_batter.Entity.Favorite_post;
+import com.project.tradingev_batter.enums.ProductStatus;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface WatchlistService {
+    // Buyer theo dõi / bỏ theo dõi sản phẩm
+    Favorite_post watchProduct(Long userId, Long productId);
+    void unwatchProduct(Long userId, Long productId);
+    List<Favorite_post> getWatchlist(Long userId);
+
+    // ProductWatchIndex gọi khi sản phẩm đang được theo dõi giảm giá / đổi trạng thái
+    void notifyPriceDrop(Long productId, String productName, double oldPrice, double newPrice, Collection<Long> watcherIds);
+    void notifyStatusChanged(Long productId, String productName, ProductStatus status, Collection<Long> watcherIds);
+}
@@ -0,0 +1,113 @@
+package com.project.tradingev_batter.Service;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.project.tradingev_batter.Entity.Favorite_post;
+import com.project.tradingev_batter.Entity.Product;
+import com.project.tradingev_batter.Entity.User;
+import com.project.tradingev_batter.Repository.FavoritePostRepository;
+import com.project.tradingev_batter.Repository.ProductRepository;
+import com.project.tradingev_batter.Repository.UserRepository;
+import com.project.tradingev_batter.enums.ProductStatus;
+import com.project.tradingev_batter.event.WatchlistChangedEvent;
+
+//Watchlist sản phẩm của buyer, lưu trong favorite_posts (cột productid)
+@Service
+public class WatchlistServiceImpl implements WatchlistService {
+
+    private final FavoritePostRepository favoritePostRepository;
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final NotificationService notificationService;
+    private final ApplicationEventPublisher eventPublisher;
+    // INSERT trong transaction riêng: trùng khóa unique không làm hỏng transaction của watchProduct
+    private final TransactionTemplate requiresNewTransaction;
+
+    public WatchlistServiceImpl(FavoritePostRepository favoritePostRepository, ProductRepository productRepository,
+                                UserRepository userRepository, NotificationService notificationService,
+                                ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager) {
+        this.favoritePostRepository = favoritePostRepository;
+        this.productRepository = productRepository;
+        this.userRepository = userRepository;
+        this.notificationService = notificationService;
+        this.eventPublisher = eventPublisher;
+        this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+        this.requiresNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    @Transactional
+    public Favorite_post watchProduct(Long userId, Long productId) {
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
+        if (product.getUsers() != null && userId.equals(product.getUsers().getUserid())) {
+            throw new IllegalArgumentException("Không thể theo dõi sản phẩm của chính bạn");
+        }
+
+        // Đã theo dõi rồi thì trả về bản ghi cũ
+        Favorite_post existing = favoritePostRepository.findFirstByUsers_UseridAndProducts_Productid(userId, productId)
+                .orElse(null);
+        if (existing != null) {
+            return existing;
+        }
+
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
+        Favorite_post favorite = new Favorite_post();
+        favorite.setUsers(user);
+        favorite.setProducts(product);
+        favorite.setWatchedPrice(product.getCost());
+        favorite.setCreated_at(new Date());
+
+        Favorite_post saved;
+        try {
+            saved = requiresNewTransaction.execute(status -> favoritePostRepository.save(favorite));
+        } catch (DataIntegrityViolationException e) {
+            // Request khác vừa theo dõi cùng sản phẩm => coi như đã theo dõi, trả về dòng đó
+            return favoritePostRepository.findFirstByUsers_UseridAndProducts_Productid(userId, productId)
+                    .orElseThrow(() -> e);
+        }
+        eventPublisher.publishEvent(new WatchlistChangedEvent(productId, userId, true, product.getCost(), product.getStatus()));
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public void unwatchProduct(Long userId, Long productId) {
+        if (favoritePostRepository.deleteWatch(userId, productId) == 0) {
+            throw new RuntimeException("Bạn chưa theo dõi sản phẩm này");
+        }
+        eventPublisher.publishEvent(new WatchlistChangedEvent(productId, userId, false, 0, null));
+    }
+
+    @Override
+    public List<Favorite_post> getWatchlist(Long userId) {
+        return favoritePostRepository.findWatchlistByUser(userId);
+    }
+
+    //Chạy sau khi transaction sửa sản phẩm đã commit => cần transaction riêng để ghi notification
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void notifyPriceDrop(Long productId, String productName, double oldPrice, double newPrice,
+                                Collection<Long> watcherIds) {
+        notificationService.notifyWatchersPriceDrop(watcherIds, productId, productName, oldPrice, newPrice);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void notifyStatusChanged(Long productId, String productName, ProductStatus status,
+                                    Collection<Long> watcherIds) {
+        notificationService.notifyWatchersStatusChanged(watcherIds, productId, productName, status.getDescription());
+    }
+}
@@ -0,0 +1,18 @@
+package com.project.tradingev_batter.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//Kết quả 1 trang keyset pagination: nextCursor = null khi đã hết dữ liệu
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasNext;
+}
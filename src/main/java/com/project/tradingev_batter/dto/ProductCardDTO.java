@@ -0,0 +1,117 @@
+package com.project.tradingev_batter.dto;
+
+import java.util.Date;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.project.tradingev_batter.Entity.Product;
+import com.project.tradingev_batter.Entity.SellerRating;
+import com.project.tradingev_batter.enums.ProductStatus;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//Read model cho thẻ sản phẩm trên trang danh sách: chỉ các field thẻ cần hiển thị
+//Được select trực tiếp bằng constructor expression (1 câu SQL, không hydrate Product/imgs/brand/user)
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductCardDTO {
+
+    private Long productid;
+    private String productname;
+    private Double cost;
+    private ProductStatus status;
+    private String type;
+    private String model;
+    private Integer viewCount;
+    private Boolean inWarehouse;
+    private String primaryImage; // Ảnh đầu tiên (imgid nhỏ nhất)
+
+    // Tóm tắt hãng: xe lấy từ brandcars, pin lấy từ brandbattery
+    private String brand;
+    private Integer year;
+    private String licensePlate; // Chỉ xe
+    private Double capacity;     // Chỉ pin
+    private String condition;    // Chỉ pin
+
+    private Long sellerId;
+    private String sellerName; // displayname, fallback username
+    private Double sellerRating;  // Rating trung bình của seller (từ seller_ratings)
+    private Long sellerReviews;   // Tổng số đánh giá của seller
+
+    @JsonIgnore
+    private Date createdat; // Khóa keyset (NEWEST), không trả về client
+
+    // Constructor dùng cho JPQL/Criteria constructor expression (thứ tự tham số phải khớp ProductCardQuery)
+    public ProductCardDTO(Long productid, String productname, Double cost, ProductStatus status, String type,
+                          String model, Integer viewCount, Boolean inWarehouse, Date createdat,
+                          String carBrand, Integer carYear, String licensePlate,
+                          String batteryBrand, Integer batteryYear, Double batteryCapacity, String batteryCondition,
+                          Long sellerId, String sellerUsername, String sellerDisplayName, String primaryImage,
+                          Long sellerRatingSum, Long sellerReviewCount) {
+        this.productid = productid;
+        this.productname = productname;
+        this.cost = cost;
+        this.status = status;
+        this.type = type;
+        this.model = model;
+        this.viewCount = viewCount;
+        this.inWarehouse = inWarehouse;
+        this.createdat = createdat;
+        if ("Car EV".equals(type)) {
+            this.brand = carBrand;
+            this.year = carYear;
+            this.licensePlate = licensePlate;
+        } else if ("Battery".equals(type)) {
+            this.brand = batteryBrand;
+            this.year = batteryYear;
+            this.capacity = batteryCapacity;
+            this.condition = batteryCondition;
+        }
+        this.sellerId = sellerId;
+        this.sellerName = sellerDisplayName != null ? sellerDisplayName : sellerUsername;
+        this.primaryImage = primaryImage;
+        if (sellerReviewCount != null && sellerReviewCount > 0 && sellerRatingSum != null) {
+            this.sellerRating = Math.round(sellerRatingSum * 10.0 / sellerReviewCount) / 10.0;
+            this.sellerReviews = sellerReviewCount;
+        }
+    }
+
+    // Tạo thẻ từ entity đã load sẵn (vd kết quả search đã lọc trong bộ nhớ)
+    // Rating seller không có trong entity => gán sau bằng applySellerRating()
+    public static ProductCardDTO from(Product product) {
+        boolean hasCar = product.getBrandcars() != null;
+        boolean hasBattery = product.getBrandbattery() != null;
+        boolean hasSeller = product.getUsers() != null;
+        return new ProductCardDTO(
+                product.getProductid(),
+                product.getProductname(),
+                product.getCost(),
+                product.getStatus(),
+                product.getType(),
+                product.getModel(),
+                product.getViewCount(),
+                product.getInWarehouse(),
+                product.getCreatedat(),
+                hasCar ? product.getBrandcars().getBrand() : null,
+                hasCar ? product.getBrandcars().getYear() : null,
+                hasCar ? product.getBrandcars().getLicensePlate() : null,
+                hasBattery ? product.getBrandbattery().getBrand() : null,
+                hasBattery ? product.getBrandbattery().getYear() : null,
+                hasBattery ? product.getBrandbattery().getCapacity() : null,
+                hasBattery ? product.getBrandbattery().getCondition() : null,
+                hasSeller ? product.getUsers().getUserid() : null,
+                hasSeller ? product.getUsers().getUsername() : null,
+                hasSeller ? product.getUsers().getDisplayname() : null,
+                product.getImgs() != null && !product.getImgs().isEmpty() ? product.getImgs().get(0).getUrl() : null,
+                null, null);
+    }
+
+    public void applySellerRating(SellerRating rating) {
+        if (rating != null && rating.getReviewCount() > 0) {
+            this.sellerRating = Math.round(rating.getAverageRating() * 10.0) / 10.0;
+            this.sellerReviews = rating.getReviewCount();
+        }
+    }
+}
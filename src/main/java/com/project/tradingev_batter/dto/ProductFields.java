@@ -0,0 +1,102 @@
+package com.project.tradingev_batter.dto;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+//Sparse fieldset cho thẻ sản phẩm: ?fields=productid,productname,cost,primaryImage
+//Không truyền fields = trả đủ thẻ. productid luôn có để client định danh sản phẩm
+//ProductCardQuery chỉ select/join những gì field được chọn cần; field không chọn để null => không serialize (NON_NULL)
+public final class ProductFields {
+
+    public static final List<String> SUPPORTED = Collections.unmodifiableList(Arrays.asList(
+            "productid", "productname", "cost", "status", "type", "model", "viewCount", "inWarehouse", "primaryImage",
+            "brand", "year", "licensePlate", "capacity", "condition",
+            "sellerId", "sellerName", "sellerRating", "sellerReviews"));
+
+    // Field -> cách xóa field đó khỏi thẻ
+    private static final Map<String, Consumer<ProductCardDTO>> CLEARERS = Map.ofEntries(
+            Map.entry("productname", c -> c.setProductname(null)),
+            Map.entry("cost", c -> c.setCost(null)),
+            Map.entry("status", c -> c.setStatus(null)),
+            Map.entry("type", c -> c.setType(null)),
+            Map.entry("model", c -> c.setModel(null)),
+            Map.entry("viewCount", c -> c.setViewCount(null)),
+            Map.entry("inWarehouse", c -> c.setInWarehouse(null)),
+            Map.entry("primaryImage", c -> c.setPrimaryImage(null)),
+            Map.entry("brand", c -> c.setBrand(null)),
+            Map.entry("year", c -> c.setYear(null)),
+            Map.entry("licensePlate", c -> c.setLicensePlate(null)),
+            Map.entry("capacity", c -> c.setCapacity(null)),
+            Map.entry("condition", c -> c.setCondition(null)),
+            Map.entry("sellerId", c -> c.setSellerId(null)),
+            Map.entry("sellerName", c -> c.setSellerName(null)),
+            Map.entry("sellerRating", c -> c.setSellerRating(null)),
+            Map.entry("sellerReviews", c -> c.setSellerReviews(null)));
+
+    public static final ProductFields ALL = new ProductFields(null);
+
+    private final Set<String> names; // null = tất cả
+
+    private ProductFields(Set<String> names) {
+        this.names = names;
+    }
+
+    public static ProductFields parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        Set<String> names = new LinkedHashSet<>();
+        names.add("productid");
+        for (String raw : fields.split(",")) {
+            String name = raw.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!SUPPORTED.contains(name)) {
+                throw new IllegalArgumentException("Field không hợp lệ: " + name + ". Hỗ trợ: " + String.join(",", SUPPORTED));
+            }
+            names.add(name);
+        }
+        return new ProductFields(names);
+    }
+
+    public boolean isAll() {
+        return names == null;
+    }
+
+    public boolean includes(String name) {
+        return names == null || names.contains(name);
+    }
+
+    public boolean includesAny(String... candidates) {
+        for (String candidate : candidates) {
+            if (includes(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Key ổn định cho cache trang danh sách
+    public String cacheKey() {
+        return names == null ? "*" : String.join(",", names);
+    }
+
+    // Xóa các field không được chọn (kể cả field nội bộ đã select để tính cursor)
+    public ProductCardDTO strip(ProductCardDTO card) {
+        if (names == null) {
+            return card;
+        }
+        CLEARERS.forEach((name, clear) -> {
+            if (!names.contains(name)) {
+                clear.accept(card);
+            }
+        });
+        return card;
+    }
+}
@@ -0,0 +1,47 @@
+package com.project.tradingev_batter.dto;
+
+import com.project.tradingev_batter.enums.ProductStatus;
+
+import lombok.Data;
+
+//Bộ lọc sản phẩm có kiểu: field nào null thì không sinh điều kiện
+//Dùng chung cho truy vấn DB (ProductSpecifications.of) và lọc trong bộ nhớ (ProductSpecifications.matches)
+@Data
+public class ProductFilter {
+    private String type;          // "Car EV" | "Battery"
+    private String brand;         // Hãng (brandcars.brand / brandbatteries.brand)
+    private ProductStatus status;
+    private Long sellerId;
+
+    private Double priceMin;
+    private Double priceMax;
+    private Integer yearMin;
+    private Integer yearMax;
+    private Double capacityMin;   // Xe: dung lượng pin, Pin: dung lượng
+    private Double capacityMax;
+
+    // Chỉ xe
+    private Double odoMin;
+    private Double odoMax;
+
+    // Chỉ pin
+    private String condition;
+    private Double voltageMin;
+    private Double voltageMax;
+    private Double remainingMin;  // Dung lượng còn lại (sức khỏe pin)
+    private Double remainingMax;
+
+    public boolean hasCarOnlyFilter() {
+        return odoMin != null || odoMax != null;
+    }
+
+    public boolean hasBatteryOnlyFilter() {
+        return voltageMin != null || voltageMax != null || remainingMin != null || remainingMax != null
+                || (condition != null && !condition.isBlank());
+    }
+
+    public boolean hasSharedSpecFilter() {
+        return (brand != null && !brand.isBlank()) || yearMin != null || yearMax != null
+                || capacityMin != null || capacityMax != null;
+    }
+}
@@ -0,0 +1,28 @@
+package com.project.tradingev_batter.dto;
+
+import com.project.tradingev_batter.enums.OrderStatus;
+import com.project.tradingev_batter.enums.ReportJobType;
+import com.project.tradingev_batter.enums.RollupGranularity;
+import com.project.tradingev_batter.enums.TransactionStatus;
+import com.project.tradingev_batter.enums.TransactionType;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+//Manager gửi yêu cầu chạy báo cáo nền. Tham số nào không áp dụng cho loại báo cáo thì bỏ qua
+//- REVENUE_SERIES: from, to (bắt buộc), granularity
+//- ORDERS_EXPORT: format, orderStatus, from, to
+//- TRANSACTIONS_EXPORT: format, transactionType, transactionStatus, from, to
+@Data
+public class ReportJobRequest {
+    private ReportJobType type;
+    private String format; // csv | xlsx (job xuất file)
+
+    private LocalDate from; // yyyy-MM-dd
+    private LocalDate to;
+
+    private RollupGranularity granularity;
+    private OrderStatus orderStatus;
+    private TransactionType transactionType;
+    private TransactionStatus transactionStatus;
+}
@@ -0,0 +1,18 @@
+package com.project.tradingev_batter.dto;
+
+import com.project.tradingev_batter.enums.ExportFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+//Kết quả job báo cáo đã hoàn tất: Map (báo cáo JSON) hoặc file tạm (job xuất CSV/XLSX)
+@Data
+@AllArgsConstructor
+public class ReportJobResult {
+    private Map<String, Object> data;
+    private Path file;
+    private ExportFormat format;
+    private String fileName;
+}
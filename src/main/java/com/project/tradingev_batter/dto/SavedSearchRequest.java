@@ -0,0 +1,11 @@
+package com.project.tradingev_batter.dto;
+
+import lombok.Data;
+
+//Buyer lưu một tìm kiếm: tên hiển thị + keyword + bộ lọc giống /api/public/products/search
+@Data
+public class SavedSearchRequest {
+    private String name;
+    private String keyword;
+    private ProductFilter filter;
+}
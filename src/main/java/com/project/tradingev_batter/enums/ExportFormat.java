@@ -0,0 +1,40 @@
+package com.project.tradingev_batter.enums;
+
+public enum ExportFormat {
+    CSV("CSV (UTF-8, phân cách dấu phẩy)", "text/csv;charset=UTF-8", "csv"),
+    XLSX("Excel 2007+", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+    private final String description;
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String description, String contentType, String extension) {
+        this.description = description;
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    // Parse từ query param (không phân biệt hoa thường), mặc định CSV
+    public static ExportFormat fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return CSV;
+        }
+        try {
+            return ExportFormat.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Định dạng xuất không hợp lệ: " + value + ". Hỗ trợ: csv, xlsx");
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.project.tradingev_batter.enums;
+
+public enum ProductSort {
+    NEWEST("Mới nhất"),
+    PRICE_ASC("Giá tăng dần"),
+    PRICE_DESC("Giá giảm dần");
+
+    private final String description;
+
+    ProductSort(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    // Parse từ query param (không phân biệt hoa thường), mặc định NEWEST
+    public static ProductSort fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return NEWEST;
+        }
+        try {
+            return ProductSort.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Kiểu sắp xếp không hợp lệ: " + value);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.project.tradingev_batter.enums;
+
+public enum ReportJobStatus {
+    QUEUED("Đang chờ"),
+    RUNNING("Đang chạy"),
+    COMPLETED("Hoàn tất"),
+    FAILED("Thất bại");
+
+    private final String description;
+
+    ReportJobStatus(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED;
+    }
+}
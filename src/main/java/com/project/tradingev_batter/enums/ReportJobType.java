@@ -0,0 +1,24 @@
+package com.project.tradingev_batter.enums;
+
+public enum ReportJobType {
+    REVENUE_REPORT("Báo cáo doanh thu"),
+    SYSTEM_REPORT("Báo cáo hệ thống"),
+    REVENUE_SERIES("Doanh thu theo ngày/tháng"),
+    ORDERS_EXPORT("Xuất danh sách đơn hàng"),
+    TRANSACTIONS_EXPORT("Xuất danh sách giao dịch");
+
+    private final String description;
+
+    ReportJobType(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    // Job xuất file (tải về dạng CSV/XLSX) hay báo cáo JSON
+    public boolean isExport() {
+        return this == ORDERS_EXPORT || this == TRANSACTIONS_EXPORT;
+    }
+}
@@ -0,0 +1,18 @@
+package com.project.tradingev_batter.enums;
+
+public enum RevenueCategory {
+    CAR("Doanh thu xe"),
+    BATTERY("Doanh thu pin"),
+    PACKAGE("Doanh thu gói dịch vụ"),
+    COMMISSION("Hoa hồng đã thu");
+
+    private final String description;
+
+    RevenueCategory(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,16 @@
+package com.project.tradingev_batter.enums;
+
+public enum RollupGranularity {
+    DAY("Theo ngày"),
+    MONTH("Theo tháng");
+
+    private final String description;
+
+    RollupGranularity(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
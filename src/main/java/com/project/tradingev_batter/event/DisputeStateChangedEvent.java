@@ -0,0 +1,15 @@
+package com.project.tradingev_batter.event;
+
+import com.project.tradingev_batter.enums.DisputeStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+//Phát ra khi tranh chấp được tạo, đổi status hoặc bị xóa (null = không tồn tại ở phía đó).
+@Getter
+@AllArgsConstructor
+public class DisputeStateChangedEvent {
+    private final Long disputeId;
+    private final DisputeStatus oldStatus;
+    private final DisputeStatus newStatus;
+}
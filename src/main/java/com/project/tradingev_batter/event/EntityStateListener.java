@@ -0,0 +1,95 @@
+package com.project.tradingev_batter.event;
+
+import java.util.Objects;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import com.project.tradingev_batter.Entity.Dispute;
+import com.project.tradingev_batter.Entity.Orders;
+import com.project.tradingev_batter.Entity.Transaction;
+
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+//JPA entity listener cho Orders, Dispute, Transaction: phát domain event mỗi khi status/số tiền thực sự đổi
+//Trạng thái cũ được chụp vào field @Transient lúc load/lưu => event mang cả (cũ, mới), người nghe chỉ cần cộng/trừ delta
+//Bắt được mọi nơi ghi (save() hay dirty checking) mà không phải sửa từng service; UPDATE bằng JPQL bulk thì không qua đây
+//Spring Boot cấu hình SpringBeanContainer cho Hibernate => listener là bean, được inject ApplicationEventPublisher
+@Component
+public class EntityStateListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public EntityStateListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostLoad
+    public void onLoad(Object entity) {
+        snapshot(entity);
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        publish(entity, false);
+        snapshot(entity);
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        publish(entity, true);
+    }
+
+    // =============== HELPER METHODS ==================================================================================
+
+    private void snapshot(Object entity) {
+        if (entity instanceof Orders order) {
+            order.setLoadedStatus(order.getStatus());
+            order.setLoadedAmount(order.getTotalamount());
+        } else if (entity instanceof Dispute dispute) {
+            dispute.setLoadedStatus(dispute.getStatus());
+        } else if (entity instanceof Transaction transaction) {
+            transaction.setLoadedType(transaction.getTransactionType());
+            transaction.setLoadedStatus(transaction.getStatus());
+            transaction.setLoadedAmount(amountOf(transaction.getAmount()));
+        }
+    }
+
+    private void publish(Object entity, boolean removed) {
+        if (entity instanceof Orders order) {
+            double oldAmount = amountOf(order.getLoadedAmount());
+            if (!removed && order.getLoadedStatus() == order.getStatus() && oldAmount == order.getTotalamount()) {
+                return;
+            }
+            eventPublisher.publishEvent(new OrderStateChangedEvent(order.getOrderid(),
+                    order.getLoadedStatus(), oldAmount,
+                    removed ? null : order.getStatus(), order.getTotalamount(),
+                    order.getPackageId() != null));
+        } else if (entity instanceof Dispute dispute) {
+            if (!removed && dispute.getLoadedStatus() == dispute.getStatus()) {
+                return;
+            }
+            eventPublisher.publishEvent(new DisputeStateChangedEvent(dispute.getDisputeid(),
+                    dispute.getLoadedStatus(), removed ? null : dispute.getStatus()));
+        } else if (entity instanceof Transaction transaction) {
+            double oldAmount = amountOf(transaction.getLoadedAmount());
+            double newAmount = amountOf(transaction.getAmount());
+            if (!removed && transaction.getLoadedStatus() == transaction.getStatus()
+                    && Objects.equals(transaction.getLoadedType(), transaction.getTransactionType())
+                    && oldAmount == newAmount) {
+                return;
+            }
+            eventPublisher.publishEvent(new TransactionStateChangedEvent(transaction.getTransid(),
+                    transaction.getLoadedType(), transaction.getLoadedStatus(), oldAmount,
+                    transaction.getTransactionType(), removed ? null : transaction.getStatus(), newAmount));
+        }
+    }
+
+    private static double amountOf(Double amount) {
+        return amount != null ? amount : 0.0;
+    }
+}
@@ -0,0 +1,19 @@
+package com.project.tradingev_batter.event;
+
+import com.project.tradingev_batter.enums.OrderStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+//Phát ra (trong lúc flush) khi đơn hàng được tạo, đổi status/tổng tiền hoặc bị xóa.
+//oldStatus = null: đơn mới; newStatus = null: đơn bị xóa. Listener nhận sau khi transaction commit.
+@Getter
+@AllArgsConstructor
+public class OrderStateChangedEvent {
+    private final Long orderId;
+    private final OrderStatus oldStatus;
+    private final double oldAmount;
+    private final OrderStatus newStatus;
+    private final double newAmount;
+    private final boolean packageOrder; // Đơn mua gói dịch vụ
+}
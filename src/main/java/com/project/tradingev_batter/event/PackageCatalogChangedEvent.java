@@ -0,0 +1,12 @@
+package com.project.tradingev_batter.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+//Phát ra khi Manager tạo, sửa hoặc xóa gói dịch vụ (PackageService).
+//CatalogVersionIndex lắng nghe (sau commit) để đổi validator của /api/public/package-services.
+@Getter
+@AllArgsConstructor
+public class PackageCatalogChangedEvent {
+    private final Long packageId;
+}
@@ -0,0 +1,12 @@
+package com.project.tradingev_batter.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+//Phát ra mỗi khi một sản phẩm được tạo, chỉnh sửa, đổi ProductStatus hoặc bị xóa.
+//Các index in-memory lắng nghe event này (sau khi transaction commit) để tự cập nhật.
+@Getter
+@AllArgsConstructor
+public class ProductChangedEvent {
+    private final Long productId;
+}
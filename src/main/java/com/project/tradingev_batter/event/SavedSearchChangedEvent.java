@@ -0,0 +1,12 @@
+package com.project.tradingev_batter.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+//Phát ra khi buyer tạo hoặc xóa một tìm kiếm đã lưu.
+//SavedSearchPercolator lắng nghe (sau khi transaction commit) để đăng ký/hủy điều kiện trong bộ nhớ.
+@Getter
+@AllArgsConstructor
+public class SavedSearchChangedEvent {
+    private final Long savedSearchId;
+}
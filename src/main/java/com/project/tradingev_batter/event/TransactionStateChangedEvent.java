@@ -0,0 +1,20 @@
+package com.project.tradingev_batter.event;
+
+import com.project.tradingev_batter.enums.TransactionStatus;
+import com.project.tradingev_batter.enums.TransactionType;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+//Phát ra khi giao dịch được ghi, đổi loại/status/số tiền hoặc bị xóa (status null = không tồn tại ở phía đó).
+@Getter
+@AllArgsConstructor
+public class TransactionStateChangedEvent {
+    private final Long transactionId;
+    private final TransactionType oldType;
+    private final TransactionStatus oldStatus;
+    private final double oldAmount;
+    private final TransactionType newType;
+    private final TransactionStatus newStatus;
+    private final double newAmount;
+}
@@ -0,0 +1,19 @@
+package com.project.tradingev_batter.event;
+
+import com.project.tradingev_batter.enums.ProductStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+//Phát ra khi buyer thêm/bỏ theo dõi một sản phẩm (watchlist).
+//ProductWatchIndex lắng nghe (sau khi transaction commit) để cập nhật index product -> người theo dõi.
+//Kèm giá/trạng thái hiện tại làm mốc so sánh cho lần thay đổi tiếp theo.
+@Getter
+@AllArgsConstructor
+public class WatchlistChangedEvent {
+    private final Long productId;
+    private final Long userId;
+    private final boolean watching;
+    private final double cost;
+    private final ProductStatus status;
+}